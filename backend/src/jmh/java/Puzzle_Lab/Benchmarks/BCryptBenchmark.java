@@ -0,0 +1,50 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What one login or registration costs in CPU. Keep the first log rounds value
+ * equal to puzzlelab.bcrypt.log-rounds, the next one shows the cost of raising it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BCryptBenchmark {
+    private static final String PASSWORD = "correct horse battery";
+
+    @Param({ "10", "12" })
+    int logRounds;
+
+    private String hash;
+
+    @Setup
+    public void setup() {
+        hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(logRounds));
+    }
+
+    @Benchmark
+    public String hash() {
+        return BCrypt.hashpw(PASSWORD, BCrypt.gensalt(logRounds));
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return BCrypt.checkpw(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,139 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Puzzle_Lab.Words.GridFiller;
+import Puzzle_Lab.Words.WordIndex;
+
+/**
+ * POST /words/autofill on a 15x15 grid with a 500k word list: from an empty grid,
+ * and around the first three rows already filled in. The list is PuzzleFixtures'
+ * synthetic one plus the words of one random fill of the grid, so a fill is known
+ * to exist. Random words cross less often than real ones, so expect more search
+ * than with a real list.
+ *
+ * The result of one fill, and how many partial fills it tried, is printed when
+ * the benchmark starts. A fill that times out is as slow as the timeout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GridFillerBenchmark {
+    // A daily-sized grid with 39 blocks and words of 3 to 8 letters, symmetric like a published one
+    private static final String[] PATTERN = {
+            "...#...#.......",
+            ".......#.......",
+            ".......#.......",
+            "#...#......#...",
+            "...#.....###...",
+            ".....#...#....#",
+            "......#.....###",
+            "#......#......#",
+            "###.....#......",
+            "#....#...#.....",
+            "...###.....#...",
+            "...#......#...#",
+            ".......#.......",
+            ".......#.......",
+            ".......#...#...",
+    };
+    private static final int SIZE = PATTERN.length;
+    private static final int FIXED_ROWS = 3;
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Param({ "500000" })
+    int words;
+
+    private boolean[] blocked;
+    private char[] partlyFilled;
+    private WordIndex index;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(words);
+        blocked = new boolean[SIZE * SIZE];
+        char[] planted = new char[SIZE * SIZE];
+        partlyFilled = new char[SIZE * SIZE];
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            blocked[i] = PATTERN[i / SIZE].charAt(i % SIZE) == '#';
+            planted[i] = blocked[i] ? '\0' : PuzzleFixtures.letter(random);
+            partlyFilled[i] = i / SIZE < FIXED_ROWS ? planted[i] : '\0';
+        }
+
+        List<String> lines = new ArrayList<>(PuzzleFixtures.wordList(words));
+        lines.addAll(runs(planted));
+        index = WordIndex.build(lines);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors()); // One thread per core, like Autofiller
+
+        GridFiller.Result result = fill(new char[SIZE * SIZE]);
+        System.out.println("\n" + (result.filled() ? "Filled" : result.reason()) + " after " + result.nodes()
+                + " partial fills");
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public GridFiller.Result fillEmptyGrid() {
+        return fill(new char[SIZE * SIZE]);
+    }
+
+    @Benchmark
+    public GridFiller.Result fillAroundFixedRows() {
+        return fill(partlyFilled);
+    }
+
+    private GridFiller.Result fill(char[] letters) {
+        return new GridFiller(index, SIZE, SIZE, letters, blocked).fill(pool, TIMEOUT_NANOS);
+    }
+
+    /**
+     * @return The across and down words of a filled grid
+     */
+    private List<String> runs(char[] letters) {
+        List<String> found = new ArrayList<>();
+        for (int line = 0; line < SIZE; line++) {
+            StringBuilder across = new StringBuilder();
+            StringBuilder down = new StringBuilder();
+            for (int i = 0; i <= SIZE; i++) {
+                addRun(found, across, i < SIZE && !blocked[line * SIZE + i] ? letters[line * SIZE + i] : '\0');
+                addRun(found, down, i < SIZE && !blocked[i * SIZE + line] ? letters[i * SIZE + line] : '\0');
+            }
+        }
+        return found;
+    }
+
+    private static void addRun(List<String> found, StringBuilder run, char letter) {
+        if (letter != '\0') {
+            run.append(letter);
+            return;
+        }
+        if (run.length() >= WordIndex.MIN_LENGTH) {
+            found.add(run.toString());
+        }
+        run.setLength(0);
+    }
+}
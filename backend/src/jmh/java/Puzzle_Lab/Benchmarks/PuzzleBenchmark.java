@@ -0,0 +1,83 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.LoadTest.PuzzleGenerator;
+
+/**
+ * The puzzle conversions done on every uncached read. "Cold" benchmarks start
+ * from a freshly loaded puzzle, so they include parsing the cells JSON. "Warm"
+ * ones reuse a puzzle whose grid is already parsed, like a second call in the
+ * same request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PuzzleBenchmark {
+    private static final ObjectReader CELLS_READER = ResponseBody.MAPPER
+            .readerFor(new TypeReference<List<List<Puzzle.Cell>>>() {
+            });
+
+    @Param({ "5", "15", "25" })
+    int size;
+
+    private PuzzleGenerator.Generated fixture;
+    private Puzzle warm;
+
+    @Setup
+    public void setup() {
+        fixture = PuzzleFixtures.generate(size);
+        warm = PuzzleFixtures.puzzle(fixture);
+        warm.getEmptyDTO();
+    }
+
+    @Benchmark
+    public List<List<Puzzle.Cell>> cellsListCold() {
+        return PuzzleFixtures.puzzle(fixture).getCellsList();
+    }
+
+    /**
+     * Binding the cells straight to Cell objects with Jackson, the way they were
+     * read before PuzzleGrid. Kept as a baseline for cellsListCold.
+     */
+    @Benchmark
+    public List<List<Puzzle.Cell>> cellsListJacksonBaseline() throws Exception {
+        return CELLS_READER.readValue(fixture.cellsJson());
+    }
+
+    @Benchmark
+    public List<Puzzle.Hint> hintsList() {
+        return warm.getHintsList();
+    }
+
+    @Benchmark
+    public Map<String, Object> emptyDTOCold() {
+        return PuzzleFixtures.puzzle(fixture).getEmptyDTO();
+    }
+
+    @Benchmark
+    public Map<String, Object> emptyDTOWarm() {
+        return warm.getEmptyDTO();
+    }
+
+    @Benchmark
+    public Map<String, Object> fullDTO() {
+        return warm.getFullDTO();
+    }
+}
@@ -0,0 +1,70 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleCodec;
+import Puzzle_Lab.Entities.PuzzleGrid;
+import Puzzle_Lab.LoadTest.PuzzleGenerator;
+
+/**
+ * Reading and writing a puzzle's stored cells and hints in PuzzleCodec's format,
+ * against parsing the JSON they used to be stored as. Setup prints the stored
+ * sizes of both.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PuzzleCodecBenchmark {
+    @Param({ "5", "15", "25" })
+    int size;
+
+    private PuzzleGenerator.Generated fixture;
+    private PuzzleGrid grid;
+    private byte[] cellsData;
+    private byte[] hintsData;
+
+    @Setup
+    public void setup() {
+        fixture = PuzzleFixtures.generate(size);
+        grid = PuzzleGrid.parse(fixture.cellsJson());
+        cellsData = PuzzleCodec.encodeGrid(grid);
+        hintsData = PuzzleCodec.encodeHints(PuzzleFixtures.puzzle(fixture).getHintsList());
+        System.out.printf("%n%dx%d cells: %d bytes as JSON, %d encoded. Hints: %d bytes as JSON, %d encoded.%n",
+                size, size, fixture.cellsJson().length(), cellsData.length, fixture.hintsJson().length(), hintsData.length);
+    }
+
+    @Benchmark
+    public byte[] encodeGrid() {
+        return PuzzleCodec.encodeGrid(grid);
+    }
+
+    @Benchmark
+    public PuzzleGrid decodeGrid() {
+        return PuzzleCodec.decodeGrid(cellsData);
+    }
+
+    /**
+     * Parsing the cells JSON, the way every puzzle was read before PuzzleCodec.
+     * Kept as a baseline for decodeGrid.
+     */
+    @Benchmark
+    public PuzzleGrid parseGridJson() {
+        return PuzzleGrid.parse(fixture.cellsJson());
+    }
+
+    @Benchmark
+    public List<Puzzle.Hint> decodeHints() {
+        return PuzzleCodec.decodeHints(hintsData);
+    }
+}
@@ -0,0 +1,100 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.User;
+import Puzzle_Lab.Enums.Status;
+import Puzzle_Lab.LoadTest.PuzzleGenerator;
+
+/**
+ * Inputs for the benchmarks. Grids come from PuzzleGenerator, seeded by their
+ * size, so runs are comparable. Benchmarks use 5x5 (mini), 15x15 (daily) and
+ * 25x25, the largest grid a puzzle can have (PuzzleGrid.MAX_SIZE).
+ *
+ * Word lists are random words with English letter frequencies and lengths,
+ * since no real list ships with the repo.
+ */
+public final class PuzzleFixtures {
+    /**
+     * A bcrypt hash in the shape stored for users. Only its length matters here.
+     */
+    public static final String SAMPLE_HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Z0jzYQqTFRsHGPK5ypY7Wy";
+
+    // Relative frequency of each letter in English text, A to Z
+    private static final int[] LETTER_WEIGHTS = { 82, 15, 28, 43, 127, 22, 20, 61, 70, 2, 8, 40, 24, 67, 75, 19, 1,
+            60, 63, 91, 28, 10, 24, 2, 20, 1 };
+    private static final int[] LENGTH_WEIGHTS = { 0, 0, 1, 4, 8, 12, 14, 15, 14, 12, 9, 6, 3, 2 }; // By word length
+
+    private PuzzleFixtures() {
+    }
+
+    /**
+     * @param size - The number of rows and columns
+     * @return The cells and hints JSON of a size x size puzzle, the same every run
+     */
+    public static PuzzleGenerator.Generated generate(int size) {
+        return PuzzleGenerator.generate(size, size);
+    }
+
+    /**
+     * @return A user like one loaded from the database
+     */
+    public static User user() {
+        User user = new User("benchmark_user", SAMPLE_HASH, "benchmark@example.com");
+        user.setAvatar("https://example.com/avatars/benchmark.png");
+        return user;
+    }
+
+    /**
+     * @param words - The number of words
+     * @return A word list in the "WORD;score" format, the same every run for the same size
+     */
+    public static List<String> wordList(int words) {
+        Random random = new Random(words);
+        List<String> lines = new ArrayList<>(words);
+        for (int i = 0; i < words; i++) {
+            int length = pick(random, LENGTH_WEIGHTS);
+            StringBuilder word = new StringBuilder(length + 4);
+            for (int p = 0; p < length; p++) {
+                word.append(letter(random));
+            }
+            lines.add(word.append(';').append(random.nextInt(101)).toString());
+        }
+        return lines;
+    }
+
+    /**
+     * @param random - The source of randomness
+     * @return A letter from 'A' to 'Z', picked as often as it appears in English text
+     */
+    public static char letter(Random random) {
+        return (char) ('A' + pick(random, LETTER_WEIGHTS));
+    }
+
+    /**
+     * @param fixture - The cells and hints to use
+     * @return A new puzzle, with nothing parsed or rendered yet
+     */
+    public static Puzzle puzzle(PuzzleGenerator.Generated fixture) {
+        return new Puzzle(user(), "Benchmark puzzle", "A generated puzzle for benchmarks",
+                fixture.cellsJson(), fixture.hintsJson(), Status.PUBLIC);
+    }
+
+    private static int pick(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,69 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.Entities.Puzzle;
+
+/**
+ * Building a response and writing its body, the way the HTTP layer does, for a
+ * play and an edit payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseBodyBenchmark {
+    @Param({ "5", "15", "25" })
+    int size;
+
+    private Puzzle puzzle;
+
+    @Setup
+    public void setup() {
+        puzzle = PuzzleFixtures.puzzle(PuzzleFixtures.generate(size));
+        puzzle.getEmptyDTO();
+    }
+
+    @Benchmark
+    public Response buildOnly() {
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully obtained puzzle.")
+                .addObject("puzzle", puzzle.getEmptyDTO())
+                .build();
+    }
+
+    @Benchmark
+    public Response buildAndWritePlay() throws IOException {
+        return write(new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully obtained puzzle.")
+                .addObject("puzzle", puzzle.getEmptyDTO())
+                .build());
+    }
+
+    @Benchmark
+    public Response buildAndWriteEdit() throws IOException {
+        return write(new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully obtained puzzle.")
+                .addObject("puzzle", puzzle.getFullDTO())
+                .build());
+    }
+
+    private static Response write(Response response) throws IOException {
+        ((StreamingOutput) response.getEntity()).write(OutputStream.nullOutputStream());
+        return response;
+    }
+}
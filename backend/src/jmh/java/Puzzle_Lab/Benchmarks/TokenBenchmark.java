@@ -0,0 +1,76 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.lang.reflect.Field;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.build.Jwt;
+
+import Puzzle_Lab.TokenCache;
+
+/**
+ * Signing a token at login, and verifying it on an authenticated request with and
+ * without TokenCache. Uses a generated 2048 bit RSA key like the deployed one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenBenchmark {
+    private static final String ISSUER = "your-issuer";
+
+    private KeyPair keys;
+    private String token;
+    private JWTAuthContextInfo authContext;
+    private DefaultJWTCallerPrincipalFactory verifier;
+    private TokenCache cache;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keys = generator.generateKeyPair();
+        token = sign();
+
+        authContext = new JWTAuthContextInfo((RSAPublicKey) keys.getPublic(), ISSUER);
+        verifier = new DefaultJWTCallerPrincipalFactory();
+
+        cache = new TokenCache();
+        Field maxEntries = TokenCache.class.getDeclaredField("maxEntries"); // Normally injected from config
+        maxEntries.setAccessible(true);
+        maxEntries.setInt(cache, 10000);
+        cache.parse(token, authContext);
+    }
+
+    @Benchmark
+    public String sign() {
+        return Jwt.issuer(ISSUER).upn("123")
+                .groups(Set.of("USER"))
+                .expiresIn(Duration.ofDays(7))
+                .sign(keys.getPrivate());
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal verify() throws Exception {
+        return verifier.parse(token, authContext);
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal verifyCached() throws Exception {
+        return cache.parse(token, authContext);
+    }
+}
@@ -0,0 +1,36 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Puzzle_Lab.Entities.User;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserBenchmark {
+    private User user;
+
+    @Setup
+    public void setup() {
+        user = PuzzleFixtures.user();
+    }
+
+    @Benchmark
+    public Map<String, Object> publicDTO() {
+        return user.getPublicDTO();
+    }
+
+    @Benchmark
+    public Map<String, Object> fullDTO() {
+        return user.getFullDTO();
+    }
+}
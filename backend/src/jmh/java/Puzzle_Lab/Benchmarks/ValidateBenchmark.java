@@ -0,0 +1,73 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Puzzle_Lab.Entities.PuzzleGrid;
+import Puzzle_Lab.Entities.PuzzleSolution;
+
+/**
+ * The checks POST /puzzles/{id}/validate and /check/cells make against a
+ * puzzle's packed solution. The wrong answer differs only in the last letter.
+ * The old cells JSON comparison and the cells fallback, which parses the whole
+ * grid before checking it, are kept for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidateBenchmark {
+    @Param({ "5", "15", "25" })
+    int size;
+
+    private String storedCells;
+    private String correctCells;
+    private PuzzleSolution solution;
+    private String correct;
+    private String wrongAtEnd;
+
+    @Setup
+    public void setup() {
+        storedCells = PuzzleFixtures.generate(size).cellsJson();
+        correctCells = new String(storedCells.toCharArray()); // Equal but not the same instance, like a request body
+        solution = PuzzleSolution.of(PuzzleGrid.parse(storedCells));
+        correct = new String(solution.getLetters().toCharArray());
+        int last = correct.length() - 1;
+        while (correct.charAt(last) == PuzzleSolution.BLOCKED) {
+            last--;
+        }
+        wrongAtEnd = correct.substring(0, last) + (correct.charAt(last) == 'A' ? 'B' : 'A') + correct.substring(last + 1);
+    }
+
+    @Benchmark
+    public boolean correctSubmission() {
+        return solution.matches(PuzzleSolution.normalize(correct));
+    }
+
+    @Benchmark
+    public boolean wrongSubmission() {
+        return solution.matches(PuzzleSolution.normalize(wrongAtEnd));
+    }
+
+    @Benchmark
+    public byte[] wrongCells() {
+        return solution.wrongCells(PuzzleSolution.normalize(wrongAtEnd));
+    }
+
+    @Benchmark
+    public boolean cellsSubmission() {
+        return solution.matches(PuzzleSolution.of(PuzzleGrid.parse(correctCells)).getLetters());
+    }
+
+    @Benchmark
+    public boolean cellsJsonEquals() {
+        return storedCells.equals(correctCells);
+    }
+}
@@ -0,0 +1,75 @@
+package Puzzle_Lab.Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Puzzle_Lab.Words.WordIndex;
+
+/**
+ * GET /words/matches on a 500k word list: pattern queries with few and many
+ * known letters, and building the index, with PuzzleFixtures' synthetic word
+ * list.
+ *
+ * Run with the gc profiler (the default in build.gradle): the allocation rate of
+ * build() is close to the index's footprint, and the footprint estimate is
+ * printed when the benchmark starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WordIndexBenchmark {
+    @Param({ "500000" })
+    int words;
+
+    private List<String> lines;
+    private WordIndex index;
+
+    @Setup
+    public void setup() {
+        lines = PuzzleFixtures.wordList(words);
+        index = WordIndex.build(lines);
+        System.out.println("\n" + index.size() + " words, about " + index.estimateBytes() / 1024 + " KB indexed");
+    }
+
+    @Benchmark
+    public WordIndex.Matches oneKnownLetter() {
+        return index.match("????E", 20);
+    }
+
+    @Benchmark
+    public WordIndex.Matches twoKnownLetters() {
+        return index.match("C?A?E", 20);
+    }
+
+    @Benchmark
+    public WordIndex.Matches longSparsePattern() {
+        return index.match("S???????ER", 20);
+    }
+
+    @Benchmark
+    public WordIndex.Matches noKnownLetters() {
+        return index.match("???????", 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public WordIndex build() {
+        return WordIndex.build(lines);
+    }
+}
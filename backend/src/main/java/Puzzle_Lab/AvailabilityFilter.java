@@ -0,0 +1,342 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+import Puzzle_Lab.Entities.User;
+
+/**
+ * Answers "is this username/email free?" without a database query in the common
+ * case where it is.
+ *
+ * Every taken username and email is kept, lowercased, in a CountingBloomFilter.
+ * If the filter doesn't contain a value it's definitely free. If it might, the
+ * database is asked as before, so a false positive only costs the query we'd
+ * have made anyway. The unique columns on User stay the final guard.
+ *
+ * The filter must never miss a taken value, so values are added as soon as they
+ * start being used and only removed after the transaction that freed them commits.
+ * A rebuild can't see values whose transaction hasn't committed yet, so those are
+ * remembered until their transaction ends and added to the new filters.
+ * Until the filter has been loaded at startup every check goes to the database.
+ * It is rebuilt from the database periodically, which also resizes it as the
+ * number of users grows.
+ */
+@ApplicationScoped
+public class AvailabilityFilter {
+    private static final Logger LOG = Logger.getLogger(AvailabilityFilter.class);
+
+    @ConfigProperty(name = "puzzlelab.availability.expected-users", defaultValue = "100000")
+    int expectedUsers;
+
+    @ConfigProperty(name = "puzzlelab.availability.false-positive-rate", defaultValue = "0.01")
+    double falsePositiveRate;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    // Null until the first load finishes
+    private volatile CountingBloomFilter usernames;
+    private volatile CountingBloomFilter emails;
+
+    // Values added by transactions that haven't finished yet, guarded by this
+    private final List<String> uncommittedUsernames = new ArrayList<>();
+    private final List<String> uncommittedEmails = new ArrayList<>();
+
+    // Values to add to the filters a rebuild is loading, guarded by this. Starts as the uncommitted
+    // values, which the rebuild's query may not see, and collects the values added while it runs.
+    private List<String> usernamesDuringRebuild;
+    private List<String> emailsDuringRebuild;
+
+    private final LongAdder filteredChecks = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param username - The username to check
+     * @return True if no user has this username
+     */
+    public boolean isUsernameAvailable(String username) {
+        CountingBloomFilter filter = usernames;
+        if (filter != null && !filter.mightContain(normalize(username))) {
+            filteredChecks.increment();
+            return true;
+        }
+        return checkDatabase(User.isUsernameAvailable(username), filter);
+    }
+
+    /**
+     * @param email - The email to check
+     * @return True if no user has this email
+     */
+    public boolean isEmailAvailable(String email) {
+        CountingBloomFilter filter = emails;
+        if (filter != null && !filter.mightContain(normalize(email))) {
+            filteredChecks.increment();
+            return true;
+        }
+        return checkDatabase(User.isEmailAvailable(email), filter);
+    }
+
+    /**
+     * Records the username and email of a user that's being registered.
+     *
+     * @param user - The new user
+     */
+    public synchronized void userAdded(User user) {
+        addUsername(user.getUsername());
+        addEmail(user.getEmail());
+    }
+
+    /**
+     * Records a username change. The new username counts as taken straight away,
+     * the old one is freed once the current transaction commits.
+     *
+     * @param oldUsername - The username the user had
+     * @param newUsername - The username the user now has
+     */
+    public synchronized void usernameChanged(String oldUsername, String newUsername) {
+        addUsername(newUsername);
+        afterCommit(() -> removeUsername(oldUsername));
+    }
+
+    /**
+     * Records an email change, the same way as usernameChanged().
+     *
+     * @param oldEmail - The email the user had, or null
+     * @param newEmail - The email the user now has
+     */
+    public synchronized void emailChanged(String oldEmail, String newEmail) {
+        addEmail(newEmail);
+        afterCommit(() -> removeEmail(oldEmail));
+    }
+
+    /**
+     * Frees a deleted user's username and email once the current transaction commits.
+     *
+     * @param user - The user being deleted
+     */
+    public void userRemoved(User user) {
+        String username = user.getUsername();
+        String email = user.getEmail();
+        afterCommit(() -> {
+            removeUsername(username);
+            removeEmail(email);
+        });
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Loads every username and email from the database into new filters, then
+     * swaps them in. Checks keep using the old filters while this runs.
+     */
+    @Scheduled(every = "{puzzlelab.availability.rebuild-interval}", delayed = "{puzzlelab.availability.rebuild-interval}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void rebuild() {
+        synchronized (this) {
+            if (usernamesDuringRebuild != null) {
+                return; // Already rebuilding
+            }
+            usernamesDuringRebuild = new ArrayList<>(uncommittedUsernames);
+            emailsDuringRebuild = new ArrayList<>(uncommittedEmails);
+        }
+
+        try {
+            CountingBloomFilter[] loaded = QuarkusTransaction.requiringNew().call(() -> {
+                // Leave room to grow until the next rebuild
+                int expected = (int) Math.min(Math.max(expectedUsers, User.count() * 2), Integer.MAX_VALUE / 16);
+                CountingBloomFilter newUsernames = new CountingBloomFilter(expected, falsePositiveRate);
+                CountingBloomFilter newEmails = new CountingBloomFilter(expected, falsePositiveRate);
+                User.getEntityManager()
+                        .createQuery("select u.username, u.email from User u", Object[].class)
+                        .getResultStream()
+                        .forEach(row -> {
+                            if (row[0] != null) {
+                                newUsernames.add(normalize((String) row[0]));
+                            }
+                            if (row[1] != null) {
+                                newEmails.add(normalize((String) row[1]));
+                            }
+                        });
+                return new CountingBloomFilter[] { newUsernames, newEmails };
+            });
+
+            synchronized (this) {
+                // Removals made meanwhile aren't replayed. At worst that leaves a false positive.
+                usernamesDuringRebuild.forEach(loaded[0]::add);
+                emailsDuringRebuild.forEach(loaded[1]::add);
+                usernames = loaded[0];
+                emails = loaded[1];
+            }
+            rebuilds.increment();
+        } catch (RuntimeException e) {
+            // The old filters, or the database, keep answering
+            LOG.warn("Failed to rebuild the username and email filters, keeping the old ones", e);
+        } finally {
+            synchronized (this) {
+                usernamesDuringRebuild = null;
+                emailsDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * @return How many checks were answered by the filter and how many needed the database
+     */
+    public Map<String, Object> getStats() {
+        CountingBloomFilter currentUsernames = usernames;
+        CountingBloomFilter currentEmails = emails;
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("loaded", currentUsernames != null);
+        fields.put("filteredChecks", filteredChecks.sum());
+        fields.put("databaseChecks", databaseChecks.sum());
+        fields.put("falsePositives", falsePositives.sum());
+        fields.put("rebuilds", rebuilds.sum());
+        if (currentUsernames != null) {
+            fields.put("usernames", currentUsernames.getSize());
+            fields.put("emails", currentEmails.getSize());
+            fields.put("bytes", currentUsernames.getBytes() + currentEmails.getBytes());
+        }
+
+        return fields;
+    }
+
+    private boolean checkDatabase(boolean available, CountingBloomFilter filter) {
+        databaseChecks.increment();
+        if (available && filter != null) {
+            falsePositives.increment();
+        }
+        return available;
+    }
+
+    // The two add methods must be called while holding this
+
+    private void addUsername(String username) {
+        if (username == null) {
+            return;
+        }
+        String value = normalize(username);
+        if (usernames != null) {
+            usernames.add(value);
+        }
+        if (usernamesDuringRebuild != null) {
+            usernamesDuringRebuild.add(value);
+        }
+        if (afterTransaction(() -> forget(uncommittedUsernames, value))) {
+            uncommittedUsernames.add(value);
+        }
+    }
+
+    private void addEmail(String email) {
+        if (email == null) {
+            return;
+        }
+        String value = normalize(email);
+        if (emails != null) {
+            emails.add(value);
+        }
+        if (emailsDuringRebuild != null) {
+            emailsDuringRebuild.add(value);
+        }
+        if (afterTransaction(() -> forget(uncommittedEmails, value))) {
+            uncommittedEmails.add(value);
+        }
+    }
+
+    private synchronized void forget(List<String> uncommitted, String value) {
+        uncommitted.remove(value);
+    }
+
+    private synchronized void removeUsername(String username) {
+        if (username != null && usernames != null) {
+            usernames.remove(normalize(username));
+        }
+    }
+
+    private synchronized void removeEmail(String email) {
+        if (email != null && emails != null) {
+            emails.remove(normalize(email));
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction finishes, whether it commits or
+     * rolls back.
+     *
+     * @return True if there is a transaction, false if there isn't and nothing will run
+     */
+    private boolean afterTransaction(Runnable action) {
+        if (transactions.getTransactionStatus() != jakarta.transaction.Status.STATUS_ACTIVE) {
+            return false;
+        }
+
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or straight away if
+     * there is no transaction. Nothing runs if it rolls back.
+     */
+    private void afterCommit(Runnable action) {
+        if (transactions.getTransactionStatus() != jakarta.transaction.Status.STATUS_ACTIVE) {
+            action.run();
+            return;
+        }
+
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == jakarta.transaction.Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * MySQL compares usernames and emails case insensitively, so the filter does too.
+     */
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,30 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.vertx.http.HttpServerOptionsCustomizer;
+import io.vertx.core.http.HttpServerOptions;
+
+/**
+ * Only compresses responses of at least puzzlelab.compression.min-bytes on the
+ * fly. Below that gzip's header and the CPU time cost more than they save.
+ * Responses that already set Content-Encoding, like the precompressed play
+ * responses in PuzzleCache, are never compressed again.
+ */
+@ApplicationScoped
+public class CompressionCustomizer implements HttpServerOptionsCustomizer {
+    @ConfigProperty(name = "puzzlelab.compression.min-bytes", defaultValue = "1024")
+    int compressMinBytes;
+
+    @Override
+    public void customizeHttpServer(HttpServerOptions options) {
+        options.setCompressionContentSizeThreshold(compressMinBytes);
+    }
+
+    @Override
+    public void customizeHttpsServer(HttpServerOptions options) {
+        options.setCompressionContentSizeThreshold(compressMinBytes);
+    }
+}
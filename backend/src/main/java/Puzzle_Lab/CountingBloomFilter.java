@@ -0,0 +1,150 @@
+package Puzzle_Lab;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A Bloom filter that also supports removal, by keeping a small counter per slot
+ * instead of a single bit.
+ *
+ * mightContain() never returns false for a value that was added and not removed,
+ * but may return true for a value that was never added. Counters that reach their
+ * maximum stay there, so an overloaded filter only gets less precise, never wrong.
+ */
+public final class CountingBloomFilter {
+    private static final int MAX_COUNT = 0xFF; // Counters are stored as unsigned bytes
+
+    private final byte[] counters;
+    private final int hashes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size = 0;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Creates a filter sized for the given number of values.
+     *
+     * @param expectedValues - How many values the filter is expected to hold
+     * @param falsePositiveRate - The rate of false positives at that many values, e.g. 0.01
+     */
+    public CountingBloomFilter(int expectedValues, double falsePositiveRate) {
+        int n = Math.max(expectedValues, 1);
+        double ln2 = Math.log(2);
+        long slots = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.counters = new byte[(int) Math.min(Math.max(slots, 64), Integer.MAX_VALUE - 8)];
+        this.hashes = Math.max(1, (int) Math.round((double) counters.length / n * ln2));
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return How many values have been added and not removed
+     */
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The size of the filter in bytes
+     */
+    public int getBytes() {
+        return counters.length;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param value - The value to add
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < hashes; i++) {
+                int slot = slot(hash, i);
+                int count = counters[slot] & 0xFF;
+                if (count < MAX_COUNT) {
+                    counters[slot] = (byte) (count + 1);
+                }
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a value. Only call this for values that were added, otherwise other
+     * values may stop being found.
+     *
+     * @param value - The value to remove
+     */
+    public void remove(String value) {
+        long hash = hash(value);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < hashes; i++) {
+                int slot = slot(hash, i);
+                int count = counters[slot] & 0xFF;
+                if (count > 0 && count < MAX_COUNT) {
+                    counters[slot] = (byte) (count - 1);
+                }
+            }
+            size = Math.max(size - 1, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param value - The value to look for
+     * @return False if the value is definitely not in the filter, true if it might be
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < hashes; i++) {
+                if (counters[slot(hash, i)] == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Picks the i'th slot of a value by double hashing the two halves of its hash.
+     */
+    private int slot(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + i * h2, counters.length);
+    }
+
+    /**
+     * A 64 bit FNV-1a hash of the value, finished with a SplitMix64 mix so both
+     * halves are well spread.
+     */
+    private static long hash(String value) {
+        long z = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            z = (z ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,28 @@
+package Puzzle_Lab;
+
+import jakarta.inject.Inject;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+
+/**
+ * Sees every SQL statement Hibernate prepares and counts it against the endpoint
+ * of the current request, and hands it to QueryTracker to look for repeated
+ * queries. The SQL itself is passed through unchanged.
+ */
+@PersistenceUnitExtension
+public class CountingStatementInspector implements StatementInspector {
+    @Inject
+    RouteMetrics metrics;
+
+    @Inject
+    QueryTracker queryTracker;
+
+    @Override
+    public String inspect(String sql) {
+        metrics.statementExecuted();
+        queryTracker.statementExecuted(sql);
+        return sql;
+    }
+}
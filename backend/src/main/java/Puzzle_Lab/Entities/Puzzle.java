@@ -1,39 +1,68 @@
 package Puzzle_Lab.Entities;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Basic;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
 import jakarta.persistence.Column;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.RawValue;
 
+import org.hibernate.annotations.LazyGroup;
+
+import Puzzle_Lab.PuzzleIdAllocator;
+import Puzzle_Lab.RowCountingListener;
 import Puzzle_Lab.Enums.Direction;
 import Puzzle_Lab.Enums.Status;
 
 /**
- * Stores puzzle data for easy access. Sometimes stored in JSON String format.
- * Puzzle creates its own 6 digit ID, so it uses PanacheEntityBase instead of
- * PanacheEntity.
+ * Stores puzzle data for easy access. The cells and hints are stored in
+ * PuzzleCodec's binary format, and puzzles saved before that still have them as
+ * JSON until PuzzleStorageMigrator converts them. Puzzle gets its own random looking 6 digit ID from PuzzleIdAllocator, so it
+ * uses PanacheEntityBase instead of PanacheEntity.
  */
 @Entity
+@EntityListeners(RowCountingListener.class) // Rows loaded per request, for RouteMetrics
+@Table(indexes = {
+        // Match the feed queries (filter, then lastUpdated and id descending) so cursor pages are index range scans
+        @Index(name = "idx_puzzle_status_feed", columnList = "status, lastUpdated, id"),
+        @Index(name = "idx_puzzle_creator_feed", columnList = "creator, lastUpdated, id")
+})
 public class Puzzle extends PanacheEntityBase {
+    // ObjectReaders are thread-safe, so one is shared instead of building a mapper per call
+    private static final ObjectReader HINTS_READER = new ObjectMapper().readerFor(new TypeReference<List<Hint>>() {
+    });
+    private static final ObjectWriter HINTS_WRITER = new ObjectMapper().writerFor(new TypeReference<List<Hint>>() {
+    });
+
     private final LocalDate createdAt = LocalDate.now();
     private LocalDate lastUpdated = LocalDate.now();
 
     @Id
     @Column(unique = true)
-    private final Long id = generateUniqueId(); // Custom ID so it's random and 6 digits
+    private Long id; // Custom ID so it's random looking and 6 digits, assigned when first persisted
 
     @ManyToOne
     @JoinColumn(name = "creator") // Overrides the default "creator_id"
@@ -41,19 +70,57 @@ public class Puzzle extends PanacheEntityBase {
     private String title;
     private String description;
 
+    // The LOBs are only loaded when first read, listings use PuzzleSummary and never read them.
+    // Each is its own lazy group so reading the hints doesn't load the cells too.
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("cells")
+    private byte[] cellsData; // PuzzleCodec format
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("hints")
+    private byte[] hintsData; // PuzzleCodec format
+
+    // How the cells and hints were stored before PuzzleCodec, null once a row is converted
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("legacy")
     @JsonProperty
     private String cellsJson;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("legacy")
     @JsonProperty
     private String hintsJson;
 
+    // Copied from the cells whenever they're set, so listings can show the size without the LOB
+    private int gridRows;
+    private int gridCols;
+
+    // The answers packed one letter per cell, so checking an attempt never loads the LOB, see PuzzleSolution
+    @Column(length = PuzzleGrid.MAX_SIZE * PuzzleGrid.MAX_SIZE)
+    private String solution;
+    private String solutionDigest;
+
     private Status status;
 
 
     private int likeCount = 0;
     private int favoriteCount = 0;
+
+    @Version
+    private Long version; // Bumped by Hibernate on every update, used to tell rendered copies apart
+
+    private long revision = 1; // Bumped only when the creator edits the puzzle, unlike version which likes bump too
+
+    @Transient
+    private PuzzleGrid grid; // Decoded on first use, replaced whenever the cells change
+
+    @Transient
+    private String renderedHints; // Hints as JSON, rendered on first use and cleared whenever they change
+
     /////////////////////////////////////////////////////////
     // ------------------- CONSTRUCTORS ------------------ //
     /////////////////////////////////////////////////////////
@@ -67,9 +134,9 @@ public class Puzzle extends PanacheEntityBase {
         this.creator = creator;
         this.title = title;
         this.description = description;
-        this.cellsJson = cellsJson;
-        this.hintsJson = hintsJson;
         this.status = status;
+        setCells(cellsJson);
+        setHints(hintsJson);
     }
 
     /////////////////////////////////////////////////////////
@@ -139,16 +206,13 @@ public class Puzzle extends PanacheEntityBase {
     }
 
     /**
-     * Converts the string json format of Hints into a Java list object.
+     * Decodes the puzzle's hints into a Java list object.
      * 
      * @return A list of hints
      */
     public List<Hint> getHintsList() {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            List<Hint> hints = objectMapper.readValue(hintsJson, new TypeReference<List<Hint>>() {
-            });
-            return hints;
+            return hintsData != null ? PuzzleCodec.decodeHints(hintsData) : HINTS_READER.readValue(hintsJson);
         } catch (Exception e) {
             e.printStackTrace();
             return List.of();
@@ -162,29 +226,61 @@ public class Puzzle extends PanacheEntityBase {
      * @return A list of lists of cells (2d Array)
      */
     public List<List<Cell>> getCellsList() {
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            List<List<Cell>> hints = objectMapper.readValue(cellsJson, new TypeReference<List<List<Cell>>>() {
-            });
-            return hints;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return List.of(List.of());
+        return getGrid().toCellsList();
+    }
+
+    /**
+     * Returns the compact form of the puzzle's cells. The stored cells are only
+     * decoded the first time this is called for each version of the cells.
+     * 
+     * @return The grid of cells
+     */
+    public PuzzleGrid getGrid() {
+        if (grid == null) {
+            try {
+                grid = cellsData != null ? PuzzleCodec.decodeGrid(cellsData) : PuzzleGrid.parse(cellsJson);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+                grid = PuzzleGrid.empty();
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * @return The puzzle's answers, packed for checking attempts
+     */
+    public PuzzleSolution getSolution() {
+        if (solution == null || solutionDigest == null) {
+            // Saved before solutions were packed, so pack it now. Written back if this is in a transaction,
+            // and PuzzleStorageMigrator backfills the rest.
+            copyFromGrid();
         }
+        return PuzzleSolution.of(gridRows, gridCols, solution, solutionDigest);
     }
 
     /**
      * @return A string in JSON format representing a 2D array of cells.
      */
     public String getCellsJson() {
-        return cellsJson;
+        return cellsJson != null ? cellsJson : getGrid().toSolvedJson();
     }
 
     /**
      * @return A string in JSON format representing an array of hints.
      */
     public String getHintsJson() {
-        return hintsJson;
+        if (hintsJson != null) {
+            return hintsJson;
+        }
+        if (renderedHints == null) {
+            try {
+                renderedHints = HINTS_WRITER.writeValueAsString(getHintsList());
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to write hints JSON.", e);
+            }
+        }
+        return renderedHints;
     }
 
     /**
@@ -205,27 +301,13 @@ public class Puzzle extends PanacheEntityBase {
         fields.put("title", title);
         fields.put("description", description);
         fields.put("status", status);
-        fields.put("hints", hintsJson);
+        fields.put("hints", new RawValue(getHintsJson())); // Embedded as JSON rather than as an escaped string
         fields.put("lastUpdated", lastUpdated);
         fields.put("likeCount", likeCount);
         fields.put("favoriteCount", favoriteCount);
 
-        // Loop through all cells and clear them so that no "solved" data is sent to the user
-        List<List<Cell>> cellsList2D = getCellsList();
-        for (List<Cell> cellsList : cellsList2D) {
-            for (Cell cell : cellsList) {
-                cell.isBlocked = (cell.character == null || cell.character == ' ');
-                cell.character = ' ';
-            }
-        }
-
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            String json = objectMapper.writeValueAsString(cellsList2D);
-            fields.put("cells", json);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // The blanked view clears every cell so that no "solved" data is sent to the user
+        fields.put("cells", new RawValue(getGrid().toBlankedJson()));
 
         return fields;
     }
@@ -235,7 +317,8 @@ public class Puzzle extends PanacheEntityBase {
      */
     public Map<String, Object> getFullDTO() {
         Map<String, Object> fields = getEmptyDTO();
-        fields.put("cells", cellsJson);
+        fields.put("cells", new RawValue(getCellsJson()));
+        fields.put("revision", revision); // The base for PATCH /puzzles/{id}
 
         return fields;
     }
@@ -247,6 +330,41 @@ public class Puzzle extends PanacheEntityBase {
         return creator;
     }
 
+    /**
+     * @return The id of the puzzle
+     */
+    public Long getID() {
+        return id;
+    }
+
+    /**
+     * @return The version of the puzzle, which changes every time the puzzle is updated
+     */
+    public long getVersion() {
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * @return The revision of the puzzle's content, which only changes when the creator edits it
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return The number of rows in the puzzle's grid
+     */
+    public int getGridRows() {
+        return gridRows;
+    }
+
+    /**
+     * @return The number of columns in the puzzle's grid
+     */
+    public int getGridCols() {
+        return gridCols;
+    }
+
     /**
      * @return a LocalDate representing when this puzzle was last updated.
      */
@@ -309,22 +427,59 @@ public class Puzzle extends PanacheEntityBase {
 
     /**
      * The string to set the puzzle's cells to. This string should be a 2D array of
-     * cells in JSON format.
+     * cells in JSON format, check it with isValidCellsJson() first.
      * 
      * @param cellsJson - The list of cells in JSON format.
      */
     public void setCells(String cellsJson) {
-        this.cellsJson = cellsJson;
+        PuzzleGrid parsed;
+        try {
+            parsed = PuzzleGrid.parse(cellsJson);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            parsed = PuzzleGrid.empty();
+        }
+        setGrid(parsed);
+    }
+
+    /**
+     * Sets the puzzle's cells to an already parsed grid, such as one with edits
+     * applied.
+     * 
+     * @param grid - The new cells
+     */
+    public void setGrid(PuzzleGrid grid) {
+        this.cellsData = PuzzleCodec.encodeGrid(grid);
+        this.cellsJson = null;
+        this.grid = grid;
+        copyFromGrid();
     }
 
     /**
      * The string to set the puzzle's hints to. This string should be an array of
-     * hints in JSON format.
+     * hints in JSON format, check it with isValidHintsJson() first.
      * 
      * @param hintsJson - The list of hints in JSON format.
      */
     public void setHints(String hintsJson) {
-        this.hintsJson = hintsJson;
+        List<Hint> parsed;
+        try {
+            parsed = HINTS_READER.readValue(hintsJson);
+        } catch (Exception e) {
+            e.printStackTrace();
+            parsed = null;
+        }
+        storeHints(parsed == null ? List.of() : parsed);
+    }
+
+    /**
+     * Sets the puzzle's hints to an already parsed list, such as an earlier
+     * revision's.
+     * 
+     * @param hints - The new hints
+     */
+    public void setHintsList(List<Hint> hints) {
+        storeHints(hints);
     }
 
     /**
@@ -341,6 +496,15 @@ public class Puzzle extends PanacheEntityBase {
         lastUpdated = LocalDate.now();
     }
 
+    /**
+     * Records that the creator edited the puzzle: bumps the revision and sets
+     * lastUpdated to the current date.
+     */
+    public void nextRevision() {
+        revision++;
+        setLastUpdated();
+    }
+
     public void decrementLikeCount() {
         if (this.likeCount > 0) this.likeCount--;
     }
@@ -354,17 +518,159 @@ public class Puzzle extends PanacheEntityBase {
     /////////////////////////////////////////////////////////
 
     /**
-     * Generates a unique 6 digit ID. If the ID is already in use, it will
-     * re-generate repeatedly until a random ID is generated that is not in used.
+     * Edits the puzzle's hints. A hint is identified by its label and direction, so
+     * upserting one that exists replaces its text and anything else is added.
      * 
-     * @return The random unique ID that is 6 digits long.
+     * @param upserts - The hints to add or replace
+     * @param deletes - The hints to remove, only their label and direction are used
+     * @throws IllegalArgumentException If a hint is missing its direction or text
      */
-    private Long generateUniqueId() {
-        Long generatedId;
-        do {
-            generatedId = new Random().nextInt(900000) + 100000L; // 100000 - 999999
-        } while (Puzzle.count("id", generatedId) > 0); // Checks if this ID already exists in the database
+    public void editHints(List<Hint> upserts, List<Hint> deletes) {
+        storeHints(applyHintEdits(getHintsList(), upserts, deletes));
+    }
 
-        return generatedId;
+    /**
+     * Applies hint edits to a copy of a list of hints, the same way editHints() does.
+     * 
+     * @param hints - The hints to edit
+     * @param upserts - The hints to add or replace
+     * @param deletes - The hints to remove, only their label and direction are used
+     * @return The edited hints
+     * @throws IllegalArgumentException If a hint is missing its direction or text
+     */
+    public static List<Hint> applyHintEdits(List<Hint> hints, List<Hint> upserts, List<Hint> deletes) {
+        hints = new ArrayList<>(hints);
+        for (Hint deleted : deletes) {
+            if (deleted == null || deleted.direction == null) {
+                throw new IllegalArgumentException("Every deleted hint needs a 'label' and 'direction'.");
+            }
+            hints.removeIf(hint -> hint.label == deleted.label && hint.direction == deleted.direction);
+        }
+        for (Hint upsert : upserts) {
+            if (upsert == null || upsert.direction == null || upsert.hint == null) {
+                throw new IllegalArgumentException("Every hint needs a 'hint', 'label' and 'direction'.");
+            }
+            int existing = -1;
+            for (int i = 0; i < hints.size() && existing == -1; i++) {
+                if (hints.get(i).label == upsert.label && hints.get(i).direction == upsert.direction) {
+                    existing = i;
+                }
+            }
+            if (existing == -1) {
+                hints.add(upsert);
+            } else {
+                hints.set(existing, upsert);
+            }
+        }
+        return hints;
+    }
+
+    /**
+     * Converts cells and hints still stored as JSON to PuzzleCodec's format, and
+     * packs the solution if it was saved before solutions were. Unlike the getters,
+     * JSON that can't be parsed isn't replaced with an empty puzzle, so the row is
+     * left as it was instead.
+     * 
+     * @return How many bytes smaller the stored cells and hints are, 0 if they were already converted
+     * @throws IllegalArgumentException If the stored cells or hints JSON can't be parsed
+     */
+    public long migrateStorage() {
+        if (cellsData != null && (solution == null || solutionDigest == null)) {
+            copyFromGrid();
+        }
+
+        PuzzleGrid legacyGrid = null;
+        List<Hint> legacyHints = null;
+        long before = 0;
+        if (cellsData == null) {
+            legacyGrid = PuzzleGrid.parse(cellsJson);
+            before += cellsJson.getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (hintsData == null) {
+            try {
+                legacyHints = hintsJson == null ? null : HINTS_READER.readValue(hintsJson);
+                legacyHints = legacyHints == null ? List.of() : legacyHints;
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Malformed hints JSON.", e);
+            }
+            before += hintsJson == null ? 0 : hintsJson.getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (legacyGrid == null && legacyHints == null) {
+            return 0;
+        }
+
+        long after = 0;
+        if (legacyGrid != null) {
+            setGrid(legacyGrid);
+            after += cellsData.length;
+        }
+        if (legacyHints != null) {
+            storeHints(legacyHints);
+            after += hintsData.length;
+        }
+        return before - after;
+    }
+
+    /**
+     * Checks if a string is a valid 2D array of cells in JSON format, with every
+     * row the same length and no more than PuzzleGrid.MAX_SIZE rows or columns.
+     * 
+     * @param cellsJson - The cells to check
+     * @return A boolean that's true if the cells are valid, and false otherwise.
+     */
+    public static boolean isValidCellsJson(String cellsJson) {
+        try {
+            PuzzleGrid grid = PuzzleGrid.parse(cellsJson);
+            return grid.getRows() <= PuzzleGrid.MAX_SIZE && grid.getCols() <= PuzzleGrid.MAX_SIZE;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks if a string is a valid array of hints in JSON format.
+     * 
+     * @param hintsJson - The hints to check
+     * @return A boolean that's true if the hints are valid, and false otherwise.
+     */
+    public static boolean isValidHintsJson(String hintsJson) {
+        if (hintsJson == null) {
+            return false;
+        }
+        try {
+            HINTS_READER.readValue(hintsJson);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void storeHints(List<Hint> hints) {
+        this.hintsData = PuzzleCodec.encodeHints(hints);
+        this.hintsJson = null;
+        this.renderedHints = null;
+    }
+
+    /**
+     * Copies the size and packed solution from the current grid into their columns.
+     */
+    private void copyFromGrid() {
+        this.gridRows = getGrid().getRows();
+        this.gridCols = getGrid().getCols();
+
+        PuzzleSolution packed = PuzzleSolution.of(getGrid());
+        this.solution = packed.getLetters();
+        this.solutionDigest = packed.getDigest();
+    }
+
+    /**
+     * Gives a new puzzle its ID right before it's first saved. Called by JPA, and
+     * never when an existing puzzle is loaded.
+     */
+    @PrePersist
+    private void assignId() {
+        if (id == null) {
+            id = PuzzleIdAllocator.next();
+        }
     }
 }
@@ -0,0 +1,511 @@
+package Puzzle_Lab.Entities;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import Puzzle_Lab.Enums.Direction;
+
+/**
+ * The binary format puzzles' cells and hints are stored in, instead of JSON
+ * that repeats every key for every cell.
+ *
+ * Every encoding starts with a format version byte and a flags byte. When the
+ * payload is large enough for it to pay off it's deflated, and the flags say so.
+ * Numbers are varints, zigzagged where they can be negative.
+ *
+ * Cells: rows, cols, a bitmap of blocked cells, the letters of the open cells
+ * as UTF-8, then the labels as a table of the cells whose label isn't the most
+ * common one, then every cell's hint_across and hint_down.
+ *
+ * Hints: a count, then each hint's label, direction and text.
+ *
+ * Deltas, used by the edit history: the cells that differ from the grid before,
+ * each with all its fields, and the hints to delete and to add or replace.
+ */
+public final class PuzzleCodec {
+    /**
+     * The format written by this version of the backend. Decoding rejects any other.
+     */
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final int FLAG_DEFLATED = 1;
+    private static final int DEFLATE_MIN_BYTES = 96; // Smaller payloads barely shrink and cost an Inflater to read
+    private static final byte NO_DIRECTION = -1;
+
+    private PuzzleCodec() {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param grid - The cells to encode
+     * @return The cells in the binary format
+     */
+    public static byte[] encodeGrid(PuzzleGrid grid) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int cells = rows * cols;
+        Output out = new Output(cells * 4 + 16);
+        out.writeVarint(rows);
+        out.writeVarint(cols);
+
+        byte[] blocked = new byte[(cells + 7) / 8];
+        StringBuilder letters = new StringBuilder(cells);
+        for (int i = 0; i < cells; i++) {
+            if (grid.isBlocked(i / cols, i % cols)) {
+                blocked[i >>> 3] |= (byte) (1 << (i & 7));
+            } else {
+                letters.append(grid.letterAt(i / cols, i % cols));
+            }
+        }
+        out.write(blocked);
+        out.writeLengthPrefixed(letters.toString().getBytes(StandardCharsets.UTF_8));
+
+        // Most cells share one label (0, or -1 from the create page), so only the others are listed
+        int commonLabel = mostCommonLabel(grid);
+        int listed = 0;
+        for (int i = 0; i < cells; i++) {
+            if (grid.labelAt(i / cols, i % cols) != commonLabel) {
+                listed++;
+            }
+        }
+        out.writeSigned(commonLabel);
+        out.writeVarint(listed);
+        int previous = 0;
+        for (int i = 0; i < cells; i++) {
+            int label = grid.labelAt(i / cols, i % cols);
+            if (label != commonLabel) {
+                out.writeVarint(i - previous);
+                out.writeSigned(label);
+                previous = i;
+            }
+        }
+
+        for (int i = 0; i < cells; i++) {
+            out.writeSigned(grid.hintAcrossAt(i / cols, i % cols));
+            out.writeSigned(grid.hintDownAt(i / cols, i % cols));
+        }
+        return frame(out.toByteArray());
+    }
+
+    /**
+     * @param data - Cells in the binary format
+     * @return The decoded grid
+     * @throws IllegalArgumentException If the data isn't in a known format or is truncated
+     */
+    public static PuzzleGrid decodeGrid(byte[] data) {
+        Input in = unframe(data);
+        int rows = in.readVarint();
+        int cols = in.readVarint();
+        int cells = rows * cols;
+
+        byte[] blocked = in.read((cells + 7) / 8);
+        String open = new String(in.readLengthPrefixed(), StandardCharsets.UTF_8);
+        char[] letters = new char[cells];
+        for (int i = 0, next = 0; i < cells; i++) {
+            if ((blocked[i >>> 3] & (1 << (i & 7))) == 0) {
+                if (next == open.length()) {
+                    throw new IllegalArgumentException("Encoded cells are missing letters.");
+                }
+                letters[i] = open.charAt(next++);
+            }
+        }
+
+        short[] labels = new short[cells];
+        Arrays.fill(labels, (short) in.readSigned());
+        int listed = in.readVarint();
+        for (int n = 0, i = 0; n < listed; n++) {
+            i += in.readVarint();
+            if (i >= cells) {
+                throw new IllegalArgumentException("Encoded label is outside the grid.");
+            }
+            labels[i] = (short) in.readSigned();
+        }
+
+        short[] hintAcross = new short[cells];
+        short[] hintDown = new short[cells];
+        for (int i = 0; i < cells; i++) {
+            hintAcross[i] = (short) in.readSigned();
+            hintDown[i] = (short) in.readSigned();
+        }
+        return PuzzleGrid.of(rows, cols, letters, labels, hintAcross, hintDown);
+    }
+
+    /**
+     * @param hints - The hints to encode
+     * @return The hints in the binary format
+     */
+    public static byte[] encodeHints(List<Puzzle.Hint> hints) {
+        Output out = new Output(hints.size() * 32 + 8);
+        writeHints(out, hints);
+        return frame(out.toByteArray());
+    }
+
+    /**
+     * @param data - Hints in the binary format
+     * @return The decoded hints
+     * @throws IllegalArgumentException If the data isn't in a known format or is truncated
+     */
+    public static List<Puzzle.Hint> decodeHints(byte[] data) {
+        return readHints(unframe(data));
+    }
+
+    /**
+     * @param base - The cells before an edit
+     * @param target - The cells after it
+     * @return The cells of target that differ from base, or null if the grids are different sizes
+     */
+    public static byte[] encodeGridDelta(PuzzleGrid base, PuzzleGrid target) {
+        if (base.getRows() != target.getRows() || base.getCols() != target.getCols()) {
+            return null;
+        }
+        int cols = base.getCols();
+        int cells = base.getRows() * cols;
+        Output changes = new Output(64);
+        int changed = 0;
+        int previous = 0;
+        for (int i = 0; i < cells; i++) {
+            int row = i / cols;
+            int col = i % cols;
+            if (target.letterAt(row, col) != base.letterAt(row, col) || target.labelAt(row, col) != base.labelAt(row, col)
+                    || target.hintAcrossAt(row, col) != base.hintAcrossAt(row, col)
+                    || target.hintDownAt(row, col) != base.hintDownAt(row, col)) {
+                changes.writeVarint(i - previous);
+                changes.writeVarint(target.letterAt(row, col)); // 0 is no character
+                changes.writeSigned(target.labelAt(row, col));
+                changes.writeSigned(target.hintAcrossAt(row, col));
+                changes.writeSigned(target.hintDownAt(row, col));
+                previous = i;
+                changed++;
+            }
+        }
+
+        Output out = new Output(changes.size() + 8);
+        out.writeVarint(base.getRows());
+        out.writeVarint(cols);
+        out.writeVarint(changed);
+        out.write(changes.toByteArray());
+        return frame(out.toByteArray());
+    }
+
+    /**
+     * @param base - The cells the delta was made against
+     * @param delta - A delta from encodeGridDelta()
+     * @return The cells after the delta
+     * @throws IllegalArgumentException If the delta is for a different size of grid, or isn't in a known format
+     */
+    public static PuzzleGrid applyGridDelta(PuzzleGrid base, byte[] delta) {
+        Input in = unframe(delta);
+        if (in.readVarint() != base.getRows() || in.readVarint() != base.getCols()) {
+            throw new IllegalArgumentException("Encoded delta is for a different size of grid.");
+        }
+        int cols = base.getCols();
+        int cells = base.getRows() * cols;
+        int count = in.readVarint();
+        List<PuzzleGrid.CellEdit> edits = new ArrayList<>(Math.min(count, cells));
+        for (int n = 0, i = 0; n < count; n++) {
+            i += in.readVarint();
+            if (i >= cells) {
+                throw new IllegalArgumentException("Encoded cell is outside the grid.");
+            }
+            int letter = in.readVarint();
+            edits.add(new PuzzleGrid.CellEdit(i / cols, i % cols, letter == 0 ? "" : String.valueOf((char) letter),
+                    in.readSigned(), in.readSigned(), in.readSigned()));
+        }
+        return base.withEdits(edits);
+    }
+
+    /**
+     * @param base - The hints before an edit
+     * @param target - The hints after it
+     * @return The hints to delete from base and to add or replace in it, or null if
+     *         Puzzle.applyHintEdits() wouldn't turn base into exactly target (such as
+     *         when hints were reordered)
+     */
+    public static byte[] encodeHintsDelta(List<Puzzle.Hint> base, List<Puzzle.Hint> target) {
+        List<Puzzle.Hint> deletes = new ArrayList<>();
+        for (Puzzle.Hint hint : base) {
+            if (find(target, hint) == null) {
+                deletes.add(hint);
+            }
+        }
+        List<Puzzle.Hint> upserts = new ArrayList<>();
+        for (Puzzle.Hint hint : target) {
+            Puzzle.Hint old = find(base, hint);
+            if (old == null || !Objects.equals(old.hint, hint.hint)) {
+                upserts.add(hint);
+            }
+        }
+        try {
+            if (!sameHints(Puzzle.applyHintEdits(base, upserts, deletes), target)) {
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null; // A hint without a direction or text can't be edited in place
+        }
+
+        Output out = new Output(upserts.size() * 32 + deletes.size() * 3 + 8);
+        out.writeVarint(deletes.size());
+        for (Puzzle.Hint hint : deletes) {
+            out.writeSigned(hint.label);
+            out.write((byte) hint.direction.ordinal());
+        }
+        writeHints(out, upserts);
+        return frame(out.toByteArray());
+    }
+
+    /**
+     * @param base - The hints the delta was made against
+     * @param delta - A delta from encodeHintsDelta()
+     * @return The hints after the delta
+     * @throws IllegalArgumentException If the delta isn't in a known format or is truncated
+     */
+    public static List<Puzzle.Hint> applyHintsDelta(List<Puzzle.Hint> base, byte[] delta) {
+        Input in = unframe(delta);
+        int count = in.readVarint();
+        List<Puzzle.Hint> deletes = new ArrayList<>(Math.min(count, 1024));
+        for (int n = 0; n < count; n++) {
+            int label = in.readSigned();
+            deletes.add(new Puzzle.Hint(null, label, readDirection(in)));
+        }
+        return Puzzle.applyHintEdits(base, readHints(in), deletes);
+    }
+
+    private static void writeHints(Output out, List<Puzzle.Hint> hints) {
+        out.writeVarint(hints.size());
+        for (Puzzle.Hint hint : hints) {
+            out.writeSigned(hint.label);
+            out.write(hint.direction == null ? NO_DIRECTION : (byte) hint.direction.ordinal());
+            if (hint.hint == null) {
+                out.writeVarint(0);
+            } else {
+                byte[] text = hint.hint.getBytes(StandardCharsets.UTF_8);
+                out.writeVarint(text.length + 1); // 0 is a null hint
+                out.write(text);
+            }
+        }
+    }
+
+    private static List<Puzzle.Hint> readHints(Input in) {
+        int count = in.readVarint();
+        List<Puzzle.Hint> hints = new ArrayList<>(Math.min(count, 1024));
+        for (int n = 0; n < count; n++) {
+            int label = in.readSigned();
+            Direction direction = readDirection(in);
+            int length = in.readVarint();
+            String text = length == 0 ? null : new String(in.read(length - 1), StandardCharsets.UTF_8);
+            hints.add(new Puzzle.Hint(text, label, direction));
+        }
+        return hints;
+    }
+
+    private static Direction readDirection(Input in) {
+        byte direction = in.readByte();
+        if (direction == NO_DIRECTION) {
+            return null;
+        }
+        if (direction < 0 || direction >= Direction.values().length) {
+            throw new IllegalArgumentException("Unknown hint direction " + direction + ".");
+        }
+        return Direction.values()[direction];
+    }
+
+    private static Puzzle.Hint find(List<Puzzle.Hint> hints, Puzzle.Hint key) {
+        for (Puzzle.Hint hint : hints) {
+            if (hint.label == key.label && hint.direction == key.direction) {
+                return hint;
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameHints(List<Puzzle.Hint> a, List<Puzzle.Hint> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            Puzzle.Hint x = a.get(i);
+            Puzzle.Hint y = b.get(i);
+            if (x.label != y.label || x.direction != y.direction || !Objects.equals(x.hint, y.hint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mostCommonLabel(PuzzleGrid grid) {
+        // Labels run from -1 to at most one per cell, anything outside that is never the most common
+        int cells = grid.getRows() * grid.getCols();
+        int[] counts = new int[cells + 2]; // counts[label + 1]
+        int best = 0;
+        for (int i = 0; i < cells; i++) {
+            int label = grid.labelAt(i / grid.getCols(), i % grid.getCols());
+            if (label >= -1 && label <= cells && ++counts[label + 1] > counts[best + 1]) {
+                best = label;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds the version and flags header, deflating the payload if that makes it smaller.
+     */
+    private static byte[] frame(byte[] payload) {
+        if (payload.length >= DEFLATE_MIN_BYTES) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                deflater.setInput(payload);
+                deflater.finish();
+                Output out = new Output(payload.length / 2 + 16);
+                out.write(FORMAT_VERSION);
+                out.write((byte) FLAG_DEFLATED);
+                out.writeVarint(payload.length);
+                byte[] buffer = new byte[1024];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                byte[] deflated = out.toByteArray();
+                if (deflated.length < payload.length + 2) {
+                    return deflated;
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        byte[] framed = new byte[payload.length + 2];
+        framed[0] = FORMAT_VERSION;
+        framed[1] = 0;
+        System.arraycopy(payload, 0, framed, 2, payload.length);
+        return framed;
+    }
+
+    /**
+     * Checks the header and inflates the payload if it's deflated.
+     */
+    private static Input unframe(byte[] data) {
+        if (data == null || data.length < 2) {
+            throw new IllegalArgumentException("Encoded data is missing its header.");
+        }
+        if (data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown puzzle storage format " + data[0] + ".");
+        }
+        if ((data[1] & FLAG_DEFLATED) == 0) {
+            return new Input(data, 2);
+        }
+
+        Input header = new Input(data, 2);
+        int length = header.readVarint();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, header.position, data.length - header.position);
+            byte[] payload = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(payload, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalArgumentException("Encoded data is truncated.");
+            }
+            return new Input(payload, 0);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Encoded data is corrupt.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Writes varints and raw bytes.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        Output(int capacity) {
+            super(capacity);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeSigned(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        void writeLengthPrefixed(byte[] bytes) {
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void write(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Reads what Output writes, throwing IllegalArgumentException instead of reading past the end.
+     */
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Encoded number is too long.");
+        }
+
+        int readSigned() {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        byte[] readLengthPrefixed() {
+            return read(readVarint());
+        }
+
+        byte readByte() {
+            if (position == data.length) {
+                throw new IllegalArgumentException("Encoded data is truncated.");
+            }
+            return data[position++];
+        }
+
+        byte[] read(int length) {
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Encoded data is truncated.");
+            }
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package Puzzle_Lab.Entities;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import Puzzle_Lab.Entities.Puzzle.Cell;
+
+/**
+ * Compact in-memory form of a puzzle's cells. Instead of a List of Lists of
+ * boxed Cells, the grid is stored row-major in flat arrays: one char per letter,
+ * a BitSet of blocked cells and shorts for the label and hint numbers.
+ *
+ * A grid is parsed once from the stored cells JSON and can then write both the
+ * "solved" view (letters included) and the "blanked" view (letters cleared)
+ * straight to a JsonGenerator without building any intermediate objects.
+ */
+public final class PuzzleGrid {
+    /**
+     * The most rows or columns a puzzle can have, same as the create page allows.
+     */
+    public static final int MAX_SIZE = 25;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final char NO_LETTER = '\0';
+
+    private final int rows;
+    private final int cols;
+    private final char[] letters; // NO_LETTER when the cell has no character
+    private final BitSet blocked;
+    private final short[] labels;
+    private final short[] hintAcross;
+    private final short[] hintDown;
+
+    private String blankedJson; // Rendered on first use, the grid never changes after parsing
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    private PuzzleGrid(int rows, int cols, char[] letters, short[] labels, short[] hintAcross, short[] hintDown) {
+        this.rows = rows;
+        this.cols = cols;
+        this.letters = letters;
+        this.labels = labels;
+        this.hintAcross = hintAcross;
+        this.hintDown = hintDown;
+
+        // A cell is blocked when it has no usable character, same rule the play view always used
+        this.blocked = new BitSet(letters.length);
+        for (int i = 0; i < letters.length; i++) {
+            if (letters[i] == NO_LETTER || letters[i] == ' ') {
+                blocked.set(i);
+            }
+        }
+    }
+
+    /**
+     * Builds a grid from arrays that are already row-major, such as ones decoded
+     * by PuzzleCodec. The arrays are kept, not copied.
+     */
+    static PuzzleGrid of(int rows, int cols, char[] letters, short[] labels, short[] hintAcross, short[] hintDown) {
+        return new PuzzleGrid(rows, cols, letters, labels, hintAcross, hintDown);
+    }
+
+    /**
+     * @return A grid with no rows or columns
+     */
+    public static PuzzleGrid empty() {
+        return new PuzzleGrid(0, 0, new char[0], new short[0], new short[0], new short[0]);
+    }
+
+    /**
+     * Parses a 2D array of cells in JSON format. Unknown cell fields are ignored
+     * and missing numbers default to 0, just like the old Jackson mapping.
+     *
+     * @param cellsJson - A string in JSON format representing a 2D array of cells
+     * @return The parsed grid
+     * @throws IllegalArgumentException If the JSON is malformed or the rows are not all the same length
+     */
+    public static PuzzleGrid parse(String cellsJson) {
+        if (cellsJson == null) {
+            throw new IllegalArgumentException("Cells JSON is missing.");
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(cellsJson)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Cells JSON must be a 2D array.");
+            }
+
+            int capacity = 64;
+            char[] letters = new char[capacity];
+            short[] labels = new short[capacity];
+            short[] hintAcross = new short[capacity];
+            short[] hintDown = new short[capacity];
+
+            int rows = 0;
+            int cols = -1;
+            int size = 0;
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                int rowLength = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (size == capacity) {
+                        capacity *= 2;
+                        letters = Arrays.copyOf(letters, capacity);
+                        labels = Arrays.copyOf(labels, capacity);
+                        hintAcross = Arrays.copyOf(hintAcross, capacity);
+                        hintDown = Arrays.copyOf(hintDown, capacity);
+                    }
+                    readCell(parser, size, letters, labels, hintAcross, hintDown);
+                    size++;
+                    rowLength++;
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new IllegalArgumentException("Each row of cells must be an array of objects.");
+                }
+
+                if (cols == -1) {
+                    cols = rowLength;
+                } else if (cols != rowLength) {
+                    throw new IllegalArgumentException("Every row of cells must be the same length.");
+                }
+                rows++;
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Cells JSON must be a 2D array.");
+            }
+
+            return new PuzzleGrid(rows, Math.max(cols, 0), Arrays.copyOf(letters, size), Arrays.copyOf(labels, size),
+                    Arrays.copyOf(hintAcross, size), Arrays.copyOf(hintDown, size));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed cells JSON.", e);
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * A change to one cell. Fields left null keep their current value, and an empty
+     * character clears the cell, which blocks it.
+     */
+    public record CellEdit(int row, int col, String character, Integer label, Integer hint_across, Integer hint_down) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The number of rows in the grid
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The number of columns in the grid
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return The letter in a cell, or '\0' if the cell has no character
+     */
+    public char letterAt(int row, int col) {
+        return letters[index(row, col)];
+    }
+
+    /**
+     * @return Whether the cell is blocked (has no character, or only a space)
+     */
+    public boolean isBlocked(int row, int col) {
+        return blocked.get(index(row, col));
+    }
+
+    /**
+     * @return The label number shown in the corner of a cell
+     */
+    public int labelAt(int row, int col) {
+        return labels[index(row, col)];
+    }
+
+    /**
+     * @return The label of the across hint this cell belongs to
+     */
+    public int hintAcrossAt(int row, int col) {
+        return hintAcross[index(row, col)];
+    }
+
+    /**
+     * @return The label of the down hint this cell belongs to
+     */
+    public int hintDownAt(int row, int col) {
+        return hintDown[index(row, col)];
+    }
+
+    /**
+     * Builds the old boxed representation of the grid, for callers that still
+     * need a List of Lists of cells.
+     *
+     * @return A list of lists of cells (2d Array)
+     */
+    public List<List<Cell>> toCellsList() {
+        List<List<Cell>> cellsList2D = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            List<Cell> cellsList = new ArrayList<>(cols);
+            for (int col = 0; col < cols; col++) {
+                int i = index(row, col);
+                Cell cell = new Cell(letters[i] == NO_LETTER ? null : letters[i], labels[i], hintAcross[i], hintDown[i]);
+                cell.isBlocked = blocked.get(i);
+                cellsList.add(cell);
+            }
+            cellsList2D.add(cellsList);
+        }
+        return cellsList2D;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------- SERIALIZERS ------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Writes the grid with its letters, in the same shape the create page saves.
+     *
+     * @param generator - The generator to write the 2D array of cells to
+     */
+    public void writeSolved(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int row = 0; row < rows; row++) {
+            generator.writeStartArray();
+            for (int col = 0; col < cols; col++) {
+                int i = index(row, col);
+                generator.writeStartObject();
+                if (letters[i] == NO_LETTER) {
+                    generator.writeStringField("character", "");
+                } else {
+                    generator.writeFieldName("character");
+                    generator.writeString(letters, i, 1);
+                }
+                writeNumbers(generator, i);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes the grid with every letter cleared so that no "solved" data is sent
+     * to the player. Each cell gets an isBlocked flag instead.
+     *
+     * @param generator - The generator to write the 2D array of cells to
+     */
+    public void writeBlanked(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int row = 0; row < rows; row++) {
+            generator.writeStartArray();
+            for (int col = 0; col < cols; col++) {
+                int i = index(row, col);
+                generator.writeStartObject();
+                generator.writeStringField("character", " ");
+                writeNumbers(generator, i);
+                generator.writeBooleanField("isBlocked", blocked.get(i));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * @return The solved view of the grid as a JSON string
+     */
+    public String toSolvedJson() {
+        StringWriter writer = new StringWriter(letters.length * 64 + 16);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            writeSolved(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * @return The blanked view of the grid as a JSON string. Only rendered once per grid.
+     */
+    public String toBlankedJson() {
+        if (blankedJson == null) {
+            StringWriter writer = new StringWriter(letters.length * 80 + 16);
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+                writeBlanked(generator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            blankedJson = writer.toString();
+        }
+        return blankedJson;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Applies cell edits to a copy of the grid. Grids never change once built, so
+     * a grid that was already rendered or shared stays as it was.
+     *
+     * @param edits - The edits, applied in order
+     * @return The edited grid
+     * @throws IllegalArgumentException If an edit is outside the grid or a number is out of range
+     */
+    public PuzzleGrid withEdits(List<CellEdit> edits) {
+        char[] newLetters = letters.clone();
+        short[] newLabels = labels.clone();
+        short[] newHintAcross = hintAcross.clone();
+        short[] newHintDown = hintDown.clone();
+        for (CellEdit edit : edits) {
+            if (edit == null || edit.row() < 0 || edit.row() >= rows || edit.col() < 0 || edit.col() >= cols) {
+                throw new IllegalArgumentException("Every cell edit must be inside the " + rows + "x" + cols + " grid.");
+            }
+            int i = edit.row() * cols + edit.col();
+            if (edit.character() != null) {
+                newLetters[i] = edit.character().isEmpty() ? NO_LETTER : edit.character().charAt(0);
+            }
+            if (edit.label() != null) {
+                newLabels[i] = toShort(edit.label());
+            }
+            if (edit.hint_across() != null) {
+                newHintAcross[i] = toShort(edit.hint_across());
+            }
+            if (edit.hint_down() != null) {
+                newHintDown[i] = toShort(edit.hint_down());
+            }
+        }
+        return new PuzzleGrid(rows, cols, newLetters, newLabels, newHintAcross, newHintDown);
+    }
+
+    private int index(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Cell (" + row + ", " + col + ") is outside a " + rows + "x" + cols + " grid.");
+        }
+        return row * cols + col;
+    }
+
+    private void writeNumbers(JsonGenerator generator, int i) throws IOException {
+        generator.writeNumberField("label", labels[i]);
+        generator.writeNumberField("hint_across", hintAcross[i]);
+        generator.writeNumberField("hint_down", hintDown[i]);
+    }
+
+    /**
+     * Reads one cell object into slot i of the arrays. The parser must be on the
+     * cell's START_OBJECT, and is left on its END_OBJECT.
+     */
+    private static void readCell(JsonParser parser, int i, char[] letters, short[] labels, short[] hintAcross,
+            short[] hintDown) throws IOException {
+        letters[i] = NO_LETTER;
+        labels[i] = 0;
+        hintAcross[i] = 0;
+        hintDown[i] = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "character" -> {
+                    // Read straight from the parser's buffer so no String is created per cell
+                    if (value == JsonToken.VALUE_STRING && parser.getTextLength() > 0) {
+                        letters[i] = parser.getTextCharacters()[parser.getTextOffset()];
+                    }
+                }
+                case "label" -> labels[i] = readShort(parser, value);
+                case "hint_across" -> hintAcross[i] = readShort(parser, value);
+                case "hint_down" -> hintDown[i] = readShort(parser, value);
+                default -> parser.skipChildren(); // isBlocked is derived from the character, anything else is ignored
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IllegalArgumentException("Malformed cell in cells JSON.");
+        }
+    }
+
+    private static short readShort(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            return 0;
+        }
+        return toShort(parser.getIntValue());
+    }
+
+    private static short toShort(int number) {
+        if (number < Short.MIN_VALUE || number > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Cell number " + number + " is out of range.");
+        }
+        return (short) number;
+    }
+}
@@ -0,0 +1,47 @@
+package Puzzle_Lab.Entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * A single row holding the next unreserved value of the puzzle ID counter.
+ * Each backend instance locks this row to reserve a whole block of counter
+ * values at once, so handing out IDs needs no database access per puzzle.
+ */
+@Entity
+public class PuzzleIdBlock extends PanacheEntityBase {
+    public static final Long ROW_ID = 1L;
+
+    @Id
+    private Long id = ROW_ID;
+
+    private long nextCounter = 0;
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The first counter value that hasn't been reserved yet
+     */
+    public long getNextCounter() {
+        return nextCounter;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Reserves the next block of counter values.
+     * 
+     * @param size - How many values to reserve
+     * @return The first value of the reserved block
+     */
+    public long reserve(long size) {
+        long start = nextCounter;
+        nextCounter += size;
+        return start;
+    }
+}
@@ -0,0 +1,132 @@
+package Puzzle_Lab.Entities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import Puzzle_Lab.RowCountingListener;
+import Puzzle_Lab.Enums.MarkType;
+
+/**
+ * Records that a user has liked, favorited or completed a puzzle, one row per
+ * mark.
+ *
+ * The unique key on (user_id, type, puzzle_id) doubles as the index every lookup
+ * uses, so checking, adding or removing a single mark is one indexed statement no
+ * matter how many puzzles a user has marked. Nothing here is loaded with the user.
+ */
+@Entity
+@EntityListeners(RowCountingListener.class) // Rows loaded per request, for RouteMetrics
+@Table(name = "puzzle_mark",
+        uniqueConstraints = @UniqueConstraint(name = "uk_puzzle_mark", columnNames = {"user_id", "type", "puzzle_id"}),
+        indexes = @Index(name = "idx_puzzle_mark_puzzle", columnList = "puzzle_id"))
+public class PuzzleMark extends PanacheEntityBase {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "type", nullable = false)
+    private MarkType type;
+
+    @Column(name = "puzzle_id", nullable = false)
+    private Long puzzleId;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+    @SuppressWarnings("unused")
+    private PuzzleMark() {
+        // Constructor required by JPA
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Marks a puzzle for a user. Marking it again has no effect. Must be called
+     * inside a transaction.
+     *
+     * @param userId - The id of the user
+     * @param type - The kind of mark
+     * @param puzzleId - The id of the puzzle
+     * @return True if the mark was added, false if it already existed
+     */
+    public static boolean add(Long userId, MarkType type, Long puzzleId) {
+        // The unique key makes the insert a no-op when the row exists, so there's no separate lookup
+        int rows = getEntityManager()
+                .createNativeQuery("insert ignore into puzzle_mark (user_id, type, puzzle_id) values (?1, ?2, ?3)")
+                .setParameter(1, userId)
+                .setParameter(2, type.ordinal())
+                .setParameter(3, puzzleId)
+                .executeUpdate();
+        return rows > 0;
+    }
+
+    /**
+     * Removes a user's mark from a puzzle. Must be called inside a transaction.
+     *
+     * @param userId - The id of the user
+     * @param type - The kind of mark
+     * @param puzzleId - The id of the puzzle
+     * @return True if the mark was removed, false if there was none
+     */
+    public static boolean remove(Long userId, MarkType type, Long puzzleId) {
+        return delete("userId = ?1 and type = ?2 and puzzleId = ?3", userId, type, puzzleId) > 0;
+    }
+
+    /**
+     * @param userId - The id of the user
+     * @param type - The kind of mark
+     * @param puzzleId - The id of the puzzle
+     * @return True if the user has marked the puzzle this way
+     */
+    public static boolean exists(Long userId, MarkType type, Long puzzleId) {
+        return count("userId = ?1 and type = ?2 and puzzleId = ?3", userId, type, puzzleId) > 0;
+    }
+
+    /**
+     * Finds which of the given puzzles a user has marked, for every kind of mark, in
+     * one query.
+     *
+     * @param userId - The id of the user
+     * @param puzzleIds - The ids of the puzzles to check
+     * @return The ids of the marked puzzles, by kind of mark. Every kind is present,
+     *         with an empty list if none of the puzzles have it
+     */
+    public static Map<MarkType, List<Long>> findMarked(Long userId, Collection<Long> puzzleIds) {
+        Map<MarkType, List<Long>> marked = new EnumMap<>(MarkType.class);
+        for (MarkType type : MarkType.values()) {
+            marked.put(type, new ArrayList<>());
+        }
+        if (puzzleIds.isEmpty()) {
+            return marked;
+        }
+
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select m.type, m.puzzleId from PuzzleMark m where m.userId = :userId and m.puzzleId in :puzzleIds", Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("puzzleIds", puzzleIds)
+                .getResultList();
+        for (Object[] row : rows) {
+            marked.get((MarkType) row[0]).add((Long) row[1]);
+        }
+        return marked;
+    }
+}
@@ -0,0 +1,281 @@
+package Puzzle_Lab.Entities;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import Puzzle_Lab.RowCountingListener;
+
+/**
+ * One revision of a puzzle's content in its edit history. A revision is either a
+ * snapshot, with the whole grid and hints in PuzzleCodec's format, or a delta
+ * with only what changed since the revision before it. Every chain of deltas
+ * starts at a snapshot, so rebuilding a revision reads one snapshot and the
+ * deltas after it, never more than PuzzleHistory's snapshot spacing.
+ *
+ * The title and description are short, so every revision stores them in full.
+ * Rows are only written by PuzzleHistory.
+ */
+@Entity
+@EntityListeners(RowCountingListener.class) // Rows loaded per request, for RouteMetrics
+@Table(name = "puzzle_revision",
+        uniqueConstraints = @UniqueConstraint(name = "uk_puzzle_revision", columnNames = {"puzzle_id", "revision"}))
+public class PuzzleRevision extends PanacheEntityBase {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "puzzle_id", nullable = false)
+    private Long puzzleId;
+
+    @Column(name = "revision", nullable = false)
+    private long revision;
+
+    @Column(name = "snapshot", nullable = false)
+    private boolean snapshot;
+
+    @Lob
+    @Column(name = "cells_data", nullable = false)
+    private byte[] cellsData; // A grid if this is a snapshot, a grid delta otherwise
+
+    @Lob
+    @Column(name = "hints_data", nullable = false)
+    private byte[] hintsData; // Hints if this is a snapshot, a hints delta otherwise
+
+    @Column(name = "stored_bytes", nullable = false)
+    private int storedBytes; // cellsData and hintsData together, so the history's size is known without loading them
+
+    private String title;
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    @SuppressWarnings("unused")
+    private PuzzleRevision() {
+        // Constructor required by JPA
+    }
+
+    private PuzzleRevision(Long puzzleId, long revision, boolean snapshot, byte[] cellsData, byte[] hintsData,
+            Content content) {
+        this.puzzleId = puzzleId;
+        this.revision = revision;
+        this.snapshot = snapshot;
+        this.cellsData = cellsData;
+        this.hintsData = hintsData;
+        this.storedBytes = cellsData.length + hintsData.length;
+        this.title = content.title();
+        this.description = content.description();
+        this.createdAt = Instant.now();
+    }
+
+    /**
+     * @param puzzleId - The id of the puzzle
+     * @param revision - The puzzle's revision
+     * @param content - The puzzle's content at that revision
+     * @return A revision storing the whole content
+     */
+    public static PuzzleRevision snapshot(Long puzzleId, long revision, Content content) {
+        return new PuzzleRevision(puzzleId, revision, true, PuzzleCodec.encodeGrid(content.grid()),
+                PuzzleCodec.encodeHints(content.hints()), content);
+    }
+
+    /**
+     * @param puzzleId - The id of the puzzle
+     * @param revision - The puzzle's revision
+     * @param base - The puzzle's content at the revision before
+     * @param content - The puzzle's content at this revision
+     * @return A revision storing only what changed since base, or null if the change
+     *         can't be stored as a delta (the grid was resized or the hints reordered)
+     */
+    public static PuzzleRevision delta(Long puzzleId, long revision, Content base, Content content) {
+        byte[] cells = PuzzleCodec.encodeGridDelta(base.grid(), content.grid());
+        byte[] hints = PuzzleCodec.encodeHintsDelta(base.hints(), content.hints());
+        if (cells == null || hints == null) {
+            return null;
+        }
+        return new PuzzleRevision(puzzleId, revision, false, cells, hints, content);
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * The part of a puzzle the history keeps. The status and counts aren't content,
+     * so restoring a revision leaves them as they are.
+     */
+    public record Content(String title, String description, PuzzleGrid grid, List<Puzzle.Hint> hints) {
+        /**
+         * @param puzzle - A puzzle
+         * @return The puzzle's current content
+         */
+        public static Content of(Puzzle puzzle) {
+            return new Content(puzzle.getTitle(), puzzle.getDescription(), puzzle.getGrid(), puzzle.getHintsList());
+        }
+
+        /**
+         * @param other - Another revision's content
+         * @return Whether both have the same title, description, grid and hints
+         */
+        public boolean sameAs(Content other) {
+            return Objects.equals(title, other.title)
+                    && Objects.equals(description, other.description)
+                    && Arrays.equals(PuzzleCodec.encodeGrid(grid), PuzzleCodec.encodeGrid(other.grid))
+                    && Arrays.equals(PuzzleCodec.encodeHints(hints), PuzzleCodec.encodeHints(other.hints));
+        }
+    }
+
+    /**
+     * A revision as listed to the creator, without its content.
+     */
+    public record Summary(long revision, boolean snapshot, int storedBytes, String title, Instant createdAt) {
+    }
+
+    /**
+     * Where a puzzle's newest chain of revisions stands, for deciding whether the
+     * next one can be a delta.
+     *
+     * @param latest - The newest revision stored, 0 if there are none
+     * @param length - How many revisions the chain has, counting its snapshot
+     * @param snapshotBytes - The size of the chain's snapshot
+     * @param deltaBytes - The size of the chain's deltas together
+     */
+    public record Chain(long latest, int length, int snapshotBytes, int deltaBytes) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return True if the revision stores the whole content, false if it's a delta
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return The size of the revision's cells and hints data together
+     */
+    public int getStoredBytes() {
+        return storedBytes;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param puzzleId - The id of the puzzle
+     * @return Every stored revision of the puzzle, newest first
+     */
+    public static List<Summary> list(Long puzzleId) {
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select r.revision, r.snapshot, r.storedBytes, r.title, r.createdAt from PuzzleRevision r "
+                        + "where r.puzzleId = :puzzleId order by r.revision desc", Object[].class)
+                .setParameter("puzzleId", puzzleId)
+                .getResultList();
+
+        List<Summary> summaries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            summaries.add(new Summary((Long) row[0], (Boolean) row[1], (Integer) row[2], (String) row[3], (Instant) row[4]));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param puzzleId - The id of the puzzle
+     * @return The puzzle's newest chain of revisions, empty if it has none
+     */
+    public static Chain chain(Long puzzleId) {
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select r.revision, r.snapshot, r.storedBytes from PuzzleRevision r "
+                        + "where r.puzzleId = :puzzleId and r.revision >= "
+                        + "(select max(s.revision) from PuzzleRevision s where s.puzzleId = :puzzleId and s.snapshot = true)",
+                        Object[].class)
+                .setParameter("puzzleId", puzzleId)
+                .getResultList();
+
+        long latest = 0;
+        int snapshotBytes = 0;
+        int deltaBytes = 0;
+        for (Object[] row : rows) {
+            latest = Math.max(latest, (Long) row[0]);
+            if ((Boolean) row[1]) {
+                snapshotBytes = (Integer) row[2];
+            } else {
+                deltaBytes += (Integer) row[2];
+            }
+        }
+        return new Chain(latest, rows.size(), snapshotBytes, deltaBytes);
+    }
+
+    /**
+     * Rebuilds a puzzle's content at a revision from the nearest snapshot at or
+     * before it and the deltas after that snapshot.
+     *
+     * @param puzzleId - The id of the puzzle
+     * @param revision - The revision to rebuild
+     * @return The content at that revision, or null if it isn't stored
+     * @throws IllegalArgumentException If a stored revision can't be decoded
+     */
+    public static Content load(Long puzzleId, long revision) {
+        List<PuzzleRevision> chain = find("puzzleId = ?1 and revision <= ?2 and revision >= "
+                + "(select max(s.revision) from PuzzleRevision s where s.puzzleId = ?1 and s.snapshot = true and s.revision <= ?2) "
+                + "order by revision", puzzleId, revision).list();
+        if (chain.isEmpty() || chain.get(chain.size() - 1).revision != revision) {
+            return null;
+        }
+
+        Content content = null;
+        for (PuzzleRevision link : chain) {
+            if (link.snapshot) {
+                content = new Content(link.title, link.description, PuzzleCodec.decodeGrid(link.cellsData),
+                        PuzzleCodec.decodeHints(link.hintsData));
+            } else {
+                content = new Content(link.title, link.description, PuzzleCodec.applyGridDelta(content.grid(), link.cellsData),
+                        PuzzleCodec.applyHintsDelta(content.hints(), link.hintsData));
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Deletes a puzzle's revisions older than its newest snapshot at or before a
+     * revision, so the revisions from there on can still be rebuilt.
+     *
+     * @param puzzleId - The id of the puzzle
+     * @param oldestKept - The oldest revision that must stay rebuildable
+     * @return How many revisions were deleted
+     */
+    public static long deleteBefore(Long puzzleId, long oldestKept) {
+        List<Long> cutoff = getEntityManager()
+                .createQuery("select max(r.revision) from PuzzleRevision r "
+                        + "where r.puzzleId = :puzzleId and r.snapshot = true and r.revision <= :oldestKept", Long.class)
+                .setParameter("puzzleId", puzzleId)
+                .setParameter("oldestKept", oldestKept)
+                .getResultList();
+        if (cutoff.isEmpty() || cutoff.get(0) == null) {
+            return 0;
+        }
+        return delete("puzzleId = ?1 and revision < ?2", puzzleId, cutoff.get(0));
+    }
+}
@@ -0,0 +1,261 @@
+package Puzzle_Lab.Entities;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import Puzzle_Lab.Enums.Direction;
+
+/**
+ * The answers of a puzzle, packed for checking. The letters are one uppercase
+ * character per cell, row by row, with BLOCKED for blocked cells, so a 15x15
+ * puzzle is a 225 character string instead of a cells JSON of several KB. A
+ * SHA-256 digest of the letters answers "is the whole grid right" without
+ * comparing them one by one.
+ *
+ * Players send their attempt in the same form. Words are found by numbering the
+ * grid the same way the create page does: every open cell that starts an across
+ * or down word of two or more letters gets the next label, row by row.
+ */
+public final class PuzzleSolution {
+    /**
+     * The character for blocked cells in the letters, and for empty cells in an attempt.
+     */
+    public static final char BLOCKED = '.';
+
+    private final int rows;
+    private final int cols;
+    private final String letters;
+    private final byte[] digest;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    private PuzzleSolution(int rows, int cols, String letters, byte[] digest) {
+        this.rows = rows;
+        this.cols = cols;
+        this.letters = letters;
+        this.digest = digest;
+    }
+
+    /**
+     * @param grid - The puzzle's cells
+     * @return The grid's answers
+     */
+    public static PuzzleSolution of(PuzzleGrid grid) {
+        String letters = letters(grid);
+        return new PuzzleSolution(grid.getRows(), grid.getCols(), letters, digest(letters));
+    }
+
+    /**
+     * Rebuilds a solution from its stored columns.
+     *
+     * @param rows - The number of rows in the grid
+     * @param cols - The number of columns in the grid
+     * @param letters - The stored letters
+     * @param digest - The stored digest, in Base64
+     * @return The solution
+     * @throws IllegalArgumentException If the letters don't fill the grid
+     */
+    public static PuzzleSolution of(int rows, int cols, String letters, String digest) {
+        if (letters.length() != rows * cols) {
+            throw new IllegalArgumentException("A " + rows + "x" + cols + " solution can't have " + letters.length() + " letters.");
+        }
+        return new PuzzleSolution(rows, cols, letters, Base64.getDecoder().decode(digest));
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Where a word is in the grid.
+     */
+    public record Word(int row, int col, Direction direction, int length) {
+        /**
+         * @param position - A position in the word, from 0
+         * @param cols - The number of columns in the grid
+         * @return The index of the word's cell at that position, row by row
+         */
+        public int cellAt(int position, int cols) {
+            return direction == Direction.ACROSS ? row * cols + col + position : (row + position) * cols + col;
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The number of rows in the grid
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The number of columns in the grid
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return One uppercase letter per cell, row by row, BLOCKED for blocked cells
+     */
+    public String getLetters() {
+        return letters;
+    }
+
+    /**
+     * @return The SHA-256 digest of the letters, in Base64
+     */
+    public String getDigest() {
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param attempt - A player's letters, see normalize()
+     * @return True if every cell of the attempt is right
+     */
+    public boolean matches(String attempt) {
+        return attempt.length() == letters.length() && MessageDigest.isEqual(digest, digest(attempt));
+    }
+
+    /**
+     * Finds the cells a player has filled in wrong. Empty cells aren't wrong, so
+     * players can check a grid they're partway through.
+     *
+     * @param attempt - A player's letters, see normalize()
+     * @return A bitmap with bit i (of byte i / 8, lowest bit first) set if cell i
+     *         row by row is wrong
+     * @throws IllegalArgumentException If the attempt is a different size than the grid
+     */
+    public byte[] wrongCells(String attempt) {
+        if (attempt.length() != letters.length()) {
+            throw new IllegalArgumentException("Expected " + letters.length() + " letters, one per cell.");
+        }
+        byte[] wrong = new byte[(letters.length() + 7) / 8];
+        for (int i = 0; i < letters.length(); i++) {
+            char guess = attempt.charAt(i);
+            if (guess != BLOCKED && guess != letters.charAt(i)) {
+                wrong[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * @param word - A word in the grid
+     * @param attempt - A player's letters for that word, see normalize()
+     * @return The positions in the word that are wrong or empty
+     * @throws IllegalArgumentException If the attempt is a different length than the word
+     */
+    public List<Integer> wrongLetters(Word word, String attempt) {
+        if (attempt.length() != word.length()) {
+            throw new IllegalArgumentException("Expected " + word.length() + " letters for that word.");
+        }
+        List<Integer> wrong = new ArrayList<>();
+        for (int p = 0; p < word.length(); p++) {
+            if (attempt.charAt(p) != letters.charAt(word.cellAt(p, cols))) {
+                wrong.add(p);
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * @param label - The label of a hint
+     * @param direction - The direction of the hint
+     * @return The word that hint is for, or null if there isn't one
+     */
+    public Word findWord(int label, Direction direction) {
+        int number = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (isBlocked(row, col)) {
+                    continue;
+                }
+                boolean across = (col == 0 || isBlocked(row, col - 1)) && col + 1 < cols && !isBlocked(row, col + 1);
+                boolean down = (row == 0 || isBlocked(row - 1, col)) && row + 1 < rows && !isBlocked(row + 1, col);
+                if (!across && !down) {
+                    continue;
+                }
+                if (++number < label) {
+                    continue;
+                }
+
+                if (number > label || direction == Direction.ACROSS && !across || direction == Direction.DOWN && !down) {
+                    return null;
+                }
+                int length = 1;
+                if (direction == Direction.ACROSS) {
+                    while (col + length < cols && !isBlocked(row, col + length)) {
+                        length++;
+                    }
+                } else {
+                    while (row + length < rows && !isBlocked(row + length, col)) {
+                        length++;
+                    }
+                }
+                return new Word(row, col, direction, length);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts a player's letters in the form solutions are stored in: uppercase, and
+     * BLOCKED for empty cells (blanks, spaces, '?'). Any other character is kept,
+     * so a cell whose answer isn't A-Z can still be filled in right.
+     *
+     * @param attempt - The letters as sent
+     * @return The normalized letters
+     */
+    public static String normalize(String attempt) {
+        char[] chars = new char[attempt.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = pack(attempt.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param c - A character typed in or stored in a cell
+     * @return The character as it's packed into letters: uppercase, or BLOCKED if it's empty
+     */
+    public static char pack(char c) {
+        return c == '\0' || c == '?' || c == BLOCKED || Character.isWhitespace(c) ? BLOCKED : Character.toUpperCase(c);
+    }
+
+    private boolean isBlocked(int row, int col) {
+        return letters.charAt(row * cols + col) == BLOCKED;
+    }
+
+    private static String letters(PuzzleGrid grid) {
+        char[] chars = new char[grid.getRows() * grid.getCols()];
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int col = 0; col < grid.getCols(); col++) {
+                // Same rule as normalize(), so an attempt can always match its solution
+                chars[row * grid.getCols() + col] = grid.isBlocked(row, col) ? BLOCKED : pack(grid.letterAt(row, col));
+            }
+        }
+        return new String(chars);
+    }
+
+    private static byte[] digest(String letters) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(letters.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available.", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package Puzzle_Lab.Entities;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+import Puzzle_Lab.Enums.Status;
+
+/**
+ * The fields of a puzzle needed to show it in a listing. Loaded with a Panache
+ * projection, so a page of summaries is one joined SELECT of plain columns that
+ * never touches the cells or hints LOBs. Those are only loaded when a puzzle is
+ * opened.
+ */
+public class PuzzleSummary {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final Status status;
+    private final LocalDate createdAt;
+    private final LocalDate lastUpdated;
+    private final int likeCount;
+    private final int favoriteCount;
+    private final int gridRows;
+    private final int gridCols;
+    private final Long version;
+
+    private final Long creatorId;
+    private final String creatorUsername;
+    private final LocalDate creatorCreatedAt;
+    private final String creatorAvatar;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    // Panache selects the field named on each parameter, in order, and calls this constructor
+    public PuzzleSummary(@ProjectedFieldName("id") Long id,
+            @ProjectedFieldName("title") String title,
+            @ProjectedFieldName("description") String description,
+            @ProjectedFieldName("status") Status status,
+            @ProjectedFieldName("createdAt") LocalDate createdAt,
+            @ProjectedFieldName("lastUpdated") LocalDate lastUpdated,
+            @ProjectedFieldName("likeCount") int likeCount,
+            @ProjectedFieldName("favoriteCount") int favoriteCount,
+            @ProjectedFieldName("gridRows") int gridRows,
+            @ProjectedFieldName("gridCols") int gridCols,
+            @ProjectedFieldName("version") Long version,
+            @ProjectedFieldName("creator.id") Long creatorId,
+            @ProjectedFieldName("creator.username") String creatorUsername,
+            @ProjectedFieldName("creator.createdAt") LocalDate creatorCreatedAt,
+            @ProjectedFieldName("creator.avatar") String creatorAvatar) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.lastUpdated = lastUpdated;
+        this.likeCount = likeCount;
+        this.favoriteCount = favoriteCount;
+        this.gridRows = gridRows;
+        this.gridCols = gridCols;
+        this.version = version;
+        this.creatorId = creatorId;
+        this.creatorUsername = creatorUsername;
+        this.creatorCreatedAt = creatorCreatedAt;
+        this.creatorAvatar = creatorAvatar;
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The id of the puzzle
+     */
+    public Long getID() {
+        return id;
+    }
+
+    /**
+     * @return a LocalDate representing when this puzzle was last updated.
+     */
+    public LocalDate getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * @return The puzzle's version, which changes whenever anything in getDTO() does
+     */
+    public long getVersion() {
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * @return A hashmap of the puzzle's listing details, with the same keys as
+     *         Puzzle.getEmptyDTO() minus the cells and hints
+     */
+    public Map<String, Object> getDTO() {
+        Map<String, Object> creator = new HashMap<>();
+        creator.put("id", creatorId);
+        creator.put("username", creatorUsername);
+        creator.put("createdAt", creatorCreatedAt);
+        creator.put("avatar", creatorAvatar);
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("id", id);
+        fields.put("creator", creator);
+        fields.put("createdAt", createdAt);
+        fields.put("title", title);
+        fields.put("description", description);
+        fields.put("status", status);
+        fields.put("lastUpdated", lastUpdated);
+        fields.put("likeCount", likeCount);
+        fields.put("favoriteCount", favoriteCount);
+        fields.put("gridRows", gridRows);
+        fields.put("gridCols", gridCols);
+
+        return fields;
+    }
+}
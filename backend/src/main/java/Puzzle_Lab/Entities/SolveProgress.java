@@ -0,0 +1,126 @@
+package Puzzle_Lab.Entities;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.Session;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import Puzzle_Lab.RowCountingListener;
+
+/**
+ * A user's letters in a puzzle they haven't finished, one row per user and
+ * puzzle. The letters are packed like PuzzleSolution, one per cell row by row,
+ * with PuzzleSolution.BLOCKED for blocked and empty cells.
+ *
+ * Rows are only written by ProgressStore, which merges autosaves in memory and
+ * upserts the changed rows in batches.
+ */
+@Entity
+@EntityListeners(RowCountingListener.class) // Rows loaded per request, for RouteMetrics
+@Table(name = "solve_progress",
+        uniqueConstraints = @UniqueConstraint(name = "uk_solve_progress", columnNames = {"user_id", "puzzle_id"}),
+        indexes = @Index(name = "idx_solve_progress_puzzle", columnList = "puzzle_id"))
+public class SolveProgress extends PanacheEntityBase {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "puzzle_id", nullable = false)
+    private Long puzzleId;
+
+    @Column(name = "letters", nullable = false, length = PuzzleGrid.MAX_SIZE * PuzzleGrid.MAX_SIZE)
+    private String letters;
+
+    @Column(name = "revision", nullable = false)
+    private long revision;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    @SuppressWarnings("unused")
+    private SolveProgress() {
+        // Constructor required by JPA
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * One user's letters in one puzzle, as of a revision.
+     */
+    public record Snapshot(Long userId, Long puzzleId, String letters, long revision) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param userId - The id of the user
+     * @param puzzleId - The id of the puzzle
+     * @return The user's saved progress in the puzzle, or null if there is none
+     */
+    public static Snapshot find(Long userId, Long puzzleId) {
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select p.letters, p.revision from SolveProgress p where p.userId = :userId and p.puzzleId = :puzzleId",
+                        Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("puzzleId", puzzleId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        return new Snapshot(userId, puzzleId, (String) rows.get(0)[0], (Long) rows.get(0)[1]);
+    }
+
+    /**
+     * Inserts or replaces the progress of many solves as one JDBC batch. A row is
+     * only replaced by a newer revision, so a slow flush can't overwrite a later one.
+     * Must be called inside a transaction.
+     *
+     * @param snapshots - The progress to write
+     */
+    public static void saveAll(Collection<Snapshot> snapshots) {
+        Timestamp now = Timestamp.from(Instant.now());
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into solve_progress (user_id, puzzle_id, letters, revision, updated_at) values (?, ?, ?, ?, ?) "
+                            + "on duplicate key update "
+                            + "letters = case when values(revision) > revision then values(letters) else letters end, "
+                            + "updated_at = case when values(revision) > revision then values(updated_at) else updated_at end, "
+                            + "revision = greatest(revision, values(revision))")) {
+                for (Snapshot snapshot : snapshots) {
+                    statement.setLong(1, snapshot.userId());
+                    statement.setLong(2, snapshot.puzzleId());
+                    statement.setString(3, snapshot.letters());
+                    statement.setLong(4, snapshot.revision());
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
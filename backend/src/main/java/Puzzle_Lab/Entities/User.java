@@ -1,14 +1,12 @@
 package Puzzle_Lab.Entities;
 
 import jakarta.annotation.security.RolesAllowed;
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
@@ -16,13 +14,11 @@ import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.List;
-import org.mindrot.jbcrypt.BCrypt;
 
 import Puzzle_Lab.Enums.Theme;
+import Puzzle_Lab.RowCountingListener;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 
 /**
@@ -32,6 +28,7 @@ import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
  * PanacheEntity automatically creates an ID field upon persist.
  */
 @Entity
+@EntityListeners(RowCountingListener.class) // Rows loaded per request, for RouteMetrics
 public class User extends PanacheEntityBase {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -49,21 +46,6 @@ public class User extends PanacheEntityBase {
     @Column(nullable = true)
     private String tempPassword; // Temporary password for one-time use.
 
-    @ElementCollection
-    @CollectionTable(name = "user_liked_puzzles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "puzzle_id")
-    private List<Long> likedPuzzleIds = new ArrayList<>();
-
-    @ElementCollection
-    @CollectionTable(name = "user_favorited_puzzles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "puzzle_id")
-    private List<Long> favoritedPuzzleIds = new ArrayList<>();
-
-    @ElementCollection
-    @CollectionTable(name = "user_completed_puzzles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "puzzle_id")
-    private List<Long> completedPuzzleIds = new ArrayList<>();
-
     /////////////////////////////////////////////////////////
     // ------------------- CONSTRUCTORS ------------------ //
     /////////////////////////////////////////////////////////
@@ -75,21 +57,21 @@ public class User extends PanacheEntityBase {
     /**
      * Creates a new user with the specified username and password.
      * @param username The username for the new user.
-     * @param password The plaintext password, which will be hashed.
+     * @param hashedPassword The password, already hashed with PasswordHasher.
      */
-    public User(String username, String password) {
-        this(username, password, null);
+    public User(String username, String hashedPassword) {
+        this(username, hashedPassword, null);
     }
     
     /**
      * Creates a new user with the specified username, password, and email.
      * @param username The username for the new user.
-     * @param password The plaintext password, which will be hashed.
+     * @param hashedPassword The password, already hashed with PasswordHasher.
      * @param email The email associated with the user.
      */
-    public User(String username, String password, String email) {
+    public User(String username, String hashedPassword, String email) {
         this.username = username;
-        this.password = BCrypt.hashpw(password, BCrypt.gensalt()); // Hash the password before storing.
+        this.password = hashedPassword; // Hashed off the request thread, see PasswordHasher
         this.email = email;
     }
 
@@ -181,37 +163,10 @@ public class User extends PanacheEntityBase {
         fields.put("email", email);
         fields.put("theme", theme);
         fields.put("isAdmin", isAdmin);
-        fields.put("likedPuzzleIds", likedPuzzleIds);
-        fields.put("favoritedPuzzleIds", favoritedPuzzleIds);
-        fields.put("completedPuzzleIds", completedPuzzleIds);
 
         return fields;
     }
 
-    /**
-     * Returns a list of puzzle IDs that the user has liked.
-     * @return A list of puzzle IDs the user has liked.
-     */
-    public List<Long> getLikedPuzzleIds() {
-        return likedPuzzleIds;
-    }
-
-    /**
-     * Returns a list of puzzle IDs that the user has favorited.
-     * @return A list of puzzle IDs the user has marked as favorite.
-     */
-    public List<Long> getFavoritedPuzzleIds() {
-        return favoritedPuzzleIds;
-    }
-
-    /**
-     * Returns a list of puzzle IDs that the user has completed.
-     * @return A list of puzzle IDs the user has completed.
-     */
-    public List<Long> getCompletedPuzzleIds() {
-        return completedPuzzleIds;
-    }
-
     /////////////////////////////////////////////////////////
     // --------------------- SETTERS --------------------- //
     /////////////////////////////////////////////////////////
@@ -228,12 +183,12 @@ public class User extends PanacheEntityBase {
     }
 
     /**
-     * Hashes a user's password, then sets it
+     * Sets a user's password
      * 
-     * @param password - The string to hash and set as the user's password
+     * @param hashedPassword - The password, already hashed with PasswordHasher
      */
-    public void setPassword(String password) {
-        this.password = BCrypt.hashpw(password, BCrypt.gensalt());
+    public void setHashedPassword(String hashedPassword) {
+        this.password = hashedPassword;
     }
 
     /**
@@ -257,13 +212,13 @@ public class User extends PanacheEntityBase {
     }
 
     /**
-     * Sets a temporary password for the user, hashing it before storing.
+     * Sets a temporary password for the user.
      * This password is intended for one-time use, such as during password reset.
-     * @param tempPassword The temporary password to be hashed and stored.
+     * @param hashedTempPassword The temporary password, already hashed with PasswordHasher.
      */
-    public void setTempPassword(String tempPassword) {
-        if (tempPassword != null) {
-            this.tempPassword = BCrypt.hashpw(tempPassword, BCrypt.gensalt()); // Securely hash temp password before storing
+    public void setHashedTempPassword(String hashedTempPassword) {
+        if (hashedTempPassword != null) {
+            this.tempPassword = hashedTempPassword;
         }
     }
 
@@ -342,25 +297,6 @@ public class User extends PanacheEntityBase {
         return User.find("id", id).firstResult();
     }
 
-    /**
-     * Verifies if the provided password matches the stored main or temporary password.
-     * @param inputPassword The plaintext password provided by the user.
-     * @return True if the password matches, otherwise false.
-     */
-    public boolean verifyPassword(String inputPassword) {
-        
-        // Check if input password matches the main password
-        if (BCrypt.checkpw(inputPassword, this.password)) {
-            return true; 
-        } 
-
-        // Check if input password matches the temporary password (if set)
-        if (this.tempPassword != null && BCrypt.checkpw(inputPassword, this.tempPassword)) {
-            return true;
-        }
-        
-        return false;
-    }
     /**
      * Clears the user's temporary password after successful login.
      * This ensures that the temporary password is only used once.
@@ -0,0 +1,9 @@
+package Puzzle_Lab.Enums;
+
+/**
+ * The ways a user can mark a puzzle. Stored by position, so new types must be
+ * added at the end.
+ */
+public enum MarkType {
+    LIKED, FAVORITED, COMPLETED
+}
@@ -0,0 +1,127 @@
+package Puzzle_Lab;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import jakarta.ws.rs.core.EntityTag;
+
+import Puzzle_Lab.Entities.PuzzleSummary;
+
+/**
+ * ETags and Cache-Control values for puzzle and word responses.
+ *
+ * Every change to a puzzle, including its like and favorite counts and its
+ * creator's public details, bumps the puzzle's version, so a tag built from ids
+ * and versions changes exactly when the response body would. Responses anyone
+ * can see are marked public, so a reverse proxy may serve them for a few seconds
+ * (puzzlelab.http.shared-max-age) and revalidate them after that. Browsers always
+ * revalidate, which costs a 304 with no body when nothing changed.
+ *
+ * The tags are weak. The same version of a response goes out both as identity
+ * bytes and gzipped, precompressed by PuzzleCache or compressed on the fly, and
+ * a strong tag would claim those different bytes are identical. A weak tag only
+ * claims they mean the same thing, which is all revalidation with If-None-Match
+ * needs.
+ */
+public final class HttpCaching {
+    private static final int SHARED_MAX_AGE = ConfigProvider.getConfig()
+            .getOptionalValue("puzzlelab.http.shared-max-age", Integer.class).orElse(30);
+
+    /**
+     * Cache-Control for responses that are the same for every user.
+     */
+    public static final String PUBLIC = "public, max-age=0, s-maxage=" + SHARED_MAX_AGE + ", must-revalidate";
+
+    /**
+     * Cache-Control for responses that depend on who is asking. Only the user's own
+     * browser may keep them, and it must revalidate every time.
+     */
+    public static final String PRIVATE = "private, no-cache";
+
+    private HttpCaching() {
+    }
+
+    /**
+     * @param id - The id of the puzzle
+     * @param version - The puzzle's current version
+     * @param mode - "play" or "edit", since they return different bodies
+     * @return A weak ETag like W/"p123456-v7-play"
+     */
+    public static EntityTag puzzleTag(Long id, long version, String mode) {
+        return new EntityTag("p" + id + "-v" + version + "-" + mode, true);
+    }
+
+    /**
+     * @param prefix - Identifies the feed, so equal pages of different feeds get different tags
+     * @param page - The puzzles on the page, in order
+     * @return A weak ETag that changes whenever a puzzle on the page, or the set of puzzles, changes
+     */
+    public static EntityTag pageTag(String prefix, List<PuzzleSummary> page) {
+        StringBuilder text = new StringBuilder(prefix);
+        for (PuzzleSummary puzzle : page) {
+            text.append(':').append(puzzle.getID()).append('-').append(puzzle.getVersion());
+        }
+        return digestTag(prefix, text.toString());
+    }
+
+    /**
+     * @param dictionaryVersion - The version of the word list that answered
+     * @param pattern - The pattern as the client sent it
+     * @param limit - The most words returned
+     * @return A weak ETag that changes when the query or the word list does
+     */
+    public static EntityTag wordsTag(long dictionaryVersion, String pattern, int limit) {
+        return digestTag("words", "words:" + dictionaryVersion + ":" + limit + ":" + pattern);
+    }
+
+    /**
+     * @param acceptEncoding - The request's Accept-Encoding header, or null
+     * @return True if the client accepts a gzipped response
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            // "gzip;q=0" means the client refuses gzip
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().replace(" ", "");
+                try {
+                    if (param.startsWith("q=") && Double.parseDouble(param.substring(2)) == 0) {
+                        return false;
+                    }
+                } catch (NumberFormatException e) {
+                    // Ignore a malformed weight, like most servers do
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return A weak ETag of the prefix and a digest of the text, which is safe to
+     *         put in a header whatever the text holds
+     */
+    private static EntityTag digestTag(String prefix, String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            // 128 bits is plenty to tell responses apart
+            return new EntityTag(prefix + "-" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)),
+                    true);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available.", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package Puzzle_Lab;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of durations, for percentiles under load.
+ *
+ * Durations are kept in microseconds, in buckets that are exact up to 64us and
+ * then split every power of two into 64 steps, so any recorded value is off by
+ * at most about 1.6%. Recording is one atomic increment, and the whole
+ * histogram is a fixed AtomicLongArray of a few thousand longs no matter how
+ * many values it holds.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 64
+    private static final int MAGNITUDES = 64 - SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAGNITUDES + 1) * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param nanos - A duration in nanoseconds, as measured with System.nanoTime()
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(bucketOf(micros));
+        total.increment();
+        sumMicros.add(micros);
+    }
+
+    /**
+     * @return How many durations were recorded
+     */
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * @param percentile - Between 0 and 100, e.g. 99.9
+     * @return The duration in milliseconds that this percentage of values were at or below
+     */
+    public double getPercentileMillis(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return upperBoundOf(bucket) / 1000.0;
+            }
+        }
+        return upperBoundOf(counts.length() - 1) / 1000.0;
+    }
+
+    /**
+     * @return The count, mean and usual percentiles, in milliseconds
+     */
+    public Map<String, Object> getSummary() {
+        long count = total.sum();
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("count", count);
+        fields.put("meanMillis", count == 0 ? 0 : sumMicros.sum() / 1000.0 / count);
+        fields.put("p50Millis", getPercentileMillis(50));
+        fields.put("p90Millis", getPercentileMillis(90));
+        fields.put("p99Millis", getPercentileMillis(99));
+        fields.put("p999Millis", getPercentileMillis(99.9));
+        fields.put("maxMillis", getPercentileMillis(100));
+
+        return fields;
+    }
+
+    /**
+     * Values below 64 get a bucket each. Above that, the position of the highest
+     * bit picks the magnitude and the next 6 bits pick the step within it.
+     */
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        int step = (int) (micros >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+        return magnitude * SUB_BUCKETS + step;
+    }
+
+    /**
+     * @return The largest value in microseconds that falls into the bucket
+     */
+    private static long upperBoundOf(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        int step = bucket % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return step;
+        }
+        long lower = ((long) (SUB_BUCKETS | step)) << (magnitude - 1);
+        return lower + (1L << (magnitude - 1)) - 1;
+    }
+}
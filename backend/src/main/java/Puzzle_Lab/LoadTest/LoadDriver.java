@@ -0,0 +1,361 @@
+package Puzzle_Lab.LoadTest;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.StartupEvent;
+
+import Puzzle_Lab.LatencyHistogram;
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.RouteMetrics;
+import Puzzle_Lab.TokenService;
+import Puzzle_Lab.Entities.PuzzleGrid;
+import Puzzle_Lab.Entities.PuzzleSolution;
+import Puzzle_Lab.Entities.User;
+
+/**
+ * Drives a scripted mix of traffic at the backend it runs in, once for each
+ * configured number of concurrent clients, and reports throughput, latency
+ * percentiles and SQL statements per request for every kind of request.
+ *
+ * Each client is a virtual thread sending one request at a time over real HTTP,
+ * so requests go through the same filters, serialization and connection pool as
+ * in production. Only requests started after the warmup are measured. The
+ * report is written as JSON to puzzlelab.loadtest.results and logged as a table.
+ *
+ * The report records whether the @RunOnVirtualThread endpoints ran on virtual
+ * threads or, with quarkus.virtual-threads.enabled=false, on worker threads, so a
+ * run of each can be compared side by side.
+ */
+@ApplicationScoped
+@IfBuildProfile("loadtest")
+public class LoadDriver {
+    private static final Logger LOG = Logger.getLogger(LoadDriver.class);
+
+    private static final int TOKEN_USERS = 1000; // Clients share this many logged in users
+
+    @ConfigProperty(name = "puzzlelab.loadtest.clients", defaultValue = "100,1000,10000")
+    List<Integer> clientLevels;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.warmup", defaultValue = "5s")
+    Duration warmup;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.duration", defaultValue = "30s")
+    Duration duration;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.results", defaultValue = "loadtest-results.json")
+    String resultsPath;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.exit-when-done", defaultValue = "true")
+    boolean exitWhenDone;
+
+    @ConfigProperty(name = "quarkus.http.port", defaultValue = "8080")
+    int port;
+
+    @ConfigProperty(name = "quarkus.virtual-threads.enabled", defaultValue = "true")
+    boolean virtualThreads;
+
+    @Inject
+    LoadTestSeeder seeder;
+
+    @Inject
+    RouteMetrics routeMetrics;
+
+    private final ConcurrentHashMap<Long, String> validateBodies = new ConcurrentHashMap<>();
+    private List<String> tokens = List.of();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * The kinds of request a client sends, and how often out of 100 it sends each.
+     */
+    enum Operation {
+        BROWSE(30), PLAY(30), VALIDATE(10), AUTOSAVE(10), LIKE(15), LOGIN(5);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation pick(int roll) {
+            for (Operation operation : values()) {
+                if (roll < operation.weight) {
+                    return operation;
+                }
+                roll -= operation.weight;
+            }
+            return BROWSE;
+        }
+    }
+
+    /**
+     * What was measured for one kind of request at one client level.
+     */
+    private static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    void onStart(@Observes StartupEvent event) {
+        // The HTTP server only starts listening after the startup observers return
+        Thread.ofPlatform().name("load-driver").daemon().start(this::run);
+    }
+
+    private void run() {
+        try {
+            HttpClient client = newClient();
+            waitForServer(client);
+            client.close();
+
+            List<Long> ids = seeder.getUserIds().subList(0, Math.min(TOKEN_USERS, seeder.getUserIds().size()));
+            List<User> users = QuarkusTransaction.requiringNew().call(() -> User.list("id in ?1", ids));
+            tokens = users.stream().map(TokenService::generateToken).toList();
+
+            List<Map<String, Object>> levels = new ArrayList<>();
+            for (int clients : clientLevels) {
+                levels.add(runLevel(clients));
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("threads", virtualThreads ? "virtual" : "worker");
+            report.put("warmupSeconds", warmup.toSeconds());
+            report.put("durationSeconds", duration.toSeconds());
+            report.put("levels", levels);
+            Path path = Path.of(resultsPath).toAbsolutePath();
+            Files.writeString(path, ResponseBody.MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+            LOG.info("Load test results:\n" + table(levels));
+            LOG.infof("Load test results (%s threads) written to %s", virtualThreads ? "virtual" : "worker", path);
+        } catch (Exception e) {
+            LOG.error("The load test failed", e);
+        } finally {
+            if (exitWhenDone) {
+                Quarkus.asyncExit();
+            }
+        }
+    }
+
+    /**
+     * Runs the traffic mix with a number of clients for the warmup and then the
+     * measured duration.
+     *
+     * @param clients - The number of clients sending requests at the same time
+     * @return What was measured, as it appears in the report
+     */
+    private Map<String, Object> runLevel(int clients) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        Map<String, long[]> sqlBefore;
+        Map<String, long[]> sqlAfter;
+        try (HttpClient client = newClient();
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                int clientIndex = i;
+                executor.submit(() -> runClient(client, clientIndex, measureFrom, stopAt, stats));
+            }
+            Thread.sleep(warmup.toMillis());
+            sqlBefore = routeMetrics.snapshot();
+            Thread.sleep(duration.toMillis());
+            sqlAfter = routeMetrics.snapshot();
+        } // Closing the executor waits for every client's last request
+
+        double seconds = duration.toNanos() / 1e9;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            Map<String, Object> fields = new LinkedHashMap<>(latency.getSummary());
+            fields.put("errors", entry.getValue().errors.sum());
+            fields.put("throughput", latency.getCount() / seconds);
+            operations.put(entry.getKey().name(), fields);
+            total += latency.getCount();
+        }
+
+        Map<String, Object> statements = new TreeMap<>();
+        sqlAfter.forEach((route, after) -> {
+            long[] before = sqlBefore.getOrDefault(route, new long[2]);
+            if (after[0] != before[0] || after[1] != before[1]) {
+                statements.put(route, RouteMetrics.describe(after[0] - before[0], after[1] - before[1]));
+            }
+        });
+
+        Map<String, Object> level = new LinkedHashMap<>();
+        level.put("clients", clients);
+        level.put("throughput", total / seconds);
+        level.put("operations", operations);
+        level.put("sqlStatements", statements);
+        return level;
+    }
+
+    /**
+     * Sends requests one at a time until the level ends.
+     */
+    private void runClient(HttpClient client, int clientIndex, long measureFrom, long stopAt,
+            Map<Operation, OperationStats> stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String token = tokens.get(clientIndex % tokens.size());
+        while (System.nanoTime() < stopAt) {
+            Operation operation = Operation.pick(random.nextInt(100));
+            HttpRequest request = request(operation, clientIndex, token, random);
+
+            long started = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                return;
+            }
+            long finished = System.nanoTime();
+
+            if (started >= measureFrom && started < stopAt) {
+                OperationStats measured = stats.get(operation);
+                measured.latency.recordNanos(finished - started);
+                if (status < 200 || status >= 400) {
+                    measured.errors.increment();
+                }
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation, int clientIndex, String token, ThreadLocalRandom random) {
+        List<LoadTestSeeder.SeededPuzzle> puzzles = seeder.getPublicPuzzles();
+        // Cubing the roll makes a few puzzles much more popular than the rest, like a real front page
+        LoadTestSeeder.SeededPuzzle puzzle = puzzles.get((int) (puzzles.size() * Math.pow(random.nextDouble(), 3)));
+
+        return switch (operation) {
+            case BROWSE -> builder("/puzzles?limit=12&page=" + random.nextInt(5)).GET().build();
+            case PLAY -> builder("/puzzles/" + puzzle.id() + "?mode=play")
+                    .header("Accept-Encoding", "gzip").GET().build();
+            case VALIDATE -> builder("/puzzles/" + puzzle.id() + "/validate")
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.ofString(validateBody(puzzle))).build();
+            case AUTOSAVE -> builder("/puzzles/" + puzzle.id() + "/progress")
+                    .header("Authorization", "Bearer " + token)
+                    .PUT(HttpRequest.BodyPublishers.ofString(autosaveBody(puzzle, random))).build();
+            case LIKE -> builder("/puzzles/" + puzzle.id() + (random.nextBoolean() ? "/like" : "/unlike"))
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case LOGIN -> builder("/login")
+                    .POST(HttpRequest.BodyPublishers.ofString(json(Map.of(
+                            "username", LoadTestSeeder.username(clientIndex % seeder.getUserIds().size()),
+                            "password", LoadTestSeeder.PASSWORD))))
+                    .build();
+        };
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json");
+    }
+
+    private String validateBody(LoadTestSeeder.SeededPuzzle puzzle) {
+        // Sent packed like the play page does, one letter per cell
+        return validateBodies.computeIfAbsent(puzzle.id(),
+                id -> json(Map.of("solution", PuzzleSolution.of(PuzzleGrid.parse(puzzle.solution())).getLetters())));
+    }
+
+    /**
+     * A few cells typed since the last autosave, like the play page sends every few seconds.
+     */
+    private static String autosaveBody(LoadTestSeeder.SeededPuzzle puzzle, ThreadLocalRandom random) {
+        StringBuilder body = new StringBuilder("{\"edits\":[");
+        for (int i = 0; i < 3; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"row\":").append(random.nextInt(puzzle.size()))
+                    .append(",\"col\":").append(random.nextInt(puzzle.size()))
+                    .append(",\"letter\":\"").append((char) ('A' + random.nextInt(26))).append("\"}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private static String json(Map<String, String> body) {
+        try {
+            return ResponseBody.MAPPER.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    private void waitForServer(HttpClient client) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + Duration.ofMinutes(1).toNanos();
+        while (System.nanoTime() < giveUpAt) {
+            try {
+                client.send(builder("/puzzles?limit=1").GET().build(), HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("The backend didn't start listening on port " + port + ".");
+    }
+
+    /**
+     * @return The results as a table, a line per level and request
+     */
+    @SuppressWarnings("unchecked")
+    private static String table(List<Map<String, Object>> levels) {
+        StringBuilder table = new StringBuilder(String.format("%8s  %-9s %10s %9s %9s %9s %9s %8s",
+                "clients", "request", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors"));
+        for (Map<String, Object> level : levels) {
+            Map<String, Object> operations = (Map<String, Object>) level.get("operations");
+            operations.forEach((name, value) -> {
+                Map<String, Object> fields = (Map<String, Object>) value;
+                table.append('\n').append(String.format("%8d  %-9s %10.1f %9.2f %9.2f %9.2f %9.2f %8d",
+                        level.get("clients"), name, fields.get("throughput"), fields.get("p50Millis"),
+                        fields.get("p90Millis"), fields.get("p99Millis"), fields.get("maxMillis"),
+                        fields.get("errors")));
+            });
+        }
+        return table.toString();
+    }
+}
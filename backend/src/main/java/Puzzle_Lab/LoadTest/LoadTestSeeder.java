@@ -0,0 +1,194 @@
+package Puzzle_Lab.LoadTest;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+
+import Puzzle_Lab.PasswordHasher;
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleMark;
+import Puzzle_Lab.Entities.User;
+import Puzzle_Lab.Enums.MarkType;
+import Puzzle_Lab.Enums.Status;
+
+/**
+ * Fills the in-memory database of the loadtest profile with users, puzzles and
+ * likes before the backend starts taking requests.
+ *
+ * Every user has the same password, hashed once, so seeding doesn't spend
+ * minutes in bcrypt. Puzzles are generated from their seed, which is all that's
+ * kept in memory, and LoadDriver rebuilds a puzzle's solution from it when it
+ * validates. The same configuration always seeds the same data.
+ */
+@ApplicationScoped
+@IfBuildProfile("loadtest")
+public class LoadTestSeeder {
+    private static final Logger LOG = Logger.getLogger(LoadTestSeeder.class);
+
+    /**
+     * The password of every seeded user.
+     */
+    public static final String PASSWORD = "loadtest-password";
+
+    // Most puzzles are the common 15x15, with a few small and large ones
+    private static final int[] SIZES = { 5, 10, 15, 15, 15, 15, 21, 25 };
+    private static final int BATCH_SIZE = 500;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.users", defaultValue = "1000")
+    int userCount;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.puzzles", defaultValue = "5000")
+    int puzzleCount;
+
+    @ConfigProperty(name = "puzzlelab.loadtest.likes", defaultValue = "20000")
+    int likeCount;
+
+    @Inject
+    PasswordHasher passwordHasher;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<SeededPuzzle> publicPuzzles = new ArrayList<>();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * A puzzle anyone can play, and what's needed to rebuild its solution.
+     */
+    public record SeededPuzzle(Long id, int size, long seed) {
+        /**
+         * @return The cells JSON the puzzle was saved with, which validates as complete
+         */
+        public String solution() {
+            return PuzzleGenerator.generate(size, seed).cellsJson();
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The ids of the seeded users, in the order they were created
+     */
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    /**
+     * @param index - The position of the user, from 0 to the number of users
+     * @return The username of that seeded user
+     */
+    public static String username(int index) {
+        return "loadtest_" + index;
+    }
+
+    /**
+     * @return The seeded puzzles whose status is PUBLIC
+     */
+    public List<SeededPuzzle> getPublicPuzzles() {
+        return publicPuzzles;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    // Runs before the other startup observers, so the availability filter is built from the seeded users
+    void onStart(@Observes @Priority(100) StartupEvent event) {
+        long started = System.nanoTime();
+        Random random = new Random(42);
+
+        String hashedPassword = passwordHasher.hash(PASSWORD);
+        for (int start = 0; start < userCount; start += BATCH_SIZE) {
+            int end = Math.min(userCount, start + BATCH_SIZE);
+            int first = start;
+            userIds.addAll(QuarkusTransaction.requiringNew().call(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = first; i < end; i++) {
+                    User user = new User(username(i), hashedPassword, username(i) + "@example.com");
+                    user.persist();
+                    ids.add(user.getID());
+                }
+                return ids;
+            }));
+        }
+
+        List<Long> puzzleIds = new ArrayList<>();
+        for (int start = 0; start < puzzleCount; start += BATCH_SIZE) {
+            int end = Math.min(puzzleCount, start + BATCH_SIZE);
+            List<SeededPuzzle> batch = new ArrayList<>();
+            List<Status> statuses = new ArrayList<>();
+            List<Long> creators = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                batch.add(new SeededPuzzle(null, SIZES[random.nextInt(SIZES.length)], i));
+                int roll = random.nextInt(10);
+                statuses.add(roll < 8 ? Status.PUBLIC : roll == 8 ? Status.UNLISTED : Status.PRIVATE);
+                creators.add(userIds.get(random.nextInt(userIds.size())));
+            }
+
+            List<Long> ids = QuarkusTransaction.requiringNew().call(() -> {
+                List<Long> saved = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    SeededPuzzle seeded = batch.get(i);
+                    PuzzleGenerator.Generated generated = PuzzleGenerator.generate(seeded.size(), seeded.seed());
+                    User creator = User.getEntityManager().getReference(User.class, creators.get(i));
+                    Puzzle puzzle = new Puzzle(creator, "Load test puzzle " + seeded.seed(),
+                            "A generated " + seeded.size() + "x" + seeded.size() + " puzzle",
+                            generated.cellsJson(), generated.hintsJson(), statuses.get(i));
+                    puzzle.persist();
+                    saved.add(puzzle.getID());
+                }
+                return saved;
+            });
+
+            for (int i = 0; i < batch.size(); i++) {
+                puzzleIds.add(ids.get(i));
+                if (statuses.get(i) == Status.PUBLIC) {
+                    SeededPuzzle seeded = batch.get(i);
+                    publicPuzzles.add(new SeededPuzzle(ids.get(i), seeded.size(), seeded.seed()));
+                }
+            }
+        }
+
+        long likes = 0;
+        for (int start = 0; start < likeCount; start += BATCH_SIZE) {
+            int end = Math.min(likeCount, start + BATCH_SIZE);
+            Map<Long, Integer> added = new HashMap<>();
+            List<long[]> pairs = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                pairs.add(new long[] { userIds.get(random.nextInt(userIds.size())),
+                        puzzleIds.get(random.nextInt(puzzleIds.size())) });
+            }
+
+            likes += QuarkusTransaction.requiringNew().call(() -> {
+                for (long[] pair : pairs) {
+                    if (PuzzleMark.add(pair[0], MarkType.LIKED, pair[1])) {
+                        added.merge(pair[1], 1, Integer::sum);
+                    }
+                }
+                added.forEach((puzzleId, count) -> Puzzle.update("likeCount = likeCount + ?1 where id = ?2",
+                        count, puzzleId));
+                return added.values().stream().mapToLong(Integer::longValue).sum();
+            });
+        }
+
+        LOG.infof("Seeded %d users, %d puzzles (%d public) and %d likes in %d ms.", userIds.size(), puzzleIds.size(),
+                publicPuzzles.size(), likes, (System.nanoTime() - started) / 1_000_000);
+    }
+}
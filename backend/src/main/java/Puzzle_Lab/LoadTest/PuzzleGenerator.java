@@ -0,0 +1,77 @@
+package Puzzle_Lab.LoadTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Enums.Direction;
+
+/**
+ * Generates realistic puzzles for load tests and benchmarks: a square grid with
+ * roughly one blocked cell in six, labels on every word start and one hint per
+ * word. The same size and seed always give exactly the same JSON, so a load
+ * driver can rebuild a seeded puzzle's solution instead of keeping it in memory.
+ */
+public final class PuzzleGenerator {
+    private PuzzleGenerator() {
+    }
+
+    /**
+     * The cells and hints JSON of one generated puzzle.
+     */
+    public record Generated(String cellsJson, String hintsJson) {
+    }
+
+    /**
+     * @param size - The number of rows and columns
+     * @param seed - Picks the blocks, letters and so on
+     * @return The cells and hints JSON of a size x size puzzle
+     */
+    public static Generated generate(int size, long seed) {
+        Random random = new Random(seed);
+        boolean[][] blocked = new boolean[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                blocked[r][c] = random.nextInt(6) == 0;
+            }
+        }
+
+        List<List<Puzzle.Cell>> cells = new ArrayList<>();
+        List<Puzzle.Hint> hints = new ArrayList<>();
+        int label = 0;
+        for (int r = 0; r < size; r++) {
+            List<Puzzle.Cell> row = new ArrayList<>();
+            for (int c = 0; c < size; c++) {
+                if (blocked[r][c]) {
+                    row.add(new Puzzle.Cell(' ', 0, 0, 0));
+                    continue;
+                }
+                boolean startsAcross = (c == 0 || blocked[r][c - 1]) && c + 1 < size && !blocked[r][c + 1];
+                boolean startsDown = (r == 0 || blocked[r - 1][c]) && r + 1 < size && !blocked[r + 1][c];
+                int cellLabel = 0;
+                if (startsAcross || startsDown) {
+                    cellLabel = ++label;
+                    if (startsAcross) {
+                        hints.add(new Puzzle.Hint("A clue for " + cellLabel + " across, about this long", cellLabel, Direction.ACROSS));
+                    }
+                    if (startsDown) {
+                        hints.add(new Puzzle.Hint("A clue for " + cellLabel + " down, about this long", cellLabel, Direction.DOWN));
+                    }
+                }
+                char letter = (char) ('A' + random.nextInt(26));
+                row.add(new Puzzle.Cell(letter, cellLabel, startsAcross ? cellLabel : 0, startsDown ? cellLabel : 0));
+            }
+            cells.add(row);
+        }
+
+        try {
+            return new Generated(ResponseBody.MAPPER.writeValueAsString(cells), ResponseBody.MAPPER.writeValueAsString(hints));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
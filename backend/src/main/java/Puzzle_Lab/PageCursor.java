@@ -0,0 +1,112 @@
+package Puzzle_Lab;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+
+import Puzzle_Lab.Entities.PuzzleSummary;
+
+/**
+ * An opaque position in a puzzle feed, used for keyset (cursor) pagination.
+ *
+ * Feeds are ordered by lastUpdated and then id, both descending. A cursor
+ * remembers the (lastUpdated, id) of the last puzzle on a page, and the next
+ * page starts right after it. Unlike page/limit this never has to skip over
+ * earlier rows, so deep pages cost the same as the first one, and puzzles added
+ * in the meantime can't shift rows onto the next page twice.
+ */
+public final class PageCursor {
+    /**
+     * The order every puzzle feed is sorted in. The id breaks ties between puzzles
+     * updated on the same day so the order is stable.
+     */
+    public static final Sort FEED_ORDER = Sort.by("lastUpdated", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
+
+    /**
+     * A query condition that only matches puzzles after the cursor in FEED_ORDER.
+     * Its parameters are added with addTo().
+     */
+    public static final String AFTER = "(lastUpdated < :cursorDate or (lastUpdated = :cursorDate and id < :cursorId))";
+
+    private static final String PREFIX = "v1:"; // Lets the token format change later without breaking old clients badly
+
+    private final LocalDate lastUpdated;
+    private final long id;
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param lastUpdated - The lastUpdated of the last puzzle on the page
+     * @param id - The id of the last puzzle on the page
+     */
+    public PageCursor(LocalDate lastUpdated, long id) {
+        this.lastUpdated = lastUpdated;
+        this.id = id;
+    }
+
+    /**
+     * Reads a cursor previously returned as "nextCursor".
+     *
+     * @param token - The opaque cursor token
+     * @return The decoded cursor
+     * @throws IllegalArgumentException If the token wasn't made by encode()
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!text.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Unknown cursor format.");
+            }
+
+            String[] parts = text.substring(PREFIX.length()).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unknown cursor format.");
+            }
+            return new PageCursor(LocalDate.ofEpochDay(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+
+    /**
+     * @param page - A page of puzzles in FEED_ORDER
+     * @param limit - The number of puzzles that were asked for
+     * @return A token for the page after this one, or null if this was the last page
+     */
+    public static String next(List<PuzzleSummary> page, int limit) {
+        if (page.isEmpty() || page.size() < limit) {
+            return null;
+        }
+        PuzzleSummary last = page.get(page.size() - 1);
+        return new PageCursor(last.getLastUpdated(), last.getID()).encode();
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The cursor as an opaque, URL safe token
+     */
+    public String encode() {
+        String text = PREFIX + lastUpdated.toEpochDay() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds the parameters used by the AFTER condition.
+     *
+     * @param parameters - The parameters of the rest of the query
+     * @return The same parameters, for chaining
+     */
+    public Parameters addTo(Parameters parameters) {
+        return parameters.and("cursorDate", lastUpdated).and("cursorId", id);
+    }
+}
@@ -0,0 +1,208 @@
+package Puzzle_Lab;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Hashes and verifies passwords with BCrypt on a small dedicated thread pool.
+ *
+ * BCrypt is deliberately slow, so a burst of logins would otherwise keep every
+ * request thread busy and stall the rest of the API. The pool has a fixed number
+ * of threads and a short queue. When both are full the call fails straight away
+ * with a BusyException, which is answered with 429 Too Many Requests, instead of
+ * piling up more waiting requests.
+ *
+ * New hashes use the work factor from puzzlelab.bcrypt.log-rounds. Hashes made
+ * with a different work factor still verify, and needsRehash() tells the caller
+ * to replace them the next time the plaintext password is known.
+ */
+@ApplicationScoped
+public class PasswordHasher {
+    @ConfigProperty(name = "puzzlelab.bcrypt.log-rounds", defaultValue = "10")
+    int logRounds;
+
+    @ConfigProperty(name = "puzzlelab.bcrypt.threads", defaultValue = "0")
+    int configuredThreads;
+
+    @ConfigProperty(name = "puzzlelab.bcrypt.queue-size", defaultValue = "32")
+    int queueSize;
+
+    private int threads;
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram hashTime = new LatencyHistogram(); // Time spent in BCrypt itself
+    private final LatencyHistogram waitTime = new LatencyHistogram(); // Time callers waited, queueing included
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Thrown when the hashing pool and its queue are both full.
+     */
+    public static class BusyException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        private BusyException(long retryAfterSeconds) {
+            super("Too many password checks are in progress.");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        /**
+         * @return A rough number of seconds after which the pool should have room again
+         */
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param password - The plaintext password
+     * @return The BCrypt hash of the password, made with the configured work factor
+     * @throws BusyException If the pool has no room for another hash
+     */
+    public String hash(String password) {
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(logRounds)));
+    }
+
+    /**
+     * @param password - The plaintext password
+     * @param hash - A BCrypt hash, or null
+     * @return True if the password matches the hash, false if it doesn't or the hash is null
+     * @throws BusyException If the pool has no room for another check
+     */
+    public boolean verify(String password, String hash) {
+        if (hash == null) {
+            return false;
+        }
+        return run(() -> BCrypt.checkpw(password, hash));
+    }
+
+    /**
+     * @param hash - A BCrypt hash
+     * @return True if the hash wasn't made with the configured work factor
+     */
+    public boolean needsRehash(String hash) {
+        // BCrypt hashes look like $2a$10$..., where 10 is the work factor
+        try {
+            return Integer.parseInt(hash.substring(4, 6)) != logRounds;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return The size of the pool, how many hashes were done or turned away, and how long they took
+     */
+    public Map<String, Object> getStats() {
+        long done = completed.sum();
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("threads", threads);
+        fields.put("active", executor.getActiveCount());
+        fields.put("queued", executor.getQueue().size());
+        fields.put("completed", done);
+        fields.put("rejected", rejected.sum());
+        fields.put("averageMillis", done == 0 ? 0 : totalNanos.sum() / done / 1_000_000.0);
+        fields.put("hashTime", hashTime.getSummary());
+        fields.put("waitTime", waitTime.getSummary());
+
+        return fields;
+    }
+
+    @PostConstruct
+    void start() {
+        // 0 means one thread per core, BCrypt is pure CPU work
+        threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueSize, 1)),
+                task -> {
+                    Thread thread = new Thread(task, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     */
+    private <T> T run(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    totalNanos.add(nanos);
+                    hashTime.recordNanos(nanos);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException(estimateWaitSeconds());
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime; // For example BCrypt rejecting a malformed hash
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            waitTime.recordNanos(System.nanoTime() - submitted);
+        }
+    }
+
+    /**
+     * Roughly how long it takes to work through a full queue, from the average hash time.
+     */
+    private long estimateWaitSeconds() {
+        long done = completed.sum();
+        if (done == 0) {
+            return 1;
+        }
+        double averageNanos = (double) totalNanos.sum() / done;
+        double queueNanos = averageNanos * (executor.getQueue().size() + threads) / threads;
+        return Math.max(1, (long) Math.ceil(queueNanos / 1_000_000_000.0));
+    }
+}
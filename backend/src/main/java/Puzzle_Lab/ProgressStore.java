@@ -0,0 +1,305 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+
+import Puzzle_Lab.Entities.PuzzleSolution;
+import Puzzle_Lab.Entities.SolveProgress;
+
+/**
+ * Keeps the in-progress letters of every active solve, so the play page can
+ * autosave every few seconds without a database write per save.
+ *
+ * Autosaves only send the cells that changed since the last one, and they're
+ * merged into the solve's letters in memory. Every flush-interval the solves that
+ * changed are upserted in one JDBC batch, a row per solve no matter how many
+ * autosaves it had, so a crash loses at most one interval of typing. Solves that
+ * haven't changed for idle-timeout are dropped from memory and read back from
+ * their row if the player returns.
+ */
+@ApplicationScoped
+public class ProgressStore {
+    private static final Logger LOG = Logger.getLogger(ProgressStore.class);
+
+    @ConfigProperty(name = "puzzlelab.progress.idle-timeout", defaultValue = "10m")
+    Duration idleTimeout;
+
+    private final ConcurrentHashMap<Key, Solve> solves = new ConcurrentHashMap<>();
+    private final LatencyHistogram flushTime = new LatencyHistogram();
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder edits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    private record Key(Long userId, Long puzzleId) {
+    }
+
+    /**
+     * One user's solve of one puzzle. Guarded by its own lock, and retired once it's
+     * removed from the map so a save that raced with the removal starts a new one.
+     */
+    private static class Solve {
+        char[] letters; // Null until read from the database
+        long revision; // Bumped by every save
+        long savedRevision; // The revision last written to the database
+        long lastTouched = System.nanoTime();
+        boolean retired = false;
+    }
+
+    /**
+     * A letter typed in (or cleared from) one cell.
+     *
+     * @param row - The cell's row, from 0
+     * @param col - The cell's column, from 0
+     * @param letter - The letter, or null, "" or "." if the cell was cleared
+     */
+    public record Edit(int row, int col, String letter) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Merges a batch of edits into a user's progress. Later edits to the same cell win.
+     *
+     * @param userId - The id of the user
+     * @param puzzleId - The id of the puzzle
+     * @param rows - The number of rows in the puzzle's grid
+     * @param cols - The number of columns in the puzzle's grid
+     * @param changes - The cells that changed since the last save
+     * @return The progress's new revision
+     * @throws IllegalArgumentException If an edit is outside the grid or isn't a single letter
+     */
+    public long save(Long userId, Long puzzleId, int rows, int cols, List<Edit> changes) {
+        int[] cells = new int[changes.size()];
+        char[] letters = new char[changes.size()];
+        for (int i = 0; i < changes.size(); i++) {
+            Edit edit = changes.get(i);
+            if (edit == null || edit.row() < 0 || edit.row() >= rows || edit.col() < 0 || edit.col() >= cols) {
+                throw new IllegalArgumentException("Every edit must be a cell inside the " + rows + "x" + cols + " grid.");
+            }
+            cells[i] = edit.row() * cols + edit.col();
+            letters[i] = toLetter(edit.letter());
+        }
+
+        Key key = new Key(userId, puzzleId);
+        SolveProgress.Snapshot saved = null;
+        boolean read = false;
+        while (true) {
+            Solve solve = solves.computeIfAbsent(key, k -> new Solve());
+            synchronized (solve) {
+                if (solve.retired) {
+                    continue; // A flush is removing this solve, use the one that replaces it
+                }
+                boolean needsLetters = solve.letters == null || solve.letters.length != rows * cols;
+                if (!needsLetters || read) {
+                    if (needsLetters) {
+                        start(solve, saved, rows * cols);
+                    }
+                    for (int i = 0; i < cells.length; i++) {
+                        solve.letters[cells[i]] = letters[i];
+                    }
+                    solve.revision++;
+                    solve.lastTouched = System.nanoTime();
+                    saves.increment();
+                    edits.add(cells.length);
+                    return solve.revision;
+                }
+            }
+            // Read without the solve's lock, so flushes and the player's other saves don't wait on the database
+            saved = SolveProgress.find(userId, puzzleId);
+            loads.increment();
+            read = true;
+        }
+    }
+
+    /**
+     * Returns a user's progress with every save so far merged in, from memory if the
+     * solve is active and otherwise from its row.
+     *
+     * @param userId - The id of the user
+     * @param puzzleId - The id of the puzzle
+     * @param cells - The number of cells in the puzzle's grid
+     * @return The progress, or null if the user hasn't saved any for the puzzle's current grid
+     */
+    public SolveProgress.Snapshot get(Long userId, Long puzzleId, int cells) {
+        Solve solve = solves.get(new Key(userId, puzzleId));
+        if (solve != null) {
+            synchronized (solve) {
+                if (!solve.retired && solve.letters != null && solve.letters.length == cells) {
+                    return new SolveProgress.Snapshot(userId, puzzleId, new String(solve.letters), solve.revision);
+                }
+            }
+        }
+
+        SolveProgress.Snapshot saved = SolveProgress.find(userId, puzzleId);
+        return saved == null || saved.letters().length() != cells ? null : saved;
+    }
+
+    /**
+     * Drops the unsaved progress of every solve of a puzzle, for when it's deleted.
+     * Its rows must be deleted by the caller, after this returns. Waits for a
+     * running flush, so none can write the puzzle's rows back once they're deleted.
+     *
+     * @param puzzleId - The id of the puzzle
+     */
+    public synchronized void discardPuzzle(Long puzzleId) {
+        solves.forEach((key, solve) -> {
+            if (key.puzzleId().equals(puzzleId)) {
+                retire(key, solve);
+            }
+        });
+    }
+
+    /**
+     * Drops the unsaved progress of every solve by a user, for when they're deleted.
+     * Their rows must be deleted by the caller, after this returns. Waits for a
+     * running flush, like discardPuzzle.
+     *
+     * @param userId - The id of the user
+     */
+    public synchronized void discardUser(Long userId) {
+        solves.forEach((key, solve) -> {
+            if (key.userId().equals(userId)) {
+                retire(key, solve);
+            }
+        });
+    }
+
+    /**
+     * Writes every solve that changed since the last flush in one batch, and drops
+     * solves that have been idle for idle-timeout. Solves that fail to write stay
+     * changed and are written by the next flush. Solves discarded before the
+     * flush started are skipped, and discarding waits for the flush to finish.
+     */
+    @Scheduled(every = "{puzzlelab.progress.flush-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public synchronized void flush() {
+        long now = System.nanoTime();
+        List<SolveProgress.Snapshot> changed = new ArrayList<>();
+        List<Solve> changedSolves = new ArrayList<>();
+        solves.forEach((key, solve) -> {
+            synchronized (solve) {
+                if (solve.retired || solve.letters == null) {
+                    return;
+                }
+                if (solve.revision != solve.savedRevision) {
+                    changed.add(new SolveProgress.Snapshot(key.userId(), key.puzzleId(), new String(solve.letters), solve.revision));
+                    changedSolves.add(solve);
+                } else if (now - solve.lastTouched > idleTimeout.toNanos()) {
+                    retire(key, solve);
+                    evictions.increment();
+                }
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        try {
+            QuarkusTransaction.requiringNew().run(() -> SolveProgress.saveAll(changed));
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write the progress of " + changed.size() + " solves, keeping it for the next flush", e);
+            failedFlushes.increment();
+            return;
+        }
+
+        for (int i = 0; i < changed.size(); i++) {
+            Solve solve = changedSolves.get(i);
+            synchronized (solve) {
+                solve.savedRevision = Math.max(solve.savedRevision, changed.get(i).revision());
+            }
+        }
+        flushedRows.add(changed.size());
+        flushTime.recordNanos(System.nanoTime() - now);
+    }
+
+    /**
+     * @return How many solves are active and unsaved, and how saves and flushes have gone so far
+     */
+    public Map<String, Object> getStats() {
+        int unsaved = 0;
+        for (Solve solve : solves.values()) {
+            synchronized (solve) {
+                if (solve.revision != solve.savedRevision) {
+                    unsaved++;
+                }
+            }
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("activeSolves", solves.size());
+        fields.put("unsavedSolves", unsaved);
+        fields.put("saves", saves.sum());
+        fields.put("edits", edits.sum());
+        fields.put("loads", loads.sum());
+        fields.put("flushedRows", flushedRows.sum());
+        fields.put("failedFlushes", failedFlushes.sum());
+        fields.put("evictions", evictions.sum());
+        fields.put("flushTime", flushTime.getSummary());
+
+        return fields;
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush(); // Don't lose the last few seconds of typing when the backend stops
+    }
+
+    /**
+     * Starts a solve from its saved letters, or empty if there are none for this
+     * grid. Called with the solve's lock held.
+     *
+     * @param saved - The solve's row, read before the lock was taken, or null if it has none
+     */
+    private void start(Solve solve, SolveProgress.Snapshot saved, int cells) {
+        if (saved != null && saved.letters().length() == cells) {
+            solve.letters = saved.letters().toCharArray();
+        } else {
+            solve.letters = new char[cells];
+            Arrays.fill(solve.letters, PuzzleSolution.BLOCKED);
+        }
+        // Continue from the saved revision so the row is only ever replaced by newer letters
+        long revision = saved == null ? 0 : saved.revision();
+        solve.revision = Math.max(solve.revision, revision);
+        solve.savedRevision = solve.revision;
+    }
+
+    private void retire(Key key, Solve solve) {
+        synchronized (solve) {
+            solve.retired = true;
+            solves.remove(key, solve);
+        }
+    }
+
+    private static char toLetter(String letter) {
+        if (letter == null || letter.isEmpty() || letter.equals(String.valueOf(PuzzleSolution.BLOCKED))) {
+            return PuzzleSolution.BLOCKED;
+        }
+        if (letter.length() != 1) {
+            throw new IllegalArgumentException("Every edit must be a single letter, or empty to clear the cell.");
+        }
+        return PuzzleSolution.pack(letter.charAt(0)); // Packed like attempts, so saved progress can be checked as-is
+    }
+}
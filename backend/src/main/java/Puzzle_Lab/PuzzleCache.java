@@ -0,0 +1,458 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleSolution;
+import Puzzle_Lab.Enums.Status;
+
+/**
+ * Holds the fully rendered play and edit JSON of recently requested puzzles, so
+ * a popular puzzle is served from one map lookup instead of database queries
+ * and Jackson passes.
+ *
+ * Play responses of at least puzzlelab.compression.min-bytes are also kept
+ * gzipped, compressed once at the best level when the puzzle is cached, and sent
+ * as-is to clients that accept gzip. That saves the bandwidth without spending
+ * CPU on compression for every request of a hot puzzle.
+ *
+ * The cache is bounded by the approximate number of bytes it holds and evicts
+ * the least recently used puzzles first. Anything that changes a puzzle must call
+ * invalidate() so the next request renders the new version.
+ *
+ * Hits take no lock. A miss registers a token for its puzzle while it renders,
+ * and invalidating the puzzle drops the token, so a render that raced with a
+ * change to that puzzle is thrown away without touching renders of other puzzles.
+ */
+@ApplicationScoped
+public class PuzzleCache {
+    /**
+     * The message of a successful GET /puzzles/{id}, part of the precompressed play response.
+     */
+    public static final String FOUND_MESSAGE = "Successfully obtained puzzle.";
+
+    @ConfigProperty(name = "puzzlelab.puzzle-cache.max-bytes", defaultValue = "33554432")
+    long maxBytes;
+
+    @ConfigProperty(name = "puzzlelab.compression.min-bytes", defaultValue = "1024")
+    int compressMinBytes;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>(256);
+    // The puzzles being rendered. A render may only store its entry while its token is still here.
+    private final ConcurrentHashMap<Long, Object> loading = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder gzipNanos = new LongAdder();
+    private final LongAdder gzipServed = new LongAdder();
+    private final LongAdder gzipBytesSaved = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * One rendered version of a puzzle. Keeps the creator and status next to the
+     * JSON so access checks don't need the entity.
+     */
+    public static class Entry {
+        private final Long id;
+        private final long version;
+        private final Long creatorId;
+        private final Status status;
+        private final String playJson;
+        private final String editJson;
+        private final int playResponseBytes;
+        private final byte[] playResponseGzip; // Null when the play response is too small to be worth it
+        private final PuzzleSolution solution;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(Puzzle puzzle, int compressMinBytes) {
+            this.id = puzzle.getID();
+            this.version = puzzle.getVersion();
+            this.creatorId = puzzle.getCreator().getID();
+            this.status = puzzle.getStatus();
+            this.playJson = render(puzzle.getEmptyDTO());
+            this.editJson = render(puzzle.getFullDTO());
+            this.solution = puzzle.getSolution();
+
+            byte[] playResponse = new ResponseBody(Response.Status.OK)
+                    .addMessage(FOUND_MESSAGE)
+                    .addObject("puzzle", new RawValue(playJson))
+                    .toBytes();
+            this.playResponseBytes = playResponse.length;
+            this.playResponseGzip = playResponse.length >= compressMinBytes ? gzip(playResponse) : null;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public Long getCreatorId() {
+            return creatorId;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return The puzzle with its cells cleared, as a JSON object
+         */
+        public String getPlayJson() {
+            return playJson;
+        }
+
+        /**
+         * @return The solved puzzle, as a JSON object
+         */
+        public String getEditJson() {
+            return editJson;
+        }
+
+        /**
+         * @return The whole play response (status, message and puzzle) gzipped, or null
+         *         if it's small enough to send uncompressed
+         */
+        public byte[] getPlayResponseGzip() {
+            return playResponseGzip;
+        }
+
+        /**
+         * Marks the entry as used now, for eviction. Skipped when it was already
+         * used in the last millisecond, so threads sharing a hot puzzle don't all
+         * write to it.
+         */
+        private void touch() {
+            long now = System.nanoTime();
+            if (now - lastUsed > 1_000_000) {
+                lastUsed = now;
+            }
+        }
+
+        /**
+         * @return Roughly how many bytes of heap this entry holds
+         */
+        private long weight() {
+            long gzipBytes = playResponseGzip == null ? 0 : playResponseGzip.length;
+            return 2L * (playJson.length() + editJson.length() + solution.getLetters().length()) + gzipBytes + 192;
+        }
+    }
+
+    /**
+     * The parts of a puzzle needed to check an ETag and who may see it.
+     */
+    public record Stamp(long version, Long creatorId, Status status) {
+    }
+
+    /**
+     * A puzzle's answers, along with what's needed to check who may see it.
+     */
+    public record AnswerKey(Stamp stamp, PuzzleSolution solution) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Returns the rendered puzzle, loading and rendering it if it isn't cached.
+     *
+     * @param id - The id of the puzzle
+     * @return The cached entry, or null if there is no puzzle with that id
+     */
+    public Entry get(Long id) {
+        Entry cached = entries.get(id);
+        if (cached != null) {
+            hits.increment();
+            cached.touch();
+            return cached;
+        }
+        misses.increment();
+
+        Object token = new Object();
+        loading.put(id, token);
+        try {
+            Puzzle puzzle = Puzzle.findById(id);
+            if (puzzle == null) {
+                return null;
+            }
+
+            long start = System.nanoTime();
+            Entry entry = new Entry(puzzle, compressMinBytes);
+            if (entry.playResponseGzip != null) {
+                gzipNanos.add(System.nanoTime() - start); // Includes rendering, an upper bound on the compression cost
+            }
+            put(entry, token);
+            return entry;
+        } finally {
+            loading.remove(id, token);
+        }
+    }
+
+    /**
+     * Records that an entry's precompressed play response was sent, for getStats().
+     *
+     * @param entry - The entry whose gzipped response was sent
+     */
+    public void recordGzipServed(Entry entry) {
+        gzipServed.increment();
+        gzipBytesSaved.add(entry.playResponseBytes - entry.playResponseGzip.length);
+    }
+
+    /**
+     * Returns a puzzle's version, creator and status without rendering it. Uses the
+     * cached entry if there is one, otherwise a query of three plain columns that
+     * never touches the cells or hints.
+     *
+     * @param id - The id of the puzzle
+     * @return The puzzle's stamp, or null if there is no puzzle with that id
+     */
+    public Stamp getStamp(Long id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            hits.increment();
+            entry.touch();
+            return new Stamp(entry.version, entry.creatorId, entry.status);
+        }
+
+        List<Object[]> rows = Puzzle.getEntityManager()
+                .createQuery("select p.version, p.creator.id, p.status from Puzzle p where p.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        return new Stamp(row[0] == null ? 0 : (Long) row[0], (Long) row[1], (Status) row[2]);
+    }
+
+    /**
+     * Returns a puzzle's answers for checking a player's attempt. Uses the cached
+     * entry if there is one, otherwise a query of the packed solution columns that
+     * never touches the cells or hints.
+     *
+     * @param id - The id of the puzzle
+     * @return The puzzle's answer key, or null if there is no puzzle with that id
+     */
+    public AnswerKey getAnswerKey(Long id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            hits.increment();
+            entry.touch();
+            return new AnswerKey(new Stamp(entry.version, entry.creatorId, entry.status), entry.solution);
+        }
+
+        List<Object[]> rows = Puzzle.getEntityManager()
+                .createQuery("select p.version, p.creator.id, p.status, p.gridRows, p.gridCols, p.solution, p.solutionDigest"
+                        + " from Puzzle p where p.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        Stamp stamp = new Stamp(row[0] == null ? 0 : (Long) row[0], (Long) row[1], (Status) row[2]);
+        if (row[5] == null || row[6] == null) {
+            // Saved before solutions were packed, so it has to be packed from the cells
+            Puzzle puzzle = Puzzle.findById(id);
+            return puzzle == null ? null : new AnswerKey(stamp, puzzle.getSolution());
+        }
+        return new AnswerKey(stamp, PuzzleSolution.of((Integer) row[3], (Integer) row[4], (String) row[5], (String) row[6]));
+    }
+
+    /**
+     * Drops a puzzle from the cache. If called inside a transaction, the puzzle is
+     * dropped again once the transaction finishes so a request that read the old
+     * row in the meantime can't leave it cached.
+     *
+     * @param id - The id of the puzzle that changed
+     */
+    public void invalidate(Long id) {
+        remove(id);
+        afterTransaction(() -> remove(id));
+    }
+
+    /**
+     * Drops every puzzle made by a user, since each one embeds the creator's public details.
+     *
+     * @param creatorId - The id of the user that changed
+     */
+    public void invalidateCreator(Long creatorId) {
+        removeCreator(creatorId);
+        afterTransaction(() -> removeCreator(creatorId));
+    }
+
+    private void removeCreator(Long creatorId) {
+        // A render in progress doesn't know its creator yet, so every one of them is dropped. Users change
+        // their details rarely enough that this costs a few extra misses at most.
+        loading.clear();
+        for (Entry entry : entries.values()) {
+            if (entry.creatorId.equals(creatorId) && entries.remove(entry.id, entry)) {
+                totalBytes.addAndGet(-entry.weight());
+            }
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction finishes, if there is one.
+     */
+    private void afterTransaction(Runnable action) {
+        if (transactions.getTransactionStatus() != jakarta.transaction.Status.STATUS_ACTIVE) {
+            return;
+        }
+
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * @return Hit, miss and eviction counts along with the current size of the cache
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("hits", hitCount);
+        fields.put("misses", missCount);
+        fields.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        fields.put("evictions", evictions.sum());
+        fields.put("entries", entries.size());
+        fields.put("bytes", totalBytes.get());
+        fields.put("maxBytes", maxBytes);
+        fields.put("gzipServed", gzipServed.sum());
+        fields.put("gzipBytesSaved", gzipBytesSaved.sum());
+        fields.put("gzipMillis", gzipNanos.sum() / 1_000_000.0);
+
+        return fields;
+    }
+
+    /**
+     * Stores a rendered entry, unless its puzzle was invalidated while it was
+     * being rendered. Runs under the lock of the puzzle's token, the same one
+     * remove() takes, so a puzzle can't be invalidated between the check and the store.
+     */
+    private void put(Entry entry, Object token) {
+        loading.computeIfPresent(entry.id, (id, current) -> {
+            if (current == token) {
+                Entry previous = entries.put(id, entry);
+                totalBytes.addAndGet(entry.weight() - (previous == null ? 0 : previous.weight()));
+            }
+            return current;
+        });
+
+        if (totalBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Evicts the least recently used puzzles until the cache is back under 15/16
+     * of max-bytes, so a full cache sorts its entries once every few misses
+     * instead of on every one.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            if (totalBytes.get() <= maxBytes) {
+                return; // Another thread already made room
+            }
+
+            // lastUsed keeps changing while this sorts, so sort a copy of it
+            record Aged(Entry entry, long lastUsed) {
+            }
+            List<Aged> byAge = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                byAge.add(new Aged(entry, entry.lastUsed));
+            }
+            byAge.sort(Comparator.comparingLong(Aged::lastUsed));
+
+            long target = maxBytes - maxBytes / 16;
+            for (Aged aged : byAge) {
+                if (totalBytes.get() <= target) {
+                    break;
+                }
+                Entry eldest = aged.entry();
+                if (entries.remove(eldest.id, eldest)) {
+                    totalBytes.addAndGet(-eldest.weight());
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private void remove(Long id) {
+        // Taking the token's lock waits out a put() of the same puzzle, and dropping the token stops any
+        // render still in progress from storing what it read
+        loading.compute(id, (key, token) -> {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                totalBytes.addAndGet(-entry.weight());
+            }
+            return null;
+        });
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        // Compressed once per version and then sent many times, so the slowest level pays off
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String render(Map<String, Object> fields) {
+        try {
+            return ResponseBody.MAPPER.writeValueAsString(fields);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to render puzzle JSON.", e);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleMark;
+import Puzzle_Lab.Enums.MarkType;
+
+/**
+ * Keeps the like and favorite counts of puzzles without locking the puzzle row
+ * on every click.
+ *
+ * Liking only writes the user's PuzzleMark row, which is idempotent thanks to a
+ * unique key, so it never touches the puzzle or loads the user. The change in
+ * count is added to a striped in-memory accumulator (LongAdder), so many users
+ * liking the same puzzle don't contend on one lock. Every few seconds the
+ * accumulated changes are written to the puzzles in one batched transaction, and
+ * counts shown to users are at most one flush interval behind.
+ *
+ * A crash loses the changes that weren't flushed yet, but never the marks, so on
+ * every start and every recount-interval the counts are recomputed from the
+ * marks. With several instances running, a change another instance hasn't
+ * flushed yet can be counted twice until the next recount.
+ */
+@ApplicationScoped
+public class PuzzleCounters {
+    private static final Logger LOG = Logger.getLogger(PuzzleCounters.class);
+
+    @Inject
+    PuzzleCache puzzleCache;
+
+    @ConfigProperty(name = "puzzlelab.counters.recount-batch-size", defaultValue = "1000")
+    int recountBatchSize;
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder flushedPuzzles = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder recountedPuzzles = new LongAdder();
+    private final LongAdder failedRecounts = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * The changes to one puzzle's counts that haven't been written yet.
+     *
+     * A flush retires an entry once it stops changing. Writers register themselves
+     * in activeWriters before checking retired, and the flush waits for them to
+     * leave before its final drain, so no change can be lost in between.
+     */
+    private static class Pending {
+        final LongAdder likes = new LongAdder();
+        final LongAdder favorites = new LongAdder();
+        final LongAdder activeWriters = new LongAdder();
+        volatile boolean retired = false;
+    }
+
+    /**
+     * One puzzle's drained changes, ready to be written.
+     */
+    private record Delta(Long puzzleId, long likes, long favorites) {
+    }
+
+    /**
+     * What one batch of a recount did.
+     */
+    private record Recount(int size, long lastId, List<Long> fixedIds) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Likes or unlikes a puzzle for a user. Doing the same thing twice has no effect.
+     *
+     * @param userId - The id of the user
+     * @param puzzleId - The id of the puzzle
+     * @param liked - True to like the puzzle, false to unlike it
+     * @return False if there is no puzzle with that id
+     */
+    public boolean setLiked(Long userId, Long puzzleId, boolean liked) {
+        Boolean changed = setMark(userId, MarkType.LIKED, puzzleId, liked);
+        if (changed == null) {
+            return false;
+        }
+        if (changed) {
+            add(puzzleId, liked ? 1 : -1, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Favorites or unfavorites a puzzle for a user. Doing the same thing twice has no effect.
+     *
+     * @param userId - The id of the user
+     * @param puzzleId - The id of the puzzle
+     * @param favorited - True to favorite the puzzle, false to unfavorite it
+     * @return False if there is no puzzle with that id
+     */
+    public boolean setFavorited(Long userId, Long puzzleId, boolean favorited) {
+        Boolean changed = setMark(userId, MarkType.FAVORITED, puzzleId, favorited);
+        if (changed == null) {
+            return false;
+        }
+        if (changed) {
+            add(puzzleId, 0, favorited ? 1 : -1);
+        }
+        return true;
+    }
+
+    /**
+     * Writes every accumulated change to the puzzles in one transaction. Changes
+     * that fail to write are kept for the next flush.
+     */
+    @Scheduled(every = "{puzzlelab.counters.flush-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public synchronized void flush() {
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+            Pending counts = entry.getValue();
+            long likes = counts.likes.sumThenReset();
+            long favorites = counts.favorites.sumThenReset();
+            if (likes != 0 || favorites != 0) {
+                deltas.add(new Delta(entry.getKey(), likes, favorites));
+            } else {
+                retire(entry.getKey(), counts, deltas);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                for (Delta delta : deltas) {
+                    // Bumping the version keeps it in step with what the puzzle's JSON shows
+                    Puzzle.update("likeCount = case when likeCount + ?1 < 0 then 0 else likeCount + ?1 end, "
+                            + "favoriteCount = case when favoriteCount + ?2 < 0 then 0 else favoriteCount + ?2 end, "
+                            + "version = version + 1 where id = ?3",
+                            (int) delta.likes(), (int) delta.favorites(), delta.puzzleId());
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write the counts of " + deltas.size() + " puzzles, keeping them for the next flush", e);
+            failedFlushes.increment();
+            for (Delta delta : deltas) {
+                add(delta.puzzleId(), delta.likes(), delta.favorites());
+            }
+            return;
+        }
+
+        for (Delta delta : deltas) {
+            puzzleCache.invalidate(delta.puzzleId());
+        }
+        flushedPuzzles.add(deltas.size());
+    }
+
+    /**
+     * Sets every puzzle's like and favorite counts to the number of marks it has,
+     * one batch of puzzles per transaction. Puzzles with changes still waiting are
+     * left for the next recount, their marks are already counted.
+     */
+    @Scheduled(every = "{puzzlelab.counters.recount-interval}", delayed = "{puzzlelab.counters.recount-interval}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public synchronized void recount() {
+        flush();
+        long afterId = 0;
+        int fixed = 0;
+        try {
+            while (true) {
+                long from = afterId;
+                Recount batch = QuarkusTransaction.requiringNew().call(() -> recountAfter(from));
+                if (batch.size() == 0) {
+                    break;
+                }
+                batch.fixedIds().forEach(puzzleCache::invalidate);
+                fixed += batch.fixedIds().size();
+                afterId = batch.lastId();
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Failed to recount the likes and favorites of puzzles after " + afterId, e);
+            failedRecounts.increment();
+        }
+
+        recountedPuzzles.add(fixed);
+        if (fixed > 0) {
+            LOG.infof("Recounted the likes and favorites of %d puzzles.", fixed);
+        }
+    }
+
+    /**
+     * @return How many changes are waiting to be written, and how flushes and recounts have gone so far
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("pendingPuzzles", pending.size());
+        fields.put("flushedPuzzles", flushedPuzzles.sum());
+        fields.put("failedFlushes", failedFlushes.sum());
+        fields.put("recountedPuzzles", recountedPuzzles.sum());
+        fields.put("failedRecounts", failedRecounts.sum());
+
+        return fields;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        recount(); // Put right whatever a crash lost before it was flushed
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush(); // Don't lose the last few seconds of likes when the backend stops
+    }
+
+    /**
+     * Adds or removes a user's mark on a puzzle, in its own transaction.
+     *
+     * @return True if the mark was added or removed, false if it was already that way,
+     *         and null if the puzzle doesn't exist
+     */
+    private Boolean setMark(Long userId, MarkType type, Long puzzleId, boolean marked) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            if (Puzzle.count("id", puzzleId) == 0) {
+                return null;
+            }
+            return marked ? PuzzleMark.add(userId, type, puzzleId) : PuzzleMark.remove(userId, type, puzzleId);
+        });
+    }
+
+    /**
+     * Recounts the next batch of puzzles in id order, fixing only those whose
+     * counts are off.
+     */
+    private Recount recountAfter(long afterId) {
+        List<Long> ids = Puzzle.getEntityManager()
+                .createQuery("select p.id from Puzzle p where p.id > ?1 order by p.id", Long.class)
+                .setParameter(1, afterId)
+                .setMaxResults(recountBatchSize)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return new Recount(0, afterId, List.of());
+        }
+
+        List<Long> idle = new ArrayList<>(ids);
+        idle.removeIf(pending::containsKey);
+        if (idle.isEmpty()) {
+            return new Recount(ids.size(), ids.get(ids.size() - 1), List.of());
+        }
+
+        String likes = "(select count(m) from PuzzleMark m where m.puzzleId = p.id and m.type = ?1)";
+        String favorites = "(select count(m) from PuzzleMark m where m.puzzleId = p.id and m.type = ?2)";
+        List<Long> wrong = Puzzle.getEntityManager()
+                .createQuery("select p.id from Puzzle p where p.id in ?3 and (p.likeCount <> " + likes
+                        + " or p.favoriteCount <> " + favorites + ")", Long.class)
+                .setParameter(1, MarkType.LIKED)
+                .setParameter(2, MarkType.FAVORITED)
+                .setParameter(3, idle)
+                .getResultList();
+        if (!wrong.isEmpty()) {
+            Puzzle.getEntityManager()
+                    .createQuery("update Puzzle p set p.likeCount = cast(" + likes + " as Integer), "
+                            + "p.favoriteCount = cast(" + favorites + " as Integer), "
+                            + "p.version = p.version + 1 where p.id in ?3")
+                    .setParameter(1, MarkType.LIKED)
+                    .setParameter(2, MarkType.FAVORITED)
+                    .setParameter(3, wrong)
+                    .executeUpdate();
+        }
+        return new Recount(ids.size(), ids.get(ids.size() - 1), wrong);
+    }
+
+    private void add(Long puzzleId, long likes, long favorites) {
+        while (true) {
+            Pending counts = pending.computeIfAbsent(puzzleId, id -> new Pending());
+            counts.activeWriters.increment();
+            try {
+                if (counts.retired) {
+                    continue; // A flush is removing this entry, use the one that replaces it
+                }
+                counts.likes.add(likes);
+                counts.favorites.add(favorites);
+                return;
+            } finally {
+                counts.activeWriters.decrement();
+            }
+        }
+    }
+
+    /**
+     * Removes an entry that had nothing to write. Any change that slipped in while
+     * it was being removed is moved into deltas.
+     */
+    private void retire(Long puzzleId, Pending counts, List<Delta> deltas) {
+        counts.retired = true;
+        pending.remove(puzzleId, counts);
+        while (counts.activeWriters.sum() != 0) {
+            Thread.onSpinWait();
+        }
+
+        long likes = counts.likes.sumThenReset();
+        long favorites = counts.favorites.sumThenReset();
+        if (likes != 0 || favorites != 0) {
+            deltas.add(new Delta(puzzleId, likes, favorites));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleRevision;
+
+/**
+ * Keeps the edit history of puzzles, so creators can go back to an earlier
+ * revision instead of every save destroying the one before it.
+ *
+ * Most revisions are stored as a delta from the one before: the cells that
+ * changed and the hints that were added, replaced or deleted, which for a typical
+ * edit is a few bytes instead of the whole grid. Every snapshot-every revisions,
+ * or sooner once the deltas add up to more than a snapshot, the whole content is
+ * stored again, so rebuilding any revision reads at most snapshot-every rows.
+ * Only the newest keep-revisions revisions are kept, older chains are deleted a
+ * whole chain at a time when a new snapshot is written.
+ */
+@ApplicationScoped
+public class PuzzleHistory {
+    @ConfigProperty(name = "puzzlelab.history.snapshot-every", defaultValue = "10")
+    int snapshotEvery;
+
+    @ConfigProperty(name = "puzzlelab.history.keep-revisions", defaultValue = "50")
+    int keepRevisions;
+
+    private final LatencyHistogram loadTime = new LatencyHistogram();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LongAdder deltaBytes = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Stores a puzzle's current content as its current revision. Must be called in
+     * the transaction that changed the puzzle, after its revision was bumped.
+     *
+     * @param puzzle - The puzzle, already changed
+     * @param before - The puzzle's content before the change, or null if it was just created
+     */
+    public void record(Puzzle puzzle, PuzzleRevision.Content before) {
+        Long puzzleId = puzzle.getID();
+        long revision = puzzle.getRevision();
+        PuzzleRevision.Content after = PuzzleRevision.Content.of(puzzle);
+        PuzzleRevision.Chain chain = PuzzleRevision.chain(puzzleId);
+
+        if (before != null && chain.latest() < revision - 1) {
+            // The revision being replaced was never stored (it's older than the history), keep it so it can be restored
+            PuzzleRevision previous = PuzzleRevision.snapshot(puzzleId, revision - 1, before);
+            write(previous);
+            chain = new PuzzleRevision.Chain(revision - 1, 1, previous.getStoredBytes(), 0);
+        }
+
+        PuzzleRevision next = null;
+        if (before != null && chain.latest() == revision - 1 && chain.length() < snapshotEvery) {
+            next = PuzzleRevision.delta(puzzleId, revision, before, after);
+            if (next != null && chain.deltaBytes() + next.getStoredBytes() > chain.snapshotBytes()) {
+                next = null; // Replaying the chain would read more than a new snapshot costs
+            }
+        }
+
+        if (next == null) {
+            write(PuzzleRevision.snapshot(puzzleId, revision, after));
+            if (revision - keepRevisions + 1 > 1) {
+                pruned.add(PuzzleRevision.deleteBefore(puzzleId, revision - keepRevisions + 1));
+            }
+        } else {
+            write(next);
+        }
+    }
+
+    /**
+     * @param puzzleId - The id of the puzzle
+     * @return Every stored revision of the puzzle, newest first
+     */
+    public List<PuzzleRevision.Summary> list(Long puzzleId) {
+        return PuzzleRevision.list(puzzleId);
+    }
+
+    /**
+     * @param puzzleId - The id of the puzzle
+     * @param revision - The revision to rebuild
+     * @return The puzzle's content at that revision, or null if it isn't stored
+     * @throws IllegalArgumentException If a stored revision can't be decoded
+     */
+    public PuzzleRevision.Content load(Long puzzleId, long revision) {
+        long start = System.nanoTime();
+        PuzzleRevision.Content content = PuzzleRevision.load(puzzleId, revision);
+        loads.increment();
+        loadTime.recordNanos(System.nanoTime() - start);
+        return content;
+    }
+
+    /**
+     * Deletes every revision of a puzzle, for when it's deleted.
+     *
+     * @param puzzleId - The id of the puzzle
+     */
+    public void deletePuzzle(Long puzzleId) {
+        PuzzleRevision.delete("puzzleId", puzzleId);
+    }
+
+    /**
+     * @return How many snapshots and deltas were written and how large they are
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("snapshots", snapshots.sum());
+        fields.put("deltas", deltas.sum());
+        fields.put("snapshotBytes", snapshotBytes.sum());
+        fields.put("deltaBytes", deltaBytes.sum());
+        fields.put("pruned", pruned.sum());
+        fields.put("loads", loads.sum());
+        fields.put("loadTime", loadTime.getSummary());
+
+        return fields;
+    }
+
+    private void write(PuzzleRevision revision) {
+        revision.persist();
+        if (revision.isSnapshot()) {
+            snapshots.increment();
+            snapshotBytes.add(revision.getStoredBytes());
+        } else {
+            deltas.increment();
+            deltaBytes.add(revision.getStoredBytes());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package Puzzle_Lab;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.persistence.LockModeType;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleIdBlock;
+
+/**
+ * Hands out the public IDs of new puzzles without looking anything up per insert.
+ *
+ * IDs come from a counter that is pushed through a keyed permutation (a small
+ * Feistel network), so consecutive puzzles get unrelated looking 6 digit IDs
+ * while two counter values can never map to the same ID. The counter is reserved
+ * from the database in blocks, with the PuzzleIdBlock row locked while a block is
+ * taken, so concurrent transactions and multiple backend instances never share
+ * counter values.
+ *
+ * When all 900,000 six digit IDs are used up the counter simply moves on to the
+ * 7 digit range (1000000 - 9999999) with the same scheme, which needs no
+ * migration since IDs are stored as numbers. Counter values in a block that an
+ * instance reserved but never used (for example when it restarts) are skipped.
+ */
+public class PuzzleIdAllocator {
+    private static final long SIX_DIGIT_START = 100000L;
+    private static final long SIX_DIGIT_COUNT = 900000L; // 100000 - 999999
+    private static final long SEVEN_DIGIT_START = 1000000L;
+    private static final long SEVEN_DIGIT_COUNT = 9000000L; // 1000000 - 9999999
+    private static final int ROUNDS = 4;
+
+    private static final long KEY = ConfigProvider.getConfig()
+            .getOptionalValue("puzzlelab.ids.key", Long.class).orElse(0x5DEECE66DL);
+    private static final int BLOCK_SIZE = ConfigProvider.getConfig()
+            .getOptionalValue("puzzlelab.ids.block-size", Integer.class).orElse(100);
+
+    // Guarded by LOCK. A ReentrantLock rather than synchronized, since reserving a block
+    // queries the database and a virtual thread blocked inside synchronized pins its carrier.
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static long nextCounter = 0;
+    private static long blockEnd = 0;
+    private static Set<Long> takenInBlock = Set.of();
+
+    private PuzzleIdAllocator() {
+    }
+
+    /**
+     * @return A puzzle ID that no other puzzle has or will be given
+     * @throws IllegalStateException If every 6 and 7 digit ID has been used
+     */
+    public static Long next() {
+        LOCK.lock();
+        try {
+            while (true) {
+                if (nextCounter >= blockEnd) {
+                    reserveBlock();
+                }
+                Long id = toId(nextCounter++);
+                if (!takenInBlock.contains(id)) {
+                    return id;
+                }
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Maps a counter value to its ID. Every counter value maps to a different ID.
+     *
+     * @param counter - The position in the counter, starting at 0
+     * @return The puzzle ID for that counter value
+     */
+    static long toId(long counter) {
+        if (counter < SIX_DIGIT_COUNT) {
+            return SIX_DIGIT_START + permute(counter, SIX_DIGIT_COUNT);
+        }
+        counter -= SIX_DIGIT_COUNT;
+        if (counter < SEVEN_DIGIT_COUNT) {
+            return SEVEN_DIGIT_START + permute(counter, SEVEN_DIGIT_COUNT);
+        }
+        throw new IllegalStateException("Every 6 and 7 digit puzzle ID has been used.");
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Locks the counter row in its own transaction and takes the next block.
+     */
+    private static void reserveBlock() {
+        long start = QuarkusTransaction.requiringNew().call(() -> {
+            PuzzleIdBlock block = PuzzleIdBlock.findById(PuzzleIdBlock.ROW_ID, LockModeType.PESSIMISTIC_WRITE);
+            if (block == null) {
+                block = new PuzzleIdBlock();
+                block.persist();
+            }
+            return block.reserve(BLOCK_SIZE);
+        });
+
+        // IDs picked by the old random generator may fall inside this block. One query per
+        // block finds them, so they're skipped instead of colliding.
+        List<Long> ids = new ArrayList<>(BLOCK_SIZE);
+        for (long counter = start; counter < start + BLOCK_SIZE; counter++) {
+            ids.add(toId(counter));
+        }
+        List<Long> taken = QuarkusTransaction.requiringNew().call(() -> Puzzle.getEntityManager()
+                .createQuery("select p.id from Puzzle p where p.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+
+        nextCounter = start;
+        blockEnd = start + BLOCK_SIZE;
+        takenInBlock = new HashSet<>(taken);
+    }
+
+    /**
+     * A keyed permutation of [0, size). A balanced Feistel network permutes the
+     * smallest even-bit power of two that fits, and values that land outside the
+     * range are fed through again (cycle walking) until they land inside it.
+     */
+    private static long permute(long value, long size) {
+        int bits = 64 - Long.numberOfLeadingZeros(size - 1);
+        int halfBits = (bits + 1) / 2;
+        long halfMask = (1L << halfBits) - 1;
+
+        long result = value;
+        do {
+            long left = result >>> halfBits;
+            long right = result & halfMask;
+            for (int round = 0; round < ROUNDS; round++) {
+                long mixed = left ^ (mix(right, round) & halfMask);
+                left = right;
+                right = mixed;
+            }
+            result = (left << halfBits) | right;
+        } while (result >= size);
+
+        return result;
+    }
+
+    /**
+     * The Feistel round function, a SplitMix64 style hash of one half and the key.
+     */
+    private static long mix(long half, int round) {
+        long z = half + KEY + round * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,137 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+
+import Puzzle_Lab.Entities.Puzzle;
+
+/**
+ * Converts puzzles whose cells and hints are still stored as JSON to
+ * PuzzleCodec's binary format, and packs the solutions of puzzles saved before
+ * solutions were, in the background while the backend serves requests.
+ *
+ * Every migration-interval one batch of unconverted puzzles is converted in its
+ * own short transaction, walking the table in id order so each batch starts where
+ * the last one stopped. Puzzles that can't be parsed are skipped and keep their
+ * JSON. Unconverted puzzles are still read from their JSON in the meantime, so
+ * nothing waits for the migration to finish.
+ */
+@ApplicationScoped
+public class PuzzleStorageMigrator {
+    private static final Logger LOG = Logger.getLogger(PuzzleStorageMigrator.class);
+
+    @Inject
+    PuzzleCache puzzleCache;
+
+    @ConfigProperty(name = "puzzlelab.storage.migration-batch-size", defaultValue = "200")
+    int batchSize;
+
+    private long afterId = 0; // The highest id already looked at, guarded by migrateBatch()
+    private volatile boolean done = false;
+    private final LatencyHistogram batchTime = new LatencyHistogram();
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * What one batch did, applied to the stats once its transaction commits.
+     */
+    private record Batch(int size, long lastId, List<Long> migratedIds, int skipped, long bytesSaved) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Converts the next batch of puzzles. A batch that fails to commit is retried
+     * by the next call. Does nothing once every puzzle has been looked at.
+     */
+    @Scheduled(every = "{puzzlelab.storage.migration-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public synchronized void migrateBatch() {
+        if (done) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Batch batch;
+        try {
+            batch = QuarkusTransaction.requiringNew().call(this::convertNext);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to convert the puzzles after " + afterId + ", the batch is retried on the next run", e);
+            failedBatches.increment();
+            return;
+        }
+
+        if (batch.size() == 0) {
+            done = true;
+            if (migrated.sum() > 0 || skipped.sum() > 0) {
+                LOG.infof("Converted %d puzzles to the binary storage format, saving %d bytes (%d skipped).",
+                        migrated.sum(), bytesSaved.sum(), skipped.sum());
+            }
+            return;
+        }
+        afterId = batch.lastId();
+        batch.migratedIds().forEach(puzzleCache::invalidate); // Cached copies were rendered from the old columns
+        migrated.add(batch.migratedIds().size());
+        skipped.add(batch.skipped());
+        bytesSaved.add(batch.bytesSaved());
+        batchTime.recordNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * @return How far the migration has got and how much space it saved
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("done", done);
+        fields.put("migrated", migrated.sum());
+        fields.put("skipped", skipped.sum());
+        fields.put("bytesSaved", bytesSaved.sum());
+        fields.put("failedBatches", failedBatches.sum());
+        fields.put("batchTime", batchTime.getSummary());
+
+        return fields;
+    }
+
+    private Batch convertNext() {
+        List<Puzzle> puzzles = Puzzle
+                .find("(cellsData is null or hintsData is null or solution is null or solutionDigest is null) and id > ?1 order by id",
+                        afterId)
+                .page(0, batchSize)
+                .list();
+
+        List<Long> migratedIds = new ArrayList<>();
+        int failed = 0;
+        long saved = 0;
+        long lastId = afterId;
+        for (Puzzle puzzle : puzzles) {
+            lastId = puzzle.getID();
+            try {
+                saved += puzzle.migrateStorage();
+                migratedIds.add(puzzle.getID());
+            } catch (IllegalArgumentException e) {
+                LOG.warnf("Puzzle %d can't be converted and keeps its JSON: %s", puzzle.getID(), e.getMessage());
+                failed++;
+            }
+        }
+        return new Batch(puzzles.size(), lastId, migratedIds, failed, saved);
+    }
+}
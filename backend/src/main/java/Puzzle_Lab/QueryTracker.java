@@ -0,0 +1,320 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.arc.Arc;
+
+/**
+ * Watches the SQL each request runs, to catch N+1 access patterns and requests
+ * that run too many statements or take too long.
+ *
+ * Statements are grouped by their shape: the SQL with literals and IN lists
+ * collapsed, so loading puzzle 5 and then puzzle 9 count as the same query.
+ * Hibernate binds values as parameters, so two statements of the same shape in
+ * one request are usually the same lookup done twice or a loop that should be
+ * one query. When a shape repeats, the code that ran it is noted. Requests that
+ * repeat a shape too often or go over the statement or time budget are logged
+ * with that breakdown.
+ *
+ * For tests, keep-last remembers the last request of every endpoint, and the
+ * assert methods pin how many statements an endpoint may run.
+ */
+@ApplicationScoped
+public class QueryTracker {
+    private static final Logger LOG = Logger.getLogger(QueryTracker.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_CACHED_SHAPES = 2048;
+    private static final int CALL_SITE_FRAMES = 3;
+
+    @ConfigProperty(name = "puzzlelab.queries.max-statements", defaultValue = "20")
+    int maxStatements;
+
+    @ConfigProperty(name = "puzzlelab.queries.max-millis", defaultValue = "500")
+    long maxMillis;
+
+    @ConfigProperty(name = "puzzlelab.queries.repeat-threshold", defaultValue = "3")
+    int repeatThreshold;
+
+    @ConfigProperty(name = "puzzlelab.queries.call-sites", defaultValue = "true")
+    boolean captureCallSites;
+
+    @ConfigProperty(name = "puzzlelab.queries.keep-last", defaultValue = "false")
+    boolean keepLast;
+
+    @Inject
+    RequestRoute route;
+
+    // Hibernate reuses the same SQL strings, so each one only has to be normalized once
+    private final ConcurrentHashMap<String, String> shapes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> repeatedShapes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RequestSummary> lastRequests = new ConcurrentHashMap<>();
+    private final LongAdder trackedRequests = new LongAdder();
+    private final LongAdder flaggedRequests = new LongAdder();
+    private final LongAdder overStatementBudget = new LongAdder();
+    private final LongAdder overTimeBudget = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * The statements one request has run, by shape. Only used by that request.
+     */
+    public static class RequestQueries {
+        private final Map<String, Shape> shapes = new LinkedHashMap<>();
+        private int statements = 0;
+
+        /**
+         * @return The shape's counts if this was its first repeat, so its call site can be noted
+         */
+        private synchronized Shape record(String shape) {
+            statements++;
+            Shape counts = shapes.computeIfAbsent(shape, key -> new Shape());
+            counts.count++;
+            return counts.count == 2 ? counts : null;
+        }
+    }
+
+    private static class Shape {
+        int count = 0;
+        volatile String callSite; // Where the shape was first repeated
+    }
+
+    /**
+     * What one request ran, as kept for tests.
+     *
+     * @param statements - The number of statements
+     * @param millis - How long the request took
+     * @param shapes - How many times each shape ran
+     * @param repeats - The shapes that ran more than once, and where they were repeated
+     */
+    public record RequestSummary(int statements, long millis, Map<String, Integer> shapes, Map<String, String> repeats) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Counts a statement against the current request. Statements run outside a
+     * request are left to RouteMetrics.
+     *
+     * @param sql - The statement as Hibernate prepared it
+     */
+    public void statementExecuted(String sql) {
+        if (!Arc.container().requestContext().isActive()) {
+            return;
+        }
+        Shape repeated = route.getQueries().record(shapeOf(sql));
+        if (repeated != null && captureCallSites) {
+            repeated.callSite = callSite();
+        }
+    }
+
+    /**
+     * Checks a finished request against the budgets and logs it if it went over.
+     *
+     * @param name - The endpoint of the request
+     * @param nanos - How long the request took
+     * @param queries - The statements the request ran
+     */
+    public void requestFinished(String name, long nanos, RequestQueries queries) {
+        trackedRequests.increment();
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        RequestSummary summary = summarize(queries, millis);
+        if (keepLast) {
+            lastRequests.put(name, summary);
+        }
+
+        boolean tooManyStatements = summary.statements() > maxStatements;
+        boolean tooSlow = millis > maxMillis;
+        Map<String, Integer> repeated = summary.shapes().entrySet().stream()
+                .filter(entry -> entry.getValue() >= repeatThreshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (!tooManyStatements && !tooSlow && repeated.isEmpty()) {
+            return;
+        }
+
+        flaggedRequests.increment();
+        if (tooManyStatements) {
+            overStatementBudget.increment();
+        }
+        if (tooSlow) {
+            overTimeBudget.increment();
+        }
+        StringBuilder message = new StringBuilder()
+                .append(name).append(" ran ").append(summary.statements()).append(" statements in ")
+                .append(millis).append(" ms (budget ").append(maxStatements).append(" statements, ")
+                .append(maxMillis).append(" ms)");
+        summary.shapes().forEach((shape, count) -> {
+            if (count >= repeatThreshold) {
+                repeatedShapes.computeIfAbsent(shape, key -> new LongAdder()).increment();
+                message.append("\n  ").append(count).append("x ").append(shape);
+                String site = summary.repeats().get(shape);
+                if (site != null) {
+                    message.append("\n     repeated at ").append(site);
+                }
+            }
+        });
+        LOG.warn(message);
+    }
+
+    /**
+     * @param sql - A SQL statement
+     * @return The statement with literals, IN lists and whitespace collapsed
+     */
+    public static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return How many requests were tracked and flagged, and the shapes flagged most often
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("trackedRequests", trackedRequests.sum());
+        fields.put("flaggedRequests", flaggedRequests.sum());
+        fields.put("overStatementBudget", overStatementBudget.sum());
+        fields.put("overTimeBudget", overTimeBudget.sum());
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        repeatedShapes.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(10)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue().sum()));
+        fields.put("repeatedShapes", top);
+
+        return fields;
+    }
+
+    /////////////////////////////////////////////////////////
+    // -------------------- ASSERTIONS ------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param name - An endpoint, such as "PuzzleResource.getPuzzle"
+     * @return What the last request to that endpoint ran, or null if none was kept
+     * @throws IllegalStateException If puzzlelab.queries.keep-last isn't on
+     */
+    public RequestSummary lastRequest(String name) {
+        if (!keepLast) {
+            throw new IllegalStateException("Set puzzlelab.queries.keep-last=true to keep requests for assertions.");
+        }
+        return lastRequests.get(name);
+    }
+
+    /**
+     * @param name - An endpoint
+     * @param expected - The number of statements its last request should have run
+     * @throws AssertionError If it ran a different number, with what it did run
+     */
+    public void assertStatements(String name, int expected) {
+        RequestSummary summary = requireLast(name);
+        if (summary.statements() != expected) {
+            throw new AssertionError(name + " ran " + summary.statements() + " statements, expected "
+                    + expected + ": " + summary.shapes());
+        }
+    }
+
+    /**
+     * @param name - An endpoint
+     * @param max - The most statements its last request may have run
+     * @throws AssertionError If it ran more, with what it did run
+     */
+    public void assertAtMostStatements(String name, int max) {
+        RequestSummary summary = requireLast(name);
+        if (summary.statements() > max) {
+            throw new AssertionError(name + " ran " + summary.statements() + " statements, at most "
+                    + max + " expected: " + summary.shapes());
+        }
+    }
+
+    /**
+     * @param name - An endpoint
+     * @throws AssertionError If its last request ran any shape more than once, with where it was repeated
+     */
+    public void assertNoRepeats(String name) {
+        RequestSummary summary = requireLast(name);
+        if (!summary.repeats().isEmpty()) {
+            throw new AssertionError(name + " repeated queries: " + summary.repeats());
+        }
+    }
+
+    /**
+     * Forgets the kept requests, so the next assertion only sees requests made after this.
+     */
+    public void reset() {
+        lastRequests.clear();
+    }
+
+    private RequestSummary requireLast(String name) {
+        RequestSummary summary = lastRequest(name);
+        if (summary == null) {
+            throw new AssertionError("No request to " + name + " ran any statements.");
+        }
+        return summary;
+    }
+
+    private RequestSummary summarize(RequestQueries queries, long millis) {
+        synchronized (queries) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            Map<String, String> repeats = new LinkedHashMap<>();
+            queries.shapes.forEach((shape, counted) -> {
+                counts.put(shape, counted.count);
+                if (counted.count > 1) {
+                    repeats.put(shape, counted.callSite == null ? "unknown" : counted.callSite);
+                }
+            });
+            return new RequestSummary(queries.statements, millis, counts, repeats);
+        }
+    }
+
+    private String shapeOf(String sql) {
+        String shape = shapes.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            if (shapes.size() < MAX_CACHED_SHAPES) {
+                shapes.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * @return The innermost frames of our own code that led to the current statement
+     */
+    private static String callSite() {
+        List<String> frames = StackWalker.getInstance().walk(stack -> stack
+                .filter(frame -> frame.getClassName().startsWith("Puzzle_Lab.")
+                        && !frame.getClassName().equals(QueryTracker.class.getName())
+                        && !frame.getClassName().equals(CountingStatementInspector.class.getName())
+                        && !frame.getClassName().contains("_Subclass")
+                        && !frame.getClassName().contains("_ClientProxy"))
+                .limit(CALL_SITE_FRAMES)
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .toList());
+        return frames.isEmpty() ? "unknown" : String.join(" < ", frames);
+    }
+}
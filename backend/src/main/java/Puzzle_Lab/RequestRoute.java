@@ -0,0 +1,68 @@
+package Puzzle_Lab;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+
+/**
+ * The endpoint the current request was routed to, such as
+ * "PuzzleResource.getPuzzle", and the SQL it has run so far. Set by
+ * RouteTagFilter so code that runs deeper in the request, like the SQL
+ * statement inspector, can tell which endpoint it's working for.
+ */
+@RequestScoped
+public class RequestRoute {
+    @Inject
+    QueryTracker queryTracker;
+
+    private String name = RouteMetrics.UNROUTED;
+    private long startNanos = System.nanoTime();
+    private QueryTracker.RequestQueries queries; // Created by the first statement, most requests to cached endpoints run none
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The endpoint of the current request
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return When the request was routed, as measured with System.nanoTime()
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return The statements the request has run, created when first asked for
+     */
+    public QueryTracker.RequestQueries getQueries() {
+        if (queries == null) {
+            queries = new QueryTracker.RequestQueries();
+        }
+        return queries;
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- SETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param name - The endpoint of the current request
+     */
+    public void setName(String name) {
+        this.name = name;
+        this.startNanos = System.nanoTime();
+    }
+
+    @PreDestroy
+    void finished() {
+        if (queries != null) {
+            queryTracker.requestFinished(name, System.nanoTime() - startNanos, queries);
+        }
+    }
+}
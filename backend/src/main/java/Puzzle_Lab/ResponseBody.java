@@ -1,19 +1,36 @@
 package Puzzle_Lab;
 
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class ResponseBody {
+    // Configured once and shared, ObjectMappers and ObjectWriters are thread-safe after configuration
+    public static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule()) // Allows LocalDate to be transfered to JSON
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // Formats dates as String instead of Array
+    private static final ObjectWriter WRITER = MAPPER.writer()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // The HTTP layer owns the output stream
+
+    // Time spent writing bodies as JSON, recorded without locking so it can stay on in production.
+    // For streamed bodies this includes handing the bytes to the HTTP layer, which buffers them.
+    private static final LatencyHistogram SERIALIZATION = new LatencyHistogram();
 
     private Status status;
     private Map<String, Object> fields;
+    private Map<String, Object> headers = new LinkedHashMap<>();
 
     // Must specify a status code at least in the response
     public ResponseBody(Status status) {
@@ -23,7 +40,8 @@ public class ResponseBody {
         this.status = status;
     }
 
-    // Method to add any object to the response map
+    // Method to add any object to the response map. Already rendered JSON can be
+    // added as a RawValue so it's embedded as-is instead of as an escaped string.
     public ResponseBody addObject(String key, Object value) {
         fields.put(key, value);
         return this;
@@ -34,21 +52,42 @@ public class ResponseBody {
         return this;
     }
 
-    // Method to build the final response
-    public Response build() {
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.registerModule(new JavaTimeModule()); // Allows LocalDate to be transfered to JSON
-            objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // Formats dates as String instead of Array
+    // Method to add an HTTP header to the response, such as ETag or Cache-Control
+    public ResponseBody addHeader(String name, Object value) {
+        headers.put(name, value);
+        return this;
+    }
 
-            String json = objectMapper.writeValueAsString(fields);
+    // Method to render the response body, for callers that store it instead of sending it
+    public byte[] toBytes() {
+        long start = System.nanoTime();
+        try {
+            return MAPPER.writeValueAsBytes(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to render the response body.", e);
+        } finally {
+            SERIALIZATION.recordNanos(System.nanoTime() - start);
+        }
+    }
 
-            return Response.status(status).entity(json).build();
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Method to build the final response. The fields are serialized straight to the
+    // HTTP output when the response is written, instead of into an intermediate String.
+    public Response build() {
+        StreamingOutput body = output -> {
+            long start = System.nanoTime();
+            try {
+                WRITER.writeValue(output, fields);
+            } finally {
+                SERIALIZATION.recordNanos(System.nanoTime() - start);
+            }
+        };
+        Response.ResponseBuilder builder = Response.status(status).entity(body).type(MediaType.APPLICATION_JSON_TYPE);
+        headers.forEach(builder::header);
+        return builder.build();
+    }
 
-            String errorJson = "{\"message\": \"Error occurred while building the response body.\"}";
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorJson).build();
-        }
+    // Method to get how long bodies have taken to serialize, for the metrics endpoint
+    public static Map<String, Object> getSerializationStats() {
+        return SERIALIZATION.getSummary();
     }
 }
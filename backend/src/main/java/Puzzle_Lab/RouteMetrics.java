@@ -0,0 +1,160 @@
+package Puzzle_Lab;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.quarkus.arc.Arc;
+
+/**
+ * Records how every endpoint performs: its latency, response sizes and status
+ * codes, and the SQL statements and rows each of its requests needs. An endpoint
+ * that gets slower or starts running more queries per request stands out.
+ *
+ * Requests are timed and sized by RouteTagFilter, statements are counted by
+ * CountingStatementInspector and rows by RowCountingListener. Every recorder is
+ * a LongAdder or a LatencyHistogram, so recording never takes a lock and this
+ * can stay on in production. Work done outside a request, like scheduled
+ * flushes, is counted under BACKGROUND.
+ */
+@ApplicationScoped
+public class RouteMetrics {
+    /**
+     * The name work is counted under when no request is active.
+     */
+    public static final String BACKGROUND = "background";
+
+    /**
+     * The name work is counted under when a request hasn't been matched to an endpoint.
+     */
+    public static final String UNROUTED = "unrouted";
+
+    @Inject
+    RequestRoute route;
+
+    private final ConcurrentHashMap<String, Counts> routes = new ConcurrentHashMap<>();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    private static class Counts {
+        final LongAdder requests = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder responseBytes = new LongAdder();
+        final LongAccumulator maxResponseBytes = new LongAccumulator(Math::max, 0);
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param route - The endpoint a request was routed to
+     */
+    public void requestStarted(String route) {
+        counts(route).requests.increment();
+    }
+
+    /**
+     * @param route - The endpoint the request was routed to
+     * @param nanos - How long the request took, up to its last byte being written
+     * @param status - The HTTP status of the response
+     * @param bytes - The size of the response body as sent, after any compression
+     */
+    public void requestFinished(String route, long nanos, int status, long bytes) {
+        Counts counts = counts(route);
+        counts.latency.recordNanos(nanos);
+        counts.responseBytes.add(bytes);
+        counts.maxResponseBytes.accumulate(bytes);
+        if (status >= 500) {
+            counts.serverErrors.increment();
+        } else if (status >= 400) {
+            counts.clientErrors.increment();
+        }
+    }
+
+    /**
+     * Counts a statement against the endpoint of the current request, or BACKGROUND.
+     */
+    public void statementExecuted() {
+        counts(currentRoute()).statements.increment();
+    }
+
+    /**
+     * Counts rows read into entities or projections against the endpoint of the
+     * current request, or BACKGROUND.
+     *
+     * @param count - The number of rows
+     */
+    public void rowsLoaded(int count) {
+        counts(currentRoute()).rows.add(count);
+    }
+
+    /**
+     * @return The requests and statements counted so far for each endpoint, as
+     *         {requests, statements}. Two snapshots can be subtracted to get the
+     *         counts for the time in between.
+     */
+    public Map<String, long[]> snapshot() {
+        Map<String, long[]> snapshot = new HashMap<>();
+        routes.forEach((route, counts) -> snapshot.put(route,
+                new long[] { counts.requests.sum(), counts.statements.sum() }));
+        return snapshot;
+    }
+
+    /**
+     * @return Everything recorded for each endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new TreeMap<>();
+        routes.forEach((route, counts) -> {
+            long requests = counts.requests.sum();
+            long responses = counts.latency.getCount();
+
+            Map<String, Object> routeFields = describe(requests, counts.statements.sum());
+            routeFields.put("rows", counts.rows.sum());
+            routeFields.put("rowsPerRequest", requests == 0 ? 0 : (double) counts.rows.sum() / requests);
+            routeFields.put("latency", counts.latency.getSummary());
+            routeFields.put("responseBytes", counts.responseBytes.sum());
+            routeFields.put("meanResponseBytes", responses == 0 ? 0 : counts.responseBytes.sum() / responses);
+            routeFields.put("maxResponseBytes", counts.maxResponseBytes.get());
+            routeFields.put("clientErrors", counts.clientErrors.sum());
+            routeFields.put("serverErrors", counts.serverErrors.sum());
+            fields.put(route, routeFields);
+        });
+        return fields;
+    }
+
+    /**
+     * @param requests - A number of requests
+     * @param statements - The statements those requests ran
+     * @return The counts and statements per request, as reported by getStats()
+     */
+    public static Map<String, Object> describe(long requests, long statements) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("requests", requests);
+        fields.put("statements", statements);
+        fields.put("statementsPerRequest", requests == 0 ? 0 : (double) statements / requests);
+        return fields;
+    }
+
+    private String currentRoute() {
+        // Scheduled jobs and startup work run without a request
+        return Arc.container().requestContext().isActive() ? route.getName() : BACKGROUND;
+    }
+
+    private Counts counts(String route) {
+        return routes.computeIfAbsent(route, name -> new Counts());
+    }
+}
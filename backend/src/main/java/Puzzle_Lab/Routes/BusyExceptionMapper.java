@@ -0,0 +1,23 @@
+package Puzzle_Lab.Routes;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import Puzzle_Lab.PasswordHasher;
+import Puzzle_Lab.ResponseBody;
+
+/**
+ * Turns a full password hashing pool into 429 Too Many Requests, with a
+ * Retry-After header, for any endpoint that hashes or checks a password.
+ */
+@Provider
+public class BusyExceptionMapper implements ExceptionMapper<PasswordHasher.BusyException> {
+    @Override
+    public Response toResponse(PasswordHasher.BusyException exception) {
+        return new ResponseBody(Response.Status.TOO_MANY_REQUESTS)
+                .addMessage("The server is busy, please try again shortly.")
+                .addHeader("Retry-After", exception.getRetryAfterSeconds())
+                .build();
+    }
+}
@@ -1,13 +1,15 @@
 package Puzzle_Lab.Routes; 
 
 import jakarta.enterprise.context.ApplicationScoped; 
-import jakarta.transaction.Transactional; 
+import jakarta.inject.Inject; 
 import jakarta.ws.rs.*; 
 import jakarta.ws.rs.core.*; 
 
 import java.util.Map; 
-import org.mindrot.jbcrypt.BCrypt; 
+import io.quarkus.narayana.jta.QuarkusTransaction; 
+import org.jboss.logging.Logger; 
 
+import Puzzle_Lab.PasswordHasher; 
 import Puzzle_Lab.ResponseBody; 
 import Puzzle_Lab.TokenService; 
 import Puzzle_Lab.Entities.User; 
@@ -21,14 +23,20 @@ import Puzzle_Lab.Entities.User;
  * REST API resource for handling user login requests. 
  */ 
  public class LoginResource { 
+  private static final Logger LOG = Logger.getLogger(LoginResource.class); 
+  
+  @Inject 
+  PasswordHasher passwordHasher; 
+  
   /** 
   * Handles user login requests. 
   * Allows authentication via either a temporary password or the original password. 
   * If the user logs in with a temporary password, it will be removed after login. 
+  * No transaction is held while the password is checked, only for the writes after it. 
   * @param body A map containing "username" and "password" fields. 
   * @return A Response object with a success or error message. 
   */ 
-  @POST @Transactional 
+  @POST 
   public Response loginUser(Map<String, String> body) { 
    String username = body.get("username"); 
    String password = body.get("password"); 
@@ -42,26 +50,27 @@ import Puzzle_Lab.Entities.User;
    if (user == null) { 
     return new ResponseBody(Response.Status.UNAUTHORIZED).addMessage("Invalid username or password.").build(); 
    } 
-   boolean loggedInWithTempPassword = false; 
-   boolean isValidPassword = false; // Check if the provided password matches the temporary password 
-   if (user.getTempPassword() != null && BCrypt.checkpw(password, user.getTempPassword())) 
-   { 
+   boolean loggedInWithTempPassword = false; // Check if the provided password matches the user's stored hashed password 
+   boolean isValidPassword = passwordHasher.verify(password, user.getHashedPassword()); 
+   if (!isValidPassword && user.getTempPassword() != null && passwordHasher.verify(password, user.getTempPassword())) 
+   { // Only check the temporary password if one is set and the main one didn't match 
     loggedInWithTempPassword = true; 
     isValidPassword = true; 
-   } // Check if the provided password matches the user's stored hashed password 
-   if (BCrypt.checkpw(password, user.getHashedPassword())) { 
-    isValidPassword = true; 
    } // If neither the temp nor the original password matched, return an error 
    if (!isValidPassword) { 
-    System.out.println("Invalid password entered."); 
+    LOG.debugf("Invalid password entered for user %d.", user.getID()); 
     return new ResponseBody(Response.Status.UNAUTHORIZED).addMessage("Invalid username or password.").build(); 
-   } // If the user logged in with a temporary password, remove it after successful login 
-   if (loggedInWithTempPassword) { 
-    user.clearTempPassword(); 
-    user.persistAndFlush(); // Commit the removal of temp password to the database 
-    System.out.println("Temporary password successfully removed."); 
+   } // Upgrade hashes made with an old work factor while the plaintext is known 
+   String rehashed = !loggedInWithTempPassword && passwordHasher.needsRehash(user.getHashedPassword()) ? passwordHasher.hash(password) : null; 
+   Long userID = user.getID(); 
+   if (loggedInWithTempPassword) { // If the user logged in with a temporary password, remove it after successful login 
+    QuarkusTransaction.requiringNew().run(() -> User.update("tempPassword = null where id = ?1", userID)); 
+    LOG.debugf("Temporary password of user %d removed.", userID); 
+   } 
+   if (rehashed != null) { 
+    QuarkusTransaction.requiringNew().run(() -> User.update("password = ?1 where id = ?2", rehashed, userID)); 
    } // Send a token to the frontend to store. 
-   String token = TokenService.generateToken(user.getID()); 
+   String token = TokenService.generateToken(user); 
    return new ResponseBody(Response.Status.OK).addMessage("Login successful!").addObject("token", token).addObject("user", user.getFullDTO()).build(); 
   } 
  }
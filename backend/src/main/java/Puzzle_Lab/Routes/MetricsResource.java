@@ -0,0 +1,82 @@
+package Puzzle_Lab.Routes;
+
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.*;
+
+import Puzzle_Lab.AvailabilityFilter;
+import Puzzle_Lab.PasswordHasher;
+import Puzzle_Lab.ProgressStore;
+import Puzzle_Lab.PuzzleCache;
+import Puzzle_Lab.PuzzleCounters;
+import Puzzle_Lab.PuzzleHistory;
+import Puzzle_Lab.PuzzleStorageMigrator;
+import Puzzle_Lab.QueryTracker;
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.RouteMetrics;
+import Puzzle_Lab.TokenCache;
+import Puzzle_Lab.Words.Autofiller;
+
+/**
+ * REST API resource that reports how the backend's caches and hot paths are
+ * performing. Only available to admins.
+ */
+@ApplicationScoped
+@Path("/metrics")
+public class MetricsResource {
+    @Inject
+    PuzzleCache puzzleCache;
+
+    @Inject
+    PuzzleCounters puzzleCounters;
+
+    @Inject
+    AvailabilityFilter availability;
+
+    @Inject
+    PasswordHasher passwordHasher;
+
+    @Inject
+    TokenCache tokenCache;
+
+    @Inject
+    RouteMetrics routeMetrics;
+
+    @Inject
+    QueryTracker queryTracker;
+
+    @Inject
+    Autofiller autofiller;
+
+    @Inject
+    ProgressStore progressStore;
+
+    @Inject
+    PuzzleStorageMigrator storageMigrator;
+
+    @Inject
+    PuzzleHistory puzzleHistory;
+
+    @GET
+    @RolesAllowed({"ADMIN"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMetrics() {
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully retrieved metrics.")
+                .addObject("puzzleCache", puzzleCache.getStats())
+                .addObject("puzzleCounters", puzzleCounters.getStats())
+                .addObject("availability", availability.getStats())
+                .addObject("passwordHasher", passwordHasher.getStats())
+                .addObject("tokenCache", tokenCache.getStats())
+                .addObject("serialization", ResponseBody.getSerializationStats())
+                .addObject("routes", routeMetrics.getStats())
+                .addObject("queries", queryTracker.getStats())
+                .addObject("autofill", autofiller.getStats())
+                .addObject("progress", progressStore.getStats())
+                .addObject("storage", storageMigrator.getStats())
+                .addObject("history", puzzleHistory.getStats())
+                .build();
+    }
+}
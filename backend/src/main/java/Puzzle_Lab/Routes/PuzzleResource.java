@@ -1,4 +1,945 @@
-package Puzzle_Lab.Routes; import java.util.ArrayList; import java.util.Arrays; import java.util.List; import java.util.Map; import java.util.stream.Collectors; import Puzzle_Lab.ResponseBody; import Puzzle_Lab.TokenService; import Puzzle_Lab.Entities.Puzzle; import Puzzle_Lab.Entities.User; import Puzzle_Lab.Enums.Status; import io.quarkus.panache.common.Sort; import jakarta.annotation.security.RolesAllowed; import jakarta.enterprise.context.ApplicationScoped; 
-import jakarta.transaction.Transactional; 
-import jakarta.ws.rs.*; import jakarta.ws.rs.core.*; @ApplicationScoped @Path("/puzzles") public class PuzzleResource { @GET @Path("/{id}") @Produces(MediaType.APPLICATION_JSON) public Response getPuzzle(@PathParam("id") Long id, @Context SecurityContext ctx, @QueryParam("mode") String mode) { if (mode == null || !mode.equals("edit") && !mode.equals("play")) { 
-	return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("A 'mode' query parameter must be set to either 'play' or 'edit'.") .build(); } Puzzle puzzle = Puzzle.find("id", id).firstResult(); if (puzzle == null) { return new ResponseBody(Response.Status.NOT_FOUND) .addMessage("Unable to find a puzzle with that ID.") .build(); } // Playable if the puzzle is public or if they have full access if (mode.equals("play") && (hasFullAccess(id, ctx) || puzzle.getStatus().equals(Status.PUBLIC) || puzzle.getStatus().equals(Status.UNLISTED))) { return new ResponseBody(Response.Status.OK) .addMessage("Successfully obtained puzzle.") .addObject("puzzle", puzzle.getEmptyDTO()) .build(); // Editable only if they have full access } else if (mode.equals("edit") && hasFullAccess(id, ctx)) { return new ResponseBody(Response.Status.OK) .addMessage("Successfully obtained puzzle.") .addObject("puzzle", puzzle.getFullDTO()) .build(); } else { return new ResponseBody(Response.Status.NOT_FOUND) .addMessage("Unable to find a puzzle with that ID.") .build(); } } @Transactional @DELETE @Path("/{id}") @RolesAllowed({"USER"}) @Produces(MediaType.APPLICATION_JSON) public Response deletePuzzle(@PathParam("id") Long id, @Context SecurityContext ctx) { Puzzle puzzle = Puzzle.find("id", id).firstResult(); if (puzzle == null || !hasFullAccess(id, ctx)) { return new ResponseBody(Response.Status.NOT_FOUND) .addMessage("Unable to find a puzzle with that ID.") .build(); } puzzle.delete(); return new ResponseBody(Response.Status.OK) .addMessage("Successfully deleted the puzzle.") .build(); } @Transactional @PUT @Path("/{id}") @RolesAllowed({"USER"}) @Produces(MediaType.APPLICATION_JSON) public Response updatePuzzle(@PathParam("id") Long id, @Context SecurityContext ctx, Map<String, String> body) { Puzzle puzzle = Puzzle.find("id", id).firstResult(); if (puzzle == null || !hasFullAccess(id, ctx)) { return new ResponseBody(Response.Status.NOT_FOUND) .addMessage("Unable to find a puzzle with that ID.") .build(); } List<String> invalidFields = new ArrayList<>(); for (String key : body.keySet()) { String value = body.get(key); switch (key) { case "title" -> puzzle.setTitle(value); case "description" -> puzzle.setDescription(value); case "status" -> { boolean isValidStatus = Arrays.stream(Status.values()).anyMatch(status -> status.name().equals(value)); if (!isValidStatus) invalidFields.add(key); else puzzle.setStatus(Status.valueOf(body.get(key))); } case "hints" -> puzzle.setHints(value); case "cells" -> puzzle.setCells(value); default -> invalidFields.add(key); } } puzzle.setLastUpdated(); puzzle.persist(); return new ResponseBody(Response.Status.OK) .addMessage(body.keySet().size() - invalidFields.size() + " fields were updated.") .addObject("invalidFields", invalidFields) .addObject("puzzle", puzzle.getFullDTO()) .build(); } @Transactional @POST @RolesAllowed({"USER"}) @Produces(MediaType.APPLICATION_JSON) public Response createPuzzle(@Context SecurityContext ctx, Map<String, String> body) { String title = body.get("title"); String description = body.get("description"); String cellsJson = body.get("cells"); String hintsJson = body.get("hints"); String statusString = body.get("status"); if (title == null || title.isBlank()) { return new ResponseBody(Response.Status.BAD_REQUEST) .addMessage("Missing a 'title' field.") .build(); } if (cellsJson == null) { return new ResponseBody(Response.Status.BAD_REQUEST) .addMessage("Missing a 'cells' field.") .build(); } if (hintsJson == null) { return new ResponseBody(Response.Status.BAD_REQUEST) .addMessage("Missing a 'hints' field.") .build(); } boolean isValidStatus = Arrays.stream(Status.values()).anyMatch(status -> status.name().equals(statusString)); if (!isValidStatus) { return new ResponseBody(Response.Status.BAD_REQUEST) .addMessage("Invalid 'status' field.") .build(); } Long userID = Long.valueOf(ctx.getUserPrincipal().getName()); User creator = User.getUser(userID); Puzzle puzzle = new Puzzle(creator, title, description, cellsJson, hintsJson, Status.valueOf(statusString)); puzzle.persist(); return new ResponseBody(Response.Status.OK) .addMessage("Successfully created a puzzle!") .addObject("puzzle", puzzle.getFullDTO()) .build(); } @GET @Produces(MediaType.APPLICATION_JSON) public Response getAllPuzzles(@QueryParam("limit") Integer limit, @QueryParam("page") Integer page) { if (limit == null) limit = 12; else limit = Math.max(Math.min(limit, 100), 0); // Max 100, min 0 if (page == null) page = 0; else page = Math.max(page, 0); // min 0 List<Puzzle> puzzles = Puzzle.find("status = ?1", Sort.by("lastUpdated").descending(), Status.PUBLIC).page(page, limit).list(); List<Object> puzzleDTOs = puzzles.stream().map(Puzzle::getEmptyDTO).collect(Collectors.toList()); return new ResponseBody(Response.Status.OK) .addMessage("Successfully got " + puzzles.size() + " puzzles.") .addObject("puzzles", puzzleDTOs) .build(); } @POST @Path("/{id}/validate") @Produces(MediaType.APPLICATION_JSON) @Transactional public Response validatePuzzle(@PathParam("id") Long id, Map<String, String> body, @Context SecurityContext ctx){ if (body.get("cells") == null) { return new ResponseBody(Response.Status.BAD_REQUEST) .addMessage("Please specify a 'cells' query parameter.") .build(); } Puzzle puzzle = Puzzle.find("id", id).firstResult(); if (puzzle == null) { return new ResponseBody(Response.Status.NOT_FOUND) .addMessage("Unable to find a puzzle with that ID.") .build(); } String cellsJson = puzzle.getCellsJson(); boolean complete = cellsJson.equals(body.get("cells")); if (complete && ctx.getUserPrincipal() != null) { try { Long userId = Long.valueOf(ctx.getUserPrincipal().getName()); User user = User.getUser(userId); if (user != null && !user.getCompletedPuzzleIds().contains(id)) { user.getCompletedPuzzleIds().add(id); user.persist(); } } catch (Exception e) { // Optional: log the error if something fails, but no crash } } return new ResponseBody(Response.Status.OK) .addMessage(complete ? "It's a match! Puzzle completed." : "Try again </3. Puzzle did not match.") .addObject("complete", complete) .build(); } /** * @param id - The id of the puzzle * @param ctx - The context * @return A boolean that's true if the authorized user is the creator of the puzzle, or is an admin. */ private static boolean hasFullAccess(Long id, SecurityContext ctx) { if (ctx.getUserPrincipal() == null) return false; Puzzle puzzle = Puzzle.find("id", id).firstResult(); String creatorID = puzzle.getCreator().getID().toString(); if (ctx.getUserPrincipal().getName().equals(creatorID)) return true; if (ctx.isUserInRole("ADMIN")) return true; return false; } /** * Likes a puzzle on behalf of the authenticated user. * @param puzzleId The ID of the puzzle to like. * @param ctx The security context containing the authenticated user. * @return HTTP 200 if successful, or HTTP 404 if the puzzle or user is not found. */ @POST @Path("/{puzzleId}/like") @RolesAllowed({"USER"}) @Transactional public Response likePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) { Long userId = Long.valueOf(ctx.getUserPrincipal().getName()); User user = User.getUser(userId); Puzzle puzzle = Puzzle.findById(puzzleId); if (puzzle == null || user == null) { return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build(); } if (!user.getLikedPuzzleIds().contains(puzzleId)) { user.getLikedPuzzleIds().add(puzzleId); puzzle.incrementLikeCount(); } user.persist(); puzzle.persist(); return Response.ok().entity("Puzzle liked successfully").build(); } /** * Unlikes a puzzle on behalf of the authenticated user. * * @param puzzleId The ID of the puzzle to unlike. * @param ctx The security context containing the authenticated user. * @return HTTP 200 if successful, or HTTP 404 if the puzzle or user is not found. */ @POST @Path("/{puzzleId}/unlike") @RolesAllowed({"USER"}) @Transactional public Response unlikePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) { Long userId = Long.valueOf(ctx.getUserPrincipal().getName()); User user = User.getUser(userId); Puzzle puzzle = Puzzle.findById(puzzleId); if (puzzle == null || user == null) { return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build(); } if (user.getLikedPuzzleIds().remove(puzzleId)) { puzzle.decrementLikeCount(); } user.persist(); puzzle.persist(); return Response.ok().entity("Puzzle unliked successfully").build(); } /** * Favorites a puzzle on behalf of the authenticated user. * * @param puzzleId The ID of the puzzle to favorite. * @param ctx The security context containing the authenticated user. * @return HTTP 200 if successful, or HTTP 404 if the puzzle or user is not found. */ @POST @Path("/{puzzleId}/favorite") @RolesAllowed({"USER"}) @Transactional public Response favoritePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) { Long userId = Long.valueOf(ctx.getUserPrincipal().getName()); User user = User.getUser(userId); Puzzle puzzle = Puzzle.findById(puzzleId); if (puzzle == null || user == null) { return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build(); } if (!user.getFavoritedPuzzleIds().contains(puzzleId)) { user.getFavoritedPuzzleIds().add(puzzleId); puzzle.incrementFavoriteCount(); } user.persist(); puzzle.persist(); return Response.ok().entity("Puzzle favorited successfully").build(); } /** * Removes a puzzle from the authenticated user's favorites. * * @param puzzleId The ID of the puzzle to unfavorite. * @param ctx The security context containing the authenticated user. * @return HTTP 200 if successful, or HTTP 404 if the puzzle or user is not found. */ @POST @Path("/{puzzleId}/unfavorite") @RolesAllowed({"USER"}) @Transactional public Response unfavoritePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) { Long userId = Long.valueOf(ctx.getUserPrincipal().getName()); User user = User.getUser(userId); Puzzle puzzle = Puzzle.findById(puzzleId); if (puzzle == null || user == null) { return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build(); } if (user.getFavoritedPuzzleIds().remove(puzzleId)) { puzzle.decrementFavoriteCount(); } user.persist(); puzzle.persist(); return Response.ok().entity("Puzzle unfavorited successfully").build(); } }
+package Puzzle_Lab.Routes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import Puzzle_Lab.HttpCaching;
+import Puzzle_Lab.PageCursor;
+import Puzzle_Lab.ProgressStore;
+import Puzzle_Lab.PuzzleCache;
+import Puzzle_Lab.PuzzleCounters;
+import Puzzle_Lab.PuzzleHistory;
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.RouteMetrics;
+import Puzzle_Lab.TokenService;
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleGrid;
+import Puzzle_Lab.Entities.PuzzleMark;
+import Puzzle_Lab.Entities.PuzzleRevision;
+import Puzzle_Lab.Entities.PuzzleSolution;
+import Puzzle_Lab.Entities.PuzzleSummary;
+import Puzzle_Lab.Entities.SolveProgress;
+import Puzzle_Lab.Entities.User;
+import Puzzle_Lab.Enums.Direction;
+import Puzzle_Lab.Enums.MarkType;
+import Puzzle_Lab.Enums.Status;
+import Puzzle_Lab.Words.Autofiller;
+import Puzzle_Lab.Words.GridFiller;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.panache.common.Parameters;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.*;
+
+@ApplicationScoped
+@Path("/puzzles")
+public class PuzzleResource {
+    @Inject
+    PuzzleCache puzzleCache;
+
+    @Inject
+    PuzzleCounters puzzleCounters;
+
+    @Inject
+    RouteMetrics routeMetrics;
+
+    @Inject
+    Autofiller autofiller;
+
+    @Inject
+    ProgressStore progressStore;
+
+    @Inject
+    PuzzleHistory puzzleHistory;
+
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public Response getPuzzle(@PathParam("id") Long id, @Context SecurityContext ctx, @Context Request request,
+            @Context HttpHeaders headers, @QueryParam("mode") String mode) {
+        if (mode == null || !mode.equals("edit") && !mode.equals("play")) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("A 'mode' query parameter must be set to either 'play' or 'edit'.")
+                    .build();
+        }
+
+        // A revalidation only needs the version, so a match is answered before anything is loaded or rendered
+        if (headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null) {
+            PuzzleCache.Stamp stamp = puzzleCache.getStamp(id);
+            if (stamp != null && canView(mode, stamp.creatorId(), stamp.status(), ctx)) {
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(
+                        HttpCaching.puzzleTag(id, stamp.version(), mode));
+                if (notModified != null) {
+                    return notModified.header(HttpHeaders.CACHE_CONTROL, cacheControl(mode, stamp.status())).build();
+                }
+            }
+        }
+
+        // One cache lookup replaces loading the puzzle and rendering it again on every request
+        PuzzleCache.Entry puzzle = puzzleCache.get(id);
+        if (puzzle == null || !canView(mode, puzzle.getCreatorId(), puzzle.getStatus(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        EntityTag tag = HttpCaching.puzzleTag(id, puzzle.getVersion(), mode);
+        String cacheControl = cacheControl(mode, puzzle.getStatus());
+
+        // Large play responses are kept gzipped in the cache and sent without compressing them again
+        if (mode.equals("play") && puzzle.getPlayResponseGzip() != null
+                && HttpCaching.acceptsGzip(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            puzzleCache.recordGzipServed(puzzle);
+            return Response.ok(puzzle.getPlayResponseGzip(), MediaType.APPLICATION_JSON_TYPE)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header(HttpHeaders.ETAG, tag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+
+        String json = mode.equals("play") ? puzzle.getPlayJson() : puzzle.getEditJson();
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(PuzzleCache.FOUND_MESSAGE)
+                .addObject("puzzle", new RawValue(json))
+                .addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .addHeader(HttpHeaders.ETAG, tag)
+                .addHeader(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .build();
+    }
+
+    @Transactional
+    @DELETE
+    @Path("/{id}")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response deletePuzzle(@PathParam("id") Long id, @Context SecurityContext ctx) {
+        Puzzle puzzle = Puzzle.find("id", id).firstResult();
+        if (puzzle == null || !hasFullAccess(puzzle.getCreator().getID(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        PuzzleMark.delete("puzzleId", id);
+        progressStore.discardPuzzle(id);
+        SolveProgress.delete("puzzleId", id);
+        puzzleHistory.deletePuzzle(id);
+        puzzle.delete();
+        puzzleCache.invalidate(id);
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully deleted the puzzle.")
+                .build();
+    }
+
+    @Transactional
+    @PUT
+    @Path("/{id}")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updatePuzzle(@PathParam("id") Long id, @Context SecurityContext ctx, Map<String, String> body) {
+        Puzzle puzzle = Puzzle.find("id", id).firstResult();
+        if (puzzle == null || !hasFullAccess(puzzle.getCreator().getID(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        PuzzleRevision.Content before = PuzzleRevision.Content.of(puzzle);
+        List<String> invalidFields = new ArrayList<>();
+        for (String key : body.keySet()) {
+            String value = body.get(key);
+            switch (key) {
+                case "title" -> puzzle.setTitle(value);
+                case "description" -> puzzle.setDescription(value);
+                case "status" -> {
+                    boolean isValidStatus = Arrays.stream(Status.values()).anyMatch(status -> status.name().equals(value));
+                    if (!isValidStatus)
+                        invalidFields.add(key);
+                    else
+                        puzzle.setStatus(Status.valueOf(body.get(key)));
+                }
+                case "hints" -> {
+                    if (!Puzzle.isValidHintsJson(value))
+                        invalidFields.add(key);
+                    else
+                        puzzle.setHints(value);
+                }
+                case "cells" -> {
+                    if (!Puzzle.isValidCellsJson(value))
+                        invalidFields.add(key);
+                    else
+                        puzzle.setCells(value);
+                }
+                default -> invalidFields.add(key);
+            }
+        }
+
+        // A status change or a body of invalid fields leaves the content, and so the revision, as it was
+        boolean contentChanged = !before.sameAs(PuzzleRevision.Content.of(puzzle));
+        if (contentChanged) {
+            puzzle.nextRevision();
+            puzzleHistory.record(puzzle, before);
+        }
+        puzzle.persist();
+        puzzleCache.invalidate(id);
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(body.keySet().size() - invalidFields.size() + " fields were updated.")
+                .addObject("invalidFields", invalidFields)
+                .addObject("puzzle", puzzle.getFullDTO())
+                .build();
+    }
+
+    /**
+     * The body of PATCH /puzzles/{id}. Every field but baseRevision is optional.
+     */
+    public record PuzzlePatch(Long baseRevision, String title, String description, String status,
+            List<PuzzleGrid.CellEdit> cells, List<Puzzle.Hint> hints, List<Puzzle.Hint> deletedHints) {
+    }
+
+    /**
+     * Applies a creator's edits to a puzzle, so saving one changed letter sends one
+     * cell instead of the whole grid and hints. The edits apply only if the puzzle
+     * is still at the revision they were made against, and all apply or none do.
+     *
+     * @param patch - The revision the edits were made against, the cells that
+     *        changed, the hints to add or replace and to delete, and any new title,
+     *        description or status
+     * @return The puzzle's new revision and which fields changed, or 409 with the
+     *         current revision if someone else edited it first
+     */
+    @Transactional
+    @PATCH
+    @Path("/{id}")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patchPuzzle(@PathParam("id") Long id, @Context SecurityContext ctx, PuzzlePatch patch) {
+        if (patch == null || patch.baseRevision() == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'baseRevision' field.")
+                    .build();
+        }
+
+        // Locked until the transaction ends, so two edits made against the same revision can't both apply
+        Puzzle puzzle = Puzzle.findById(id, LockModeType.PESSIMISTIC_WRITE);
+        if (puzzle == null || !hasFullAccess(puzzle.getCreator().getID(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+        if (puzzle.getRevision() != patch.baseRevision()) {
+            return new ResponseBody(Response.Status.CONFLICT)
+                    .addMessage("The puzzle was edited since revision " + patch.baseRevision() + ", reload it and try again.")
+                    .addObject("revision", puzzle.getRevision())
+                    .build();
+        }
+
+        PuzzleRevision.Content before = PuzzleRevision.Content.of(puzzle);
+        List<String> changed = new ArrayList<>();
+        try {
+            if (patch.title() != null) {
+                if (patch.title().isBlank()) {
+                    throw new IllegalArgumentException("Invalid 'title' field.");
+                }
+                puzzle.setTitle(patch.title());
+                changed.add("title");
+            }
+            if (patch.description() != null) {
+                puzzle.setDescription(patch.description());
+                changed.add("description");
+            }
+            if (patch.status() != null) {
+                if (Arrays.stream(Status.values()).noneMatch(status -> status.name().equals(patch.status()))) {
+                    throw new IllegalArgumentException("Invalid 'status' field.");
+                }
+                puzzle.setStatus(Status.valueOf(patch.status()));
+                changed.add("status");
+            }
+            if (patch.cells() != null && !patch.cells().isEmpty()) {
+                puzzle.setGrid(puzzle.getGrid().withEdits(patch.cells()));
+                changed.add("cells");
+            }
+            if (patch.hints() != null && !patch.hints().isEmpty()
+                    || patch.deletedHints() != null && !patch.deletedHints().isEmpty()) {
+                puzzle.editHints(patch.hints() == null ? List.of() : patch.hints(),
+                        patch.deletedHints() == null ? List.of() : patch.deletedHints());
+                changed.add("hints");
+            }
+        } catch (IllegalArgumentException e) {
+            QuarkusTransaction.setRollbackOnly(); // Undo the edits that were already applied
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e.getMessage())
+                    .build();
+        }
+
+        if (!changed.isEmpty()) {
+            puzzle.nextRevision();
+            puzzleHistory.record(puzzle, before);
+            puzzleCache.invalidate(id);
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(changed.size() + " fields were updated.")
+                .addObject("revision", puzzle.getRevision())
+                .addObject("changed", changed)
+                .build();
+    }
+
+    /**
+     * Lists the revisions of a puzzle that can be viewed and restored. Only the
+     * newest few dozen are kept.
+     *
+     * @return "revisions", newest first, each with its "revision", "title", "createdAt",
+     *         whether it's a "snapshot" and its "storedBytes"
+     */
+    @GET
+    @Path("/{id}/revisions")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public Response listRevisions(@PathParam("id") Long id, @Context SecurityContext ctx) {
+        PuzzleCache.Stamp stamp = puzzleCache.getStamp(id);
+        if (stamp == null || !hasFullAccess(stamp.creatorId(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully obtained revisions.")
+                .addObject("revisions", puzzleHistory.list(id))
+                .addHeader(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    /**
+     * Gets a puzzle's content as it was at an earlier revision.
+     *
+     * @return The revision's "title", "description", solved "cells" and "hints"
+     */
+    @GET
+    @Path("/{id}/revisions/{revision}")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public Response getRevision(@PathParam("id") Long id, @PathParam("revision") long revision,
+            @Context SecurityContext ctx) {
+        PuzzleCache.Stamp stamp = puzzleCache.getStamp(id);
+        if (stamp == null || !hasFullAccess(stamp.creatorId(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+        PuzzleRevision.Content content = puzzleHistory.load(id, revision);
+        if (content == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Revision " + revision + " of this puzzle isn't stored.")
+                    .build();
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully obtained revision " + revision + ".")
+                .addObject("revision", revision)
+                .addObject("title", content.title())
+                .addObject("description", content.description())
+                .addObject("cells", new RawValue(content.grid().toSolvedJson()))
+                .addObject("hints", content.hints())
+                .addHeader(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    /**
+     * Puts a puzzle's title, description, cells and hints back to how they were at
+     * an earlier revision. The restore is itself a new revision, so it can be undone
+     * the same way. The status is left as it is.
+     *
+     * @return The puzzle's new revision and the restored puzzle
+     */
+    @Transactional
+    @POST
+    @Path("/{id}/revisions/{revision}/restore")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response restoreRevision(@PathParam("id") Long id, @PathParam("revision") long revision,
+            @Context SecurityContext ctx) {
+        // Locked like PATCH, so a restore and an edit can't both apply to the same revision
+        Puzzle puzzle = Puzzle.findById(id, LockModeType.PESSIMISTIC_WRITE);
+        if (puzzle == null || !hasFullAccess(puzzle.getCreator().getID(), ctx)) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+        PuzzleRevision.Content restored = puzzleHistory.load(id, revision);
+        if (restored == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Revision " + revision + " of this puzzle isn't stored.")
+                    .build();
+        }
+
+        PuzzleRevision.Content before = PuzzleRevision.Content.of(puzzle);
+        puzzle.setTitle(restored.title());
+        puzzle.setDescription(restored.description());
+        puzzle.setGrid(restored.grid());
+        puzzle.setHintsList(restored.hints());
+        puzzle.nextRevision();
+        puzzleHistory.record(puzzle, before);
+        puzzleCache.invalidate(id);
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Restored revision " + revision + ".")
+                .addObject("revision", puzzle.getRevision())
+                .addObject("puzzle", puzzle.getFullDTO())
+                .build();
+    }
+
+    @Transactional
+    @POST
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createPuzzle(@Context SecurityContext ctx, Map<String, String> body) {
+        String title = body.get("title");
+        String description = body.get("description");
+        String cellsJson = body.get("cells");
+        String hintsJson = body.get("hints");
+        String statusString = body.get("status");
+
+        if (title == null || title.isBlank()) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'title' field.")
+                    .build();
+        }
+        if (cellsJson == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'cells' field.")
+                    .build();
+        }
+        if (hintsJson == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'hints' field.")
+                    .build();
+        }
+        // Cells and hints are embedded into responses as raw JSON, so they must parse
+        if (!Puzzle.isValidCellsJson(cellsJson)) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Invalid 'cells' field.")
+                    .build();
+        }
+        if (!Puzzle.isValidHintsJson(hintsJson)) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Invalid 'hints' field.")
+                    .build();
+        }
+        boolean isValidStatus = Arrays.stream(Status.values()).anyMatch(status -> status.name().equals(statusString));
+        if (!isValidStatus) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Invalid 'status' field.")
+                    .build();
+        }
+
+        Long userID = Long.valueOf(ctx.getUserPrincipal().getName());
+        User creator = User.getUser(userID);
+        Puzzle puzzle = new Puzzle(creator, title, description, cellsJson, hintsJson, Status.valueOf(statusString));
+        puzzle.persist();
+        puzzleHistory.record(puzzle, null);
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully created a puzzle!")
+                .addObject("puzzle", puzzle.getFullDTO())
+                .build();
+    }
+
+    /**
+     * Fills the open cells of a partial grid with words from the word list.
+     * Blocked cells and letters already in the grid are kept.
+     *
+     * @param body - "cells", a 2D array of cells in JSON format, and optionally
+     *        "timeoutMillis", how long to search for
+     * @return The filled cells, or why the grid couldn't be filled
+     */
+    @POST
+    @Path("/autofill")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response autofillPuzzle(Map<String, String> body) {
+        if (body == null || body.get("cells") == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'cells' field.")
+                    .build();
+        }
+
+        Autofiller.Grid grid;
+        Duration timeout = null;
+        try {
+            grid = Autofiller.Grid.parse(body.get("cells"));
+            if (body.get("timeoutMillis") != null) {
+                timeout = Duration.ofMillis(Math.max(1, Long.parseLong(body.get("timeoutMillis"))));
+            }
+        } catch (IllegalArgumentException e) { // NumberFormatException included
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e instanceof NumberFormatException ? "Invalid 'timeoutMillis' field." : e.getMessage())
+                    .build();
+        }
+
+        GridFiller.Result result = autofiller.fill(grid, timeout);
+        if (result == null) {
+            return new ResponseBody(Response.Status.TOO_MANY_REQUESTS)
+                    .addMessage("Too many grids are being filled right now, please try again.")
+                    .addHeader("Retry-After", 1)
+                    .build();
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(result.filled() ? "Successfully filled the grid." : result.reason())
+                .addObject("filled", result.filled())
+                .addObject("timedOut", result.timedOut())
+                .addObject("cells", Autofiller.toCells(grid, result))
+                .build();
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public Response getAllPuzzles(@QueryParam("limit") Integer limit, @QueryParam("page") Integer page,
+            @QueryParam("cursor") String cursor, @Context Request request) {
+        if (limit == null)
+            limit = 12;
+        else
+            limit = Math.max(Math.min(limit, 100), 0); // Max 100, min 0
+        if (page == null)
+            page = 0;
+        else
+            page = Math.max(page, 0); // min 0
+
+        // Listings are projected to summaries so the cells and hints LOBs are never loaded
+        List<PuzzleSummary> puzzles;
+        Parameters parameters = Parameters.with("status", Status.PUBLIC);
+        if (cursor == null) {
+            // Page/limit still works for older clients, but deep pages have to skip every earlier row
+            puzzles = Puzzle.find("status = :status", PageCursor.FEED_ORDER, parameters)
+                    .project(PuzzleSummary.class).page(page, limit).list();
+        } else {
+            PageCursor after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return new ResponseBody(Response.Status.BAD_REQUEST)
+                        .addMessage("Invalid 'cursor' query parameter.")
+                        .build();
+            }
+            puzzles = Puzzle.find("status = :status and " + PageCursor.AFTER, PageCursor.FEED_ORDER, after.addTo(parameters))
+                    .project(PuzzleSummary.class).page(0, limit).list();
+        }
+        routeMetrics.rowsLoaded(puzzles.size()); // Projections skip the entity listener that counts rows
+
+        // The page's ids and versions are already loaded, so an unchanged page costs no serializing
+        EntityTag tag = HttpCaching.pageTag("feed", puzzles);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.header(HttpHeaders.CACHE_CONTROL, HttpCaching.PUBLIC).build();
+        }
+
+        List<Object> puzzleDTOs = puzzles.stream().map(PuzzleSummary::getDTO).collect(Collectors.toList());
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully got " + puzzles.size() + " puzzles.")
+                .addObject("puzzles", puzzleDTOs)
+                .addObject("nextCursor", PageCursor.next(puzzles, limit))
+                .addHeader(HttpHeaders.ETAG, tag)
+                .addHeader(HttpHeaders.CACHE_CONTROL, HttpCaching.PUBLIC)
+                .build();
+    }
+
+    /**
+     * Checks a player's whole grid against the puzzle's packed solution. Only the
+     * digests are compared, and the puzzle's cells are never loaded.
+     *
+     * @param body - "solution", the player's letters one per cell row by row with
+     *        '.' for blocked and empty cells, or "cells", the whole grid in JSON
+     *        format as older clients send it
+     * @return Whether the grid is complete and correct
+     */
+    @POST
+    @Path("/{id}/validate")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Transactional
+    public Response validatePuzzle(@PathParam("id") Long id, Map<String, String> body, @Context SecurityContext ctx) {
+        String attempt;
+        try {
+            attempt = readAttempt(body);
+        } catch (IllegalArgumentException e) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e.getMessage())
+                    .build();
+        }
+
+        PuzzleCache.AnswerKey answers = findAnswerKey(id, ctx);
+        if (answers == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        boolean complete = answers.solution().matches(attempt);
+
+        if (complete && ctx.getUserPrincipal() != null) {
+            try {
+                Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+                PuzzleMark.add(userId, MarkType.COMPLETED, id);
+            } catch (Exception e) {
+                // Optional: log the error if something fails, but no crash
+            }
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(complete ? "It's a match! Puzzle completed." : "Try again </3. Puzzle did not match.")
+                .addObject("complete", complete)
+                .build();
+    }
+
+    /**
+     * Finds the cells a player has filled in wrong, so the play page can mark them.
+     * Empty cells aren't counted as wrong.
+     *
+     * @param body - "solution" or "cells", same as validatePuzzle()
+     * @return "wrong", a Base64 bitmap with bit i (of byte i / 8, lowest bit first)
+     *         set if cell i row by row is wrong, and how many cells are wrong
+     */
+    @POST
+    @Path("/{id}/check/cells")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response checkCells(@PathParam("id") Long id, Map<String, String> body, @Context SecurityContext ctx) {
+        PuzzleCache.AnswerKey answers = findAnswerKey(id, ctx);
+        if (answers == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        String attempt;
+        byte[] wrong;
+        try {
+            attempt = readAttempt(body);
+            wrong = answers.solution().wrongCells(attempt);
+        } catch (IllegalArgumentException e) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e.getMessage())
+                    .build();
+        }
+
+        int wrongCount = 0;
+        for (byte bits : wrong) {
+            wrongCount += Integer.bitCount(bits & 0xFF);
+        }
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(wrongCount == 0 ? "No wrong letters so far." : wrongCount + " letters are wrong.")
+                .addObject("wrong", Base64.getEncoder().encodeToString(wrong))
+                .addObject("wrongCount", wrongCount)
+                .addObject("complete", answers.solution().matches(attempt))
+                .build();
+    }
+
+    /**
+     * Checks a single word of the grid.
+     *
+     * @param body - "label" and "direction" of the word's hint, and "letters", the
+     *        player's letters for just that word with '.' for empty cells
+     * @return Whether the word is right, and which positions in it are wrong or empty
+     */
+    @POST
+    @Path("/{id}/check/word")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response checkWord(@PathParam("id") Long id, Map<String, String> body, @Context SecurityContext ctx) {
+        if (body == null || body.get("label") == null || body.get("direction") == null || body.get("letters") == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'label', 'direction' or 'letters' field.")
+                    .build();
+        }
+        int label;
+        Direction direction;
+        try {
+            label = Integer.parseInt(body.get("label"));
+            direction = Direction.valueOf(body.get("direction"));
+        } catch (IllegalArgumentException e) { // NumberFormatException included
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Invalid 'label' or 'direction' field.")
+                    .build();
+        }
+
+        PuzzleCache.AnswerKey answers = findAnswerKey(id, ctx);
+        if (answers == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+        PuzzleSolution.Word word = answers.solution().findWord(label, direction);
+        if (word == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find " + label + " " + direction + " in that puzzle.")
+                    .build();
+        }
+
+        List<Integer> wrong;
+        try {
+            wrong = answers.solution().wrongLetters(word, PuzzleSolution.normalize(body.get("letters")));
+        } catch (IllegalArgumentException e) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e.getMessage())
+                    .build();
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(wrong.isEmpty() ? "That word is right!" : "That word isn't right yet.")
+                .addObject("correct", wrong.isEmpty())
+                .addObject("wrong", wrong)
+                .build();
+    }
+
+    /**
+     * Autosaves the player's progress. Only the cells that changed since the last
+     * save are sent, and they're merged into the saved progress in memory and
+     * written to the database every few seconds.
+     *
+     * @param body - "edits", a list of cells with their "row", "col" and "letter",
+     *        which is empty to clear the cell
+     * @return The progress's new revision
+     */
+    @PUT
+    @Path("/{id}/progress")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response saveProgress(@PathParam("id") Long id, Map<String, List<ProgressStore.Edit>> body,
+            @Context SecurityContext ctx) {
+        if (body == null || body.get("edits") == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing an 'edits' field.")
+                    .build();
+        }
+
+        PuzzleCache.AnswerKey answers = findAnswerKey(id, ctx);
+        if (answers == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+        int rows = answers.solution().getRows();
+        int cols = answers.solution().getCols();
+        if (body.get("edits").size() > rows * cols) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("At most " + rows * cols + " edits can be saved at once.")
+                    .build();
+        }
+
+        long revision;
+        try {
+            Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+            revision = progressStore.save(userId, id, rows, cols, body.get("edits"));
+        } catch (IllegalArgumentException e) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e.getMessage())
+                    .build();
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Successfully saved progress.")
+                .addObject("revision", revision)
+                .build();
+    }
+
+    /**
+     * Gets the player's saved progress, with every autosave so far merged in.
+     *
+     * @return "letters", one per cell row by row with '.' for blocked and empty
+     *         cells, and the progress's revision. Empty with revision 0 if nothing
+     *         was saved yet.
+     */
+    @GET
+    @Path("/{id}/progress")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public Response getProgress(@PathParam("id") Long id, @Context SecurityContext ctx) {
+        PuzzleCache.AnswerKey answers = findAnswerKey(id, ctx);
+        if (answers == null) {
+            return new ResponseBody(Response.Status.NOT_FOUND)
+                    .addMessage("Unable to find a puzzle with that ID.")
+                    .build();
+        }
+
+        int cells = answers.solution().getLetters().length();
+        Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+        SolveProgress.Snapshot progress = progressStore.get(userId, id, cells);
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage(progress == null ? "No progress saved yet." : "Successfully obtained progress.")
+                .addObject("letters", progress == null ? String.valueOf(PuzzleSolution.BLOCKED).repeat(cells) : progress.letters())
+                .addObject("revision", progress == null ? 0 : progress.revision())
+                .addHeader(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    /**
+     * @param id - The id of the puzzle
+     * @param ctx - The context
+     * @return The puzzle's answers, or null if there's no such puzzle or the user may not play it
+     */
+    private PuzzleCache.AnswerKey findAnswerKey(Long id, SecurityContext ctx) {
+        PuzzleCache.AnswerKey answers = puzzleCache.getAnswerKey(id);
+        if (answers == null || !canView("play", answers.stamp().creatorId(), answers.stamp().status(), ctx)) {
+            return null;
+        }
+        return answers;
+    }
+
+    /**
+     * Reads a player's attempt at a whole grid, from either the packed "solution"
+     * or the full "cells" JSON.
+     *
+     * @param body - The request body
+     * @return The attempt's letters, normalized like a stored solution
+     * @throws IllegalArgumentException If neither field is there, or the cells are malformed
+     */
+    private static String readAttempt(Map<String, String> body) {
+        if (body != null && body.get("solution") != null) {
+            return PuzzleSolution.normalize(body.get("solution"));
+        }
+        if (body != null && body.get("cells") != null) {
+            return PuzzleSolution.normalize(PuzzleSolution.of(PuzzleGrid.parse(body.get("cells"))).getLetters());
+        }
+        throw new IllegalArgumentException("Missing a 'solution' field.");
+    }
+
+    /**
+     * Playable if the puzzle is public or unlisted or if they have full access.
+     * Editable only if they have full access.
+     *
+     * @param mode - "play" or "edit"
+     * @param creatorId - The id of the user that created the puzzle
+     * @param status - The puzzle's status
+     * @param ctx - The context
+     * @return A boolean that's true if the authorized user may get the puzzle in that mode
+     */
+    private static boolean canView(String mode, Long creatorId, Status status, SecurityContext ctx) {
+        if (mode.equals("play") && (status.equals(Status.PUBLIC) || status.equals(Status.UNLISTED))) {
+            return true;
+        }
+        return hasFullAccess(creatorId, ctx);
+    }
+
+    /**
+     * Only the play view of a public puzzle is the same for everyone. Unlisted puzzles
+     * are kept out of shared caches too, since anyone with the link can see them.
+     */
+    private static String cacheControl(String mode, Status status) {
+        return mode.equals("play") && status.equals(Status.PUBLIC) ? HttpCaching.PUBLIC : HttpCaching.PRIVATE;
+    }
+
+    /**
+     * @param creatorId - The id of the user that created the puzzle
+     * @param ctx - The context
+     * @return A boolean that's true if the authorized user is the creator of the puzzle, or is an admin.
+     */
+    private static boolean hasFullAccess(Long creatorId, SecurityContext ctx) {
+        if (ctx.getUserPrincipal() == null)
+            return false;
+        if (ctx.getUserPrincipal().getName().equals(creatorId.toString()))
+            return true;
+        if (ctx.isUserInRole("ADMIN"))
+            return true;
+        return false;
+    }
+
+    /**
+     * Likes a puzzle on behalf of the authenticated user.
+     * @param puzzleId The ID of the puzzle to like.
+     * @param ctx The security context containing the authenticated user.
+     * @return HTTP 200 if successful, or HTTP 404 if the puzzle is not found.
+     */
+    @POST
+    @Path("/{puzzleId}/like")
+    @RolesAllowed({"USER"})
+    public Response likePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) {
+        Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+
+        // The like count itself is written behind, see PuzzleCounters
+        if (!puzzleCounters.setLiked(userId, puzzleId, true)) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build();
+        }
+
+        return Response.ok().entity("Puzzle liked successfully").build();
+    }
+
+    /**
+     * Unlikes a puzzle on behalf of the authenticated user.
+     *
+     * @param puzzleId The ID of the puzzle to unlike.
+     * @param ctx The security context containing the authenticated user.
+     * @return HTTP 200 if successful, or HTTP 404 if the puzzle is not found.
+     */
+    @POST
+    @Path("/{puzzleId}/unlike")
+    @RolesAllowed({"USER"})
+    public Response unlikePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) {
+        Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+
+        if (!puzzleCounters.setLiked(userId, puzzleId, false)) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build();
+        }
+
+        return Response.ok().entity("Puzzle unliked successfully").build();
+    }
+
+    /**
+     * Favorites a puzzle on behalf of the authenticated user.
+     *
+     * @param puzzleId The ID of the puzzle to favorite.
+     * @param ctx The security context containing the authenticated user.
+     * @return HTTP 200 if successful, or HTTP 404 if the puzzle is not found.
+     */
+    @POST
+    @Path("/{puzzleId}/favorite")
+    @RolesAllowed({"USER"})
+    public Response favoritePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) {
+        Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+
+        if (!puzzleCounters.setFavorited(userId, puzzleId, true)) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build();
+        }
+
+        return Response.ok().entity("Puzzle favorited successfully").build();
+    }
+
+    /**
+     * Removes a puzzle from the authenticated user's favorites.
+     *
+     * @param puzzleId The ID of the puzzle to unfavorite.
+     * @param ctx The security context containing the authenticated user.
+     * @return HTTP 200 if successful, or HTTP 404 if the puzzle is not found.
+     */
+    @POST
+    @Path("/{puzzleId}/unfavorite")
+    @RolesAllowed({"USER"})
+    public Response unfavoritePuzzle(@PathParam("puzzleId") Long puzzleId, @Context SecurityContext ctx) {
+        Long userId = Long.valueOf(ctx.getUserPrincipal().getName());
+
+        if (!puzzleCounters.setFavorited(userId, puzzleId, false)) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Puzzle or user not found").build();
+        }
+
+        return Response.ok().entity("Puzzle unfavorited successfully").build();
+    }
+}
@@ -1,12 +1,17 @@
 package Puzzle_Lab.Routes; 
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject; 
 import jakarta.ws.rs.*; 
 import jakarta.ws.rs.core.*; 
 
 import java.util.Map; 
+import jakarta.persistence.PersistenceException; 
 import jakarta.transaction.Transactional; 
+import org.hibernate.exception.ConstraintViolationException; 
 
+import Puzzle_Lab.AvailabilityFilter; 
+import Puzzle_Lab.PasswordHasher; 
 import Puzzle_Lab.ResponseBody; 
 import Puzzle_Lab.TokenService; 
 import Puzzle_Lab.Entities.User; 
@@ -14,6 +19,12 @@ import Puzzle_Lab.Entities.User;
 @ApplicationScoped 
 @Path("/register") 
 public class RegisterResource { 
+  @Inject 
+  AvailabilityFilter availability; 
+  
+  @Inject 
+  PasswordHasher passwordHasher; 
+  
   @POST 
   @Consumes(MediaType.APPLICATION_JSON) 
   @Produces(MediaType.APPLICATION_JSON) 
@@ -34,12 +45,21 @@ public class RegisterResource {
     if (!User.isValidPassword(password)) { 
       return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("Password must be between 8 - 64 characters.").build(); 
     } 
-    if (!User.isUsernameAvailable(username)) { 
+    if (!availability.isUsernameAvailable(username)) { 
       return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("Username already taken.").build(); 
     } 
-    User user = new User(username, password, email); 
-    user.persist(); // Send a token to the frontend to store. 
-    String token = TokenService.generateToken(user.getID()); 
+    User user = new User(username, passwordHasher.hash(password), email); 
+    try { 
+      user.persistAndFlush(); 
+    } catch (PersistenceException e) { 
+      // Someone registered the same username or email since the check above, the unique columns caught it 
+      if (e instanceof ConstraintViolationException || e.getCause() instanceof ConstraintViolationException) { 
+        return new ResponseBody(Response.Status.CONFLICT).addMessage("Username or email already taken.").build(); 
+      } 
+      throw e; 
+    } 
+    availability.userAdded(user); // Send a token to the frontend to store. 
+    String token = TokenService.generateToken(user); 
     return new ResponseBody(Response.Status.CREATED).addMessage("User registered successfully!").addObject("token", token).addObject("user", user.getFullDTO()).build(); 
   } 
 }
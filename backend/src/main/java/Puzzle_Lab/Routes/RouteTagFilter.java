@@ -0,0 +1,52 @@
+package Puzzle_Lab.Routes;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+import Puzzle_Lab.RequestRoute;
+import Puzzle_Lab.RouteMetrics;
+
+/**
+ * Names the endpoint of every matched request after its resource method, such as
+ * "PuzzleResource.getPuzzle", and counts the request against it.
+ *
+ * The request is timed from here until its last byte is written, so the time
+ * includes serializing and compressing the response. That's measured by Vert.x
+ * once the response ends, along with the status and the bytes actually sent.
+ */
+@Provider
+public class RouteTagFilter implements ContainerRequestFilter {
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    RequestRoute route;
+
+    @Inject
+    RouteMetrics metrics;
+
+    @Inject
+    CurrentVertxRequest currentRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        String name = resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        route.setName(name);
+        metrics.requestStarted(name);
+
+        HttpServerResponse response = currentRequest.getCurrent().response();
+        currentRequest.getCurrent().addEndHandler(result -> metrics.requestFinished(name,
+                System.nanoTime() - start, response.getStatusCode(), response.bytesWritten()));
+    }
+}
@@ -2,26 +2,56 @@ package Puzzle_Lab.Routes;
 
 import jakarta.annotation.security.RolesAllowed; 
 import jakarta.enterprise.context.ApplicationScoped; 
+import jakarta.inject.Inject; 
 import jakarta.transaction.Transactional; 
 import jakarta.ws.rs.*; 
 import jakarta.ws.rs.core.*; 
 
 import java.util.ArrayList; 
 import java.util.Arrays; 
+import java.util.HashSet; 
 import java.util.List; 
 import java.util.Map; 
+import java.util.Set; 
 import java.util.stream.Collectors; 
 
+import Puzzle_Lab.AvailabilityFilter; 
+import Puzzle_Lab.HttpCaching; 
+import Puzzle_Lab.PageCursor; 
+import Puzzle_Lab.PasswordHasher; 
+import Puzzle_Lab.ProgressStore; 
+import Puzzle_Lab.PuzzleCache; 
 import Puzzle_Lab.ResponseBody; 
+import Puzzle_Lab.RouteMetrics; 
 import Puzzle_Lab.Entities.Puzzle; 
+import Puzzle_Lab.Entities.PuzzleMark; 
+import Puzzle_Lab.Entities.PuzzleSummary; 
+import Puzzle_Lab.Entities.SolveProgress; 
 import Puzzle_Lab.Entities.User; 
+import Puzzle_Lab.Enums.MarkType; 
 import Puzzle_Lab.Enums.Status; 
 import Puzzle_Lab.Enums.Theme; 
-import io.quarkus.panache.common.Sort; 
+import io.quarkus.panache.common.Parameters; 
+import io.smallrye.common.annotation.RunOnVirtualThread; 
 
 @ApplicationScoped 
 @Path("/users") 
 public class UserResource { 
+  @Inject 
+  PuzzleCache puzzleCache; 
+  
+  @Inject 
+  AvailabilityFilter availability; 
+  
+  @Inject 
+  PasswordHasher passwordHasher; 
+  
+  @Inject 
+  RouteMetrics routeMetrics; 
+  
+  @Inject 
+  ProgressStore progressStore; 
+  
   @GET 
   @Path("/{id}") 
   @Produces(MediaType.APPLICATION_JSON) 
@@ -49,6 +79,39 @@ public class UserResource {
     return new ResponseBody(Response.Status.OK).addMessage("Successfully retrieved full user information").addObject("user", userToGet.getFullDTO()).build(); 
   } 
   
+  /** 
+  * Answers which of a set of puzzles the logged in user has liked, favorited or completed, in one query. 
+  * 
+  * @param ids - Comma separated puzzle ids, at most 100 
+  * @param ctx - The SecurityContext 
+  * @return The liked, favorited and completed puzzle ids among the ones asked about 
+  */ 
+  @GET 
+  @Path("/me/marks") 
+  @RolesAllowed({"USER"}) 
+  @Produces(MediaType.APPLICATION_JSON) 
+  @RunOnVirtualThread 
+  public Response getMyMarks(@QueryParam("ids") String ids, @Context SecurityContext ctx) { 
+    if (ids == null || ids.isBlank()) { 
+      return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("Please specify an 'ids' query parameter.").build(); 
+    } 
+    Set<Long> puzzleIds = new HashSet<>(); 
+    try { 
+      for (String part : ids.split(",")) { 
+        if (!part.isBlank()) 
+          puzzleIds.add(Long.valueOf(part.trim())); 
+      } 
+    } catch (NumberFormatException e) { 
+      return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("Invalid 'ids' query parameter.").build(); 
+    } 
+    if (puzzleIds.size() > 100) { 
+      return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("At most 100 ids can be checked at once.").build(); 
+    } 
+    Long userID = Long.valueOf(ctx.getUserPrincipal().getName()); 
+    Map<MarkType, List<Long>> marked = PuzzleMark.findMarked(userID, puzzleIds); 
+    return new ResponseBody(Response.Status.OK).addMessage("Successfully retrieved puzzle marks.").addObject("liked", marked.get(MarkType.LIKED)).addObject("favorited", marked.get(MarkType.FAVORITED)).addObject("completed", marked.get(MarkType.COMPLETED)).build(); 
+  } 
+  
   @Transactional 
   @PUT 
   @RolesAllowed({"USER"}) 
@@ -68,19 +131,25 @@ public class UserResource {
       String value = body.get(key); 
       switch (key) { 
         case "username" -> { 
-          if (!User.isUsernameAvailable(value) || !User.isValidUsername(value)) 
+          if (!User.isValidUsername(value) || !availability.isUsernameAvailable(value)) 
             invalidFields.add(key); 
-          else userToUpdate.setUsername(value); 
+          else { 
+            availability.usernameChanged(userToUpdate.getUsername(), value); 
+            userToUpdate.setUsername(value); 
+          } 
         } 
         case "password" -> { 
           if (!User.isValidPassword(value)) 
             invalidFields.add(key); 
-          else userToUpdate.setPassword(value); 
+          else userToUpdate.setHashedPassword(passwordHasher.hash(value)); 
         } 
         case "email" -> { 
-          if (!User.isEmailAvailable(value)) 
+          if (value == null || !availability.isEmailAvailable(value)) 
             invalidFields.add(key); 
-          else userToUpdate.setEmail(value); 
+          else { 
+            availability.emailChanged(userToUpdate.getEmail(), value); 
+            userToUpdate.setEmail(value); 
+          } 
         } 
         case "theme" -> { 
           boolean isValidTheme = Arrays.stream(Theme.values()).anyMatch(theme -> theme.name().equals(value)); 
@@ -95,7 +164,11 @@ public class UserResource {
         } 
         default -> invalidFields.add(key); 
       } 
+    } // Cached puzzles embed the creator's public details, and their ETags have to change with them 
+    if (body.containsKey("username") && !invalidFields.contains("username") || body.containsKey("avatar") && !invalidFields.contains("avatar")) { 
+      Puzzle.update("version = version + 1 where creator.id = ?1", id); 
     } 
+    puzzleCache.invalidateCreator(id); 
     return new ResponseBody(Response.Status.OK).addMessage(body.keySet().size() - invalidFields.size() + " fields were updated.").addObject("invalidFields", invalidFields) .build(); 
   } 
   
@@ -112,14 +185,20 @@ public class UserResource {
     if (!hasFullAccess(id, ctx)) { 
       return new ResponseBody(Response.Status.FORBIDDEN).addMessage("You do not have access to delete this user.").build(); 
     } 
+    PuzzleMark.delete("userId", id); 
+    progressStore.discardUser(id); 
+    SolveProgress.delete("userId", id); 
     userToDelete.delete(); 
+    availability.userRemoved(userToDelete); 
+    puzzleCache.invalidateCreator(id); 
     return new ResponseBody(Response.Status.OK).addMessage("Successfully deleted the user").build(); 
   }
   
   @GET 
   @Path("/{id}/puzzles") 
   @Produces(MediaType.APPLICATION_JSON) 
-  public Response getUsersPuzzles(@PathParam("id") Long id, @Context SecurityContext ctx, @QueryParam("limit") Integer limit, @QueryParam("page") Integer page) { 
+  @RunOnVirtualThread 
+  public Response getUsersPuzzles(@PathParam("id") Long id, @Context SecurityContext ctx, @Context Request request, @QueryParam("limit") Integer limit, @QueryParam("page") Integer page, @QueryParam("cursor") String cursor) { 
     User userToGet = User.getUser(id); 
     if (userToGet == null) { 
       return new ResponseBody(Response.Status.NOT_FOUND).addMessage("Couldn't find a user with that ID.").build(); 
@@ -130,15 +209,38 @@ public class UserResource {
     if (page == null) 
       page = 0; 
     else page = Math.max(page, 0); // min 0 
-    List<Puzzle> userPuzzles; // Return only public puzzles unless they have full access 
-    if (!hasFullAccess(id, ctx)) { 
-      userPuzzles = Puzzle.find("creator = ?1 and status = ?2", Sort.by("lastUpdated").descending(), userToGet, Status.PUBLIC).page(page, limit).list(); 
+    PageCursor after = null; 
+    if (cursor != null) { 
+      try { 
+        after = PageCursor.decode(cursor); 
+      } catch (IllegalArgumentException e) { 
+        return new ResponseBody(Response.Status.BAD_REQUEST).addMessage("Invalid 'cursor' query parameter.").build(); 
+      } 
+    } 
+    String query = "creator = :creator"; // Return only public puzzles unless they have full access 
+    Parameters parameters = Parameters.with("creator", userToGet); 
+    boolean fullAccess = hasFullAccess(id, ctx); 
+    if (!fullAccess) { 
+      query += " and status = :status"; 
+      parameters.and("status", Status.PUBLIC); 
+    } 
+    List<PuzzleSummary> userPuzzles; // A cursor starts right after the last puzzle seen, page/limit is kept for older clients 
+    if (after != null) { 
+      userPuzzles = Puzzle.find(query + " and " + PageCursor.AFTER, PageCursor.FEED_ORDER, after.addTo(parameters)).project(PuzzleSummary.class).page(0, limit).list(); 
     } 
     else { 
-      userPuzzles = Puzzle.find("creator = ?1", Sort.by("lastUpdated").descending(), userToGet).page(page, limit).list(); 
-    } // Convert the puzzles to their DTO form 
-    List<Object> puzzleDTOs = userPuzzles.stream().map(Puzzle::getEmptyDTO).collect(Collectors.toList()); 
-    return new ResponseBody(Response.Status.OK).addMessage("Successfully retrieved users puzzles.").addObject("puzzles", puzzleDTOs).build(); 
+      userPuzzles = Puzzle.find(query, PageCursor.FEED_ORDER, parameters).project(PuzzleSummary.class).page(page, limit).list(); 
+    } 
+    routeMetrics.rowsLoaded(userPuzzles.size()); // Projections skip the entity listener that counts rows 
+    // The owner's view includes private puzzles, so it gets its own tag and stays out of shared caches 
+    EntityTag tag = HttpCaching.pageTag(fullAccess ? "user" + id + "-all" : "user" + id, userPuzzles); 
+    String cacheControl = fullAccess ? HttpCaching.PRIVATE : HttpCaching.PUBLIC; 
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(tag); 
+    if (notModified != null) { 
+      return notModified.header(HttpHeaders.CACHE_CONTROL, cacheControl).build(); 
+    } // Convert the summaries to their DTO form, the cells and hints are only loaded when a puzzle is opened 
+    List<Object> puzzleDTOs = userPuzzles.stream().map(PuzzleSummary::getDTO).collect(Collectors.toList()); 
+    return new ResponseBody(Response.Status.OK).addMessage("Successfully retrieved users puzzles.").addObject("puzzles", puzzleDTOs).addObject("nextCursor", PageCursor.next(userPuzzles, limit)).addHeader(HttpHeaders.ETAG, tag).addHeader(HttpHeaders.CACHE_CONTROL, cacheControl).build(); 
   } 
   /** 
   * 
@@ -0,0 +1,73 @@
+package Puzzle_Lab.Routes;
+
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.*;
+
+import Puzzle_Lab.HttpCaching;
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.Words.Dictionary;
+import Puzzle_Lab.Words.WordIndex;
+
+/**
+ * REST API resource for looking up words while building a puzzle.
+ */
+@ApplicationScoped
+@Path("/words")
+public class WordResource {
+    private static final int MAX_LIMIT = 100;
+
+    @Inject
+    Dictionary dictionary;
+
+    /**
+     * Finds the words that fit a slot, best first.
+     *
+     * @param pattern - Letters and '?' wildcards, one per cell, such as "C?A?E"
+     * @param limit - The most words to return, 20 by default and at most 100
+     * @return The best matching words with their scores, and how many match in all
+     */
+    @GET
+    @Path("/matches")
+    @RolesAllowed({"USER"})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMatches(@QueryParam("pattern") String pattern, @QueryParam("limit") Integer limit,
+            @Context Request request) {
+        if (pattern == null) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage("Missing a 'pattern' query parameter.")
+                    .build();
+        }
+        if (limit == null)
+            limit = 20;
+        else
+            limit = Math.max(Math.min(limit, MAX_LIMIT), 0); // Max 100, min 0
+
+        // Only logged in users may ask, so the answer stays out of shared caches. The user's
+        // browser revalidates, and an unchanged word list answers with a 304 without matching.
+        EntityTag tag = HttpCaching.wordsTag(dictionary.getVersion(), pattern, limit);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.header(HttpHeaders.CACHE_CONTROL, HttpCaching.PRIVATE).build();
+        }
+
+        WordIndex.Matches matches;
+        try {
+            matches = dictionary.getIndex().match(pattern, limit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseBody(Response.Status.BAD_REQUEST)
+                    .addMessage(e.getMessage())
+                    .build();
+        }
+
+        return new ResponseBody(Response.Status.OK)
+                .addMessage("Found " + matches.total() + " matching words.")
+                .addObject("words", matches.words())
+                .addObject("total", matches.total())
+                .addHeader(HttpHeaders.ETAG, tag)
+                .addHeader(HttpHeaders.CACHE_CONTROL, HttpCaching.PRIVATE)
+                .build();
+    }
+}
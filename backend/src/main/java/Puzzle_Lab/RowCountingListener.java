@@ -0,0 +1,21 @@
+package Puzzle_Lab;
+
+import jakarta.persistence.PostLoad;
+
+import io.quarkus.arc.Arc;
+
+/**
+ * Counts every entity Hibernate loads from a row against the endpoint of the
+ * current request. Attached to entities with @EntityListeners.
+ */
+public class RowCountingListener {
+    private RouteMetrics metrics; // Looked up on first use, JPA creates the listener itself
+
+    @PostLoad
+    void loaded(Object entity) {
+        if (metrics == null) {
+            metrics = Arc.container().instance(RouteMetrics.class).get();
+        }
+        metrics.rowsLoaded(1);
+    }
+}
@@ -0,0 +1,106 @@
+package Puzzle_Lab;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.ParseException;
+
+/**
+ * Remembers tokens whose signature has already been verified, so a session
+ * making many requests pays for the RSA verification once instead of on every
+ * request.
+ *
+ * smallrye-jwt picks this up in place of its default factory. Tokens are keyed
+ * by their SHA-256 hash, so the cache never holds usable tokens, and an entry is
+ * only used until the token's own expiry. Anything not in the cache is verified
+ * by the default factory as before, and tokens that fail verification are never
+ * stored. The cache holds at most puzzlelab.token-cache.max-entries tokens and
+ * drops the least recently used first.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(1)
+public class TokenCache extends JWTCallerPrincipalFactory {
+    @ConfigProperty(name = "puzzlelab.token-cache.max-entries", defaultValue = "10000")
+    int maxEntries;
+
+    private final JWTCallerPrincipalFactory verifier = new DefaultJWTCallerPrincipalFactory();
+
+    // Access ordered, so iteration starts at the least recently used token
+    private final LinkedHashMap<String, JWTCallerPrincipal> verified = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    @Override
+    public JWTCallerPrincipal parse(String token, JWTAuthContextInfo authContextInfo) throws ParseException {
+        String key = hash(token);
+        long now = System.currentTimeMillis() / 1000;
+
+        synchronized (this) {
+            JWTCallerPrincipal principal = verified.get(key);
+            if (principal != null) {
+                if (principal.getExpirationTime() > now) {
+                    hits.increment();
+                    return principal;
+                }
+                verified.remove(key); // Expired, let the verifier reject it with the usual error
+            }
+        }
+
+        misses.increment();
+        JWTCallerPrincipal principal = verifier.parse(token, authContextInfo); // Throws if the token isn't valid
+
+        synchronized (this) {
+            verified.put(key, principal);
+            while (verified.size() > maxEntries) {
+                verified.remove(verified.keySet().iterator().next());
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * @return Hit and miss counts along with the current size of the cache
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("hits", hits.sum());
+        fields.put("misses", misses.sum());
+        synchronized (this) {
+            fields.put("entries", verified.size());
+        }
+        fields.put("maxEntries", maxEntries);
+
+        return fields;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available.", e);
+        }
+    }
+}
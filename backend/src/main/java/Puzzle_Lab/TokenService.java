@@ -8,11 +8,13 @@ import java.util.Set;
 import Puzzle_Lab.Entities.User;
 
 public class TokenService {
-    public static String generateToken(Long userID) {
-        boolean isAdmin = User.getUser(userID).isAdmin();
-
-        return Jwt.issuer("your-issuer").upn(userID.toString()) // Store the User ID as a string instead of the name
-                .groups(isAdmin ? Set.of("USER", "ADMIN") : Set.of("USER")) // Include admin if admin is set to true in database
+    /**
+     * @param user - The user that just logged in or registered, as already loaded by the caller
+     * @return A signed token identifying the user and their roles
+     */
+    public static String generateToken(User user) {
+        return Jwt.issuer("your-issuer").upn(user.getID().toString()) // Store the User ID as a string instead of the name
+                .groups(user.isAdmin() ? Set.of("USER", "ADMIN") : Set.of("USER")) // Include admin if admin is set to true in database
                 .expiresIn(Duration.ofDays(7)) // Token valid for 1 week
                 .sign();
     }
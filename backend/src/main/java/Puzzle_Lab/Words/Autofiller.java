@@ -0,0 +1,198 @@
+package Puzzle_Lab.Words;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import Puzzle_Lab.LatencyHistogram;
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleGrid;
+
+/**
+ * Fills the open cells of partial grids from the create page with words from
+ * the Dictionary.
+ *
+ * Fills run on their own ForkJoinPool, one thread per core by default, so a
+ * search never takes threads from request handling. Only a few fills run at
+ * once, since each one uses every thread in the pool, and the rest are turned
+ * away rather than queued.
+ */
+@ApplicationScoped
+public class Autofiller {
+    /**
+     * The widest and tallest grid that can be filled, same as the create page allows.
+     */
+    public static final int MAX_SIZE = PuzzleGrid.MAX_SIZE;
+
+    @ConfigProperty(name = "puzzlelab.autofill.timeout", defaultValue = "800ms")
+    Duration maxTimeout;
+
+    @ConfigProperty(name = "puzzlelab.autofill.threads", defaultValue = "0")
+    int configuredThreads;
+
+    @ConfigProperty(name = "puzzlelab.autofill.max-concurrent", defaultValue = "2")
+    int maxConcurrent;
+
+    @Inject
+    Dictionary dictionary;
+
+    private ForkJoinPool pool;
+    private Semaphore permits;
+    private final LatencyHistogram fillTime = new LatencyHistogram();
+    private final LongAdder filled = new LongAdder();
+    private final LongAdder unfilled = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * A grid to fill: its letters row by row, '\0' for open cells, and which cells are blocked.
+     */
+    public record Grid(int rows, int cols, char[] letters, boolean[] blocked) {
+        /**
+         * Reads a grid in the Cell shape the rest of the API uses. A cell is blocked
+         * when "isBlocked" is true, and its letter is kept when "character" is a letter.
+         *
+         * @param cellsJson - A 2D array of cells in JSON format
+         * @return The grid
+         * @throws IllegalArgumentException If the JSON isn't a rectangular 2D array of
+         *         cells no bigger than MAX_SIZE
+         */
+        public static Grid parse(String cellsJson) {
+            JsonNode root;
+            try {
+                root = ResponseBody.MAPPER.readTree(cellsJson);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("The cells aren't valid JSON.", e);
+            }
+            if (root == null || !root.isArray() || root.isEmpty() || !root.get(0).isArray() || root.get(0).isEmpty()) {
+                throw new IllegalArgumentException("The cells must be a 2D array.");
+            }
+
+            int rows = root.size();
+            int cols = root.get(0).size();
+            if (rows > MAX_SIZE || cols > MAX_SIZE) {
+                throw new IllegalArgumentException("Grids can be at most " + MAX_SIZE + "x" + MAX_SIZE + ".");
+            }
+            char[] letters = new char[rows * cols];
+            boolean[] blocked = new boolean[rows * cols];
+            for (int r = 0; r < rows; r++) {
+                JsonNode row = root.get(r);
+                if (!row.isArray() || row.size() != cols) {
+                    throw new IllegalArgumentException("Every row must be the same length.");
+                }
+                for (int c = 0; c < cols; c++) {
+                    JsonNode cell = row.get(c);
+                    blocked[r * cols + c] = cell.path("isBlocked").asBoolean(false);
+                    String character = cell.path("character").asText("");
+                    char letter = character.isEmpty() ? '\0' : Character.toUpperCase(character.charAt(0));
+                    letters[r * cols + c] = letter >= 'A' && letter <= 'Z' ? letter : '\0';
+                }
+            }
+            return new Grid(rows, cols, letters, blocked);
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Fills a grid, within the configured time.
+     *
+     * @param grid - The grid to fill
+     * @param timeout - How long the caller is willing to wait, or null for the most allowed
+     * @return How the fill went, or null if too many fills are already running
+     */
+    public GridFiller.Result fill(Grid grid, Duration timeout) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            Duration budget = timeout == null || timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout;
+            GridFiller.Result result = new GridFiller(dictionary.getIndex(), grid.rows(), grid.cols(),
+                    grid.letters(), grid.blocked()).fill(pool, budget.toNanos());
+            if (result.filled()) {
+                filled.increment();
+            } else if (result.timedOut()) {
+                timedOut.increment();
+            } else {
+                unfilled.increment();
+            }
+            return result;
+        } finally {
+            fillTime.recordNanos(System.nanoTime() - start);
+            permits.release();
+        }
+    }
+
+    /**
+     * @param grid - The grid that was filled
+     * @param result - How the fill went
+     * @return The filled grid in the Cell shape, with no character on blocked or unfilled cells
+     */
+    public static List<List<Puzzle.Cell>> toCells(Grid grid, GridFiller.Result result) {
+        List<List<Puzzle.Cell>> cells = new ArrayList<>(grid.rows());
+        for (int r = 0; r < grid.rows(); r++) {
+            List<Puzzle.Cell> row = new ArrayList<>(grid.cols());
+            for (int c = 0; c < grid.cols(); c++) {
+                int i = r * grid.cols() + c;
+                char letter = result.letters()[i];
+                Puzzle.Cell cell = new Puzzle.Cell(letter == '\0' || grid.blocked()[i] ? null : letter, 0, 0, 0);
+                cell.isBlocked = grid.blocked()[i];
+                row.add(cell);
+            }
+            cells.add(row);
+        }
+        return cells;
+    }
+
+    /**
+     * @return How many fills succeeded, failed or were turned away, and how long they took
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("words", dictionary.getIndex().size());
+        fields.put("threads", pool.getParallelism());
+        fields.put("filled", filled.sum());
+        fields.put("unfilled", unfilled.sum());
+        fields.put("timedOut", timedOut.sum());
+        fields.put("rejected", rejected.sum());
+        fields.put("fillTime", fillTime.getSummary());
+
+        return fields;
+    }
+
+    @PostConstruct
+    void start() {
+        // 0 means one thread per core, the search is pure CPU work
+        int threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        permits = new Semaphore(Math.max(maxConcurrent, 1));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,94 @@
+package Puzzle_Lab.Words;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Holds the word list used to suggest and fill in words, loaded once at startup.
+ *
+ * The list is read from puzzlelab.words.path, first as a file and then as a
+ * resource on the classpath. No list ships with the backend, so until one is
+ * configured the index is empty and autofill finds nothing.
+ */
+@ApplicationScoped
+public class Dictionary {
+    private static final Logger LOG = Logger.getLogger(Dictionary.class);
+
+    @ConfigProperty(name = "puzzlelab.words.path", defaultValue = "words.txt")
+    String path;
+
+    private volatile WordIndex index = WordIndex.empty();
+    private volatile long version = System.currentTimeMillis(); // When the index was loaded, for ETags
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The current word index, empty if no word list could be loaded
+     */
+    public WordIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return A number that changes whenever a word list is loaded, including on
+     *         every restart, since the list may have changed in between
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    void onStart(@Observes StartupEvent event) {
+        long start = System.nanoTime();
+        try {
+            List<String> lines = readLines();
+            if (lines == null) {
+                LOG.warnf("No word list found at '%s', autofill and word suggestions are disabled.", path);
+                return;
+            }
+            index = WordIndex.build(lines);
+            version = System.currentTimeMillis();
+            LOG.infof("Loaded %d words from '%s' in %d ms (about %d KB indexed).", index.size(), path,
+                    (System.nanoTime() - start) / 1_000_000, index.estimateBytes() / 1024);
+        } catch (IOException e) {
+            LOG.errorf(e, "Unable to read the word list at '%s'.", path);
+        }
+    }
+
+    /**
+     * @return The lines of the word list, or null if there isn't one
+     */
+    private List<String> readLines() throws IOException {
+        Path file = Path.of(path);
+        if (Files.isRegularFile(file)) {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        }
+
+        InputStream resource = Thread.currentThread().getContextClassLoader().getResourceAsStream(path);
+        if (resource == null) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
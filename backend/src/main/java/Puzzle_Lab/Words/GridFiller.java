@@ -0,0 +1,459 @@
+package Puzzle_Lab.Words;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the open cells of a crossword grid with words from a WordIndex, so that
+ * every across and down run of two or more cells is a word and no word is used
+ * twice.
+ *
+ * Each slot (run of cells) keeps a bitset of the words that could still go in
+ * it, and each cell a 26-bit set of the letters that could still go there. When
+ * a slot's candidates change, the letters they allow at each cell are worked out
+ * and the crossing slots are narrowed to words with one of those letters there,
+ * which may narrow their own crossings in turn (constraint propagation). The
+ * search then picks the slot with the fewest candidates left, tries its best
+ * words in order and backtracks on a dead end. The first levels of the search
+ * are split across a ForkJoinPool, and the first branch to fill the grid wins.
+ *
+ * Runs that are already complete are left as they are, even if they aren't in
+ * the word list. A filler is used for one fill and isn't thread safe to reuse.
+ */
+public final class GridFiller {
+    private static final int ALL_LETTERS = (1 << 26) - 1;
+    private static final int PARALLEL_DEPTH = 2; // Levels of the search that are split into tasks
+    private static final int SMALL_DOMAIN = 64; // Below this many candidates, letters are read word by word
+
+    private final WordIndex index;
+    private final int rows;
+    private final int cols;
+    private final char[] letters;
+    private final List<Slot> slots = new ArrayList<>();
+    private final List<List<int[]>> crossings = new ArrayList<>(); // Per cell, the {slot, position} pairs through it
+
+    private final AtomicReference<State> solution = new AtomicReference<>();
+    private final LongAdder nodes = new LongAdder();
+    private long deadline;
+    private int branching;
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * A run of open cells that has to hold a word.
+     */
+    private record Slot(int id, int length, int[] cells) {
+    }
+
+    /**
+     * How a fill went.
+     *
+     * @param filled - True if every slot got a word
+     * @param timedOut - True if the time ran out before a fill was found or ruled out
+     * @param letters - The grid's letters, row by row, with '\0' for blocked and unfilled cells
+     * @param nodes - How many partial fills were tried
+     * @param reason - Why the grid couldn't be filled, or null
+     */
+    public record Result(boolean filled, boolean timedOut, char[] letters, long nodes, String reason) {
+    }
+
+    /**
+     * One point in the search: each slot's remaining candidates, each cell's
+     * remaining letters and the slots given a word so far. Copies share their
+     * candidate bitsets until one of them changes a slot's.
+     */
+    private static final class State {
+        final long[][] domains;
+        final boolean[] owned;
+        final int[] allowed;
+        final int[] assigned;
+
+        State(long[][] domains, int[] allowed, int[] assigned) {
+            this.domains = domains;
+            this.owned = new boolean[domains.length];
+            this.allowed = allowed;
+            this.assigned = assigned;
+        }
+
+        State copy() {
+            return new State(domains.clone(), allowed.clone(), assigned.clone());
+        }
+
+        long[] writable(int slot) {
+            if (!owned[slot]) {
+                domains[slot] = domains[slot].clone();
+                owned[slot] = true;
+            }
+            return domains[slot];
+        }
+    }
+
+    private final class Search extends RecursiveAction {
+        private final State state;
+        private final int depth;
+
+        Search(State state, int depth) {
+            this.state = state;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            search(state, depth);
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @param index - The words to fill with
+     * @param rows - The number of rows in the grid
+     * @param cols - The number of columns in the grid
+     * @param letters - The grid's letters, row by row. 'A' to 'Z' are kept, '\0' is an open cell
+     * @param blocked - Which cells are blocked, row by row
+     */
+    public GridFiller(WordIndex index, int rows, int cols, char[] letters, boolean[] blocked) {
+        this.index = index;
+        this.rows = rows;
+        this.cols = cols;
+        this.letters = letters.clone();
+        for (int i = 0; i < rows * cols; i++) {
+            crossings.add(new ArrayList<>(2));
+        }
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; ) {
+                int end = c;
+                while (end < cols && !blocked[r * cols + end]) {
+                    end++;
+                }
+                addSlot(r * cols + c, 1, end - c);
+                c = end + 1;
+            }
+        }
+        for (int c = 0; c < cols; c++) {
+            for (int r = 0; r < rows; ) {
+                int end = r;
+                while (end < rows && !blocked[end * cols + c]) {
+                    end++;
+                }
+                addSlot(r * cols + c, cols, end - r);
+                r = end + 1;
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Fills the grid, giving up when the time runs out.
+     *
+     * @param pool - The pool the search is split across
+     * @param timeoutNanos - How long to search for
+     * @return The fill, or why there isn't one
+     */
+    public Result fill(ForkJoinPool pool, long timeoutNanos) {
+        deadline = System.nanoTime() + timeoutNanos;
+        branching = Math.max(2, pool.getParallelism());
+
+        for (Slot slot : slots) {
+            if (index.count(slot.length()) == 0) {
+                return new Result(false, false, letters, 0, "There are no " + slot.length() + " letter words in the word list.");
+            }
+        }
+
+        long[][] domains = new long[slots.size()][];
+        int[] assigned = new int[slots.size()];
+        for (Slot slot : slots) {
+            domains[slot.id()] = index.all(slot.length());
+            assigned[slot.id()] = -1;
+        }
+        int[] allowed = new int[rows * cols];
+        for (int cell = 0; cell < allowed.length; cell++) {
+            allowed[cell] = letters[cell] >= 'A' && letters[cell] <= 'Z' ? 1 << (letters[cell] - 'A') : ALL_LETTERS;
+        }
+
+        State root = new State(domains, allowed, assigned);
+        for (int s = 0; s < slots.size(); s++) {
+            root.owned[s] = true; // Made just for this fill
+        }
+        if (!propagate(root, allSlots())) {
+            return new Result(false, false, letters, 0, "No words fit the letters already in the grid.");
+        }
+
+        pool.invoke(new Search(root, 0));
+
+        State solved = solution.get();
+        if (solved == null) {
+            boolean timedOut = System.nanoTime() > deadline;
+            return new Result(false, timedOut, letters, nodes.sum(),
+                    timedOut ? "No fill was found in time." : "No fill exists with the words in the word list.");
+        }
+
+        char[] filled = letters.clone();
+        for (Slot slot : slots) {
+            int word = solved.assigned[slot.id()];
+            for (int p = 0; p < slot.length(); p++) {
+                filled[slot.cells()[p]] = (char) ('A' + index.letterAt(slot.length(), word, p));
+            }
+        }
+        return new Result(true, false, filled, nodes.sum(), null);
+    }
+
+    /**
+     * Tries the candidates of the most constrained slot, splitting the first
+     * levels into parallel tasks.
+     */
+    private void search(State state, int depth) {
+        if (solution.get() != null || System.nanoTime() > deadline) {
+            return;
+        }
+        nodes.increment();
+
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (Slot slot : slots) {
+            if (state.assigned[slot.id()] < 0) {
+                int count = WordIndex.cardinality(state.domains[slot.id()]);
+                if (count < bestCount) {
+                    best = slot.id();
+                    bestCount = count;
+                }
+            }
+        }
+        if (best < 0) {
+            solution.compareAndSet(null, state);
+            return;
+        }
+
+        long[] candidates = state.domains[best];
+        int word = WordIndex.nextSetBit(candidates, 0);
+        if (depth < PARALLEL_DEPTH) {
+            List<Search> tasks = new ArrayList<>(branching);
+            for (; word >= 0 && tasks.size() < branching; word = WordIndex.nextSetBit(candidates, word + 1)) {
+                State child = state.copy();
+                if (assign(child, best, word)) {
+                    tasks.add(new Search(child, depth + 1));
+                }
+            }
+            RecursiveAction.invokeAll(tasks);
+        }
+        for (; word >= 0; word = WordIndex.nextSetBit(candidates, word + 1)) {
+            if (solution.get() != null || System.nanoTime() > deadline) {
+                return;
+            }
+            State child = state.copy();
+            if (assign(child, best, word)) {
+                search(child, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Puts a word in a slot, takes it out of every other slot of the same length
+     * and propagates.
+     *
+     * @return False if that leaves some slot without candidates
+     */
+    private boolean assign(State state, int slotId, int word) {
+        Slot slot = slots.get(slotId);
+        long[] domain = state.writable(slotId);
+        Arrays.fill(domain, 0);
+        domain[word >>> 6] = 1L << word;
+        state.assigned[slotId] = word;
+
+        SlotQueue queue = new SlotQueue(new int[slots.size() * 4], 0);
+        queue.offer(slotId);
+        for (Slot other : slots) {
+            if (other.id() != slotId && other.length() == slot.length() && state.assigned[other.id()] < 0
+                    && (state.domains[other.id()][word >>> 6] & (1L << word)) != 0) {
+                long[] otherDomain = state.writable(other.id());
+                otherDomain[word >>> 6] &= ~(1L << word);
+                if (WordIndex.cardinality(otherDomain) == 0) {
+                    return false;
+                }
+                queue.offer(other.id());
+            }
+        }
+        return propagate(state, queue);
+    }
+
+    /**
+     * Narrows slots to the letters their cells allow and cells to the letters
+     * their slots allow, until nothing changes.
+     *
+     * @return False if some slot ran out of candidates
+     */
+    private boolean propagate(State state, SlotQueue queue) {
+        while (!queue.isEmpty()) {
+            Slot slot = slots.get(queue.poll());
+            for (int p = 0; p < slot.length(); p++) {
+                if (!restrict(state, slot, p, state.allowed[slot.cells()[p]])) {
+                    return false;
+                }
+            }
+
+            long[] domain = state.domains[slot.id()];
+            for (int p = 0; p < slot.length(); p++) {
+                int cell = slot.cells()[p];
+                int possible = lettersAt(domain, slot.length(), p) & state.allowed[cell];
+                if (possible == 0) {
+                    return false;
+                }
+                if (possible != state.allowed[cell]) {
+                    state.allowed[cell] = possible;
+                    for (int[] crossing : crossings.get(cell)) {
+                        if (crossing[0] != slot.id()) {
+                            queue.offer(crossing[0]);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the candidates of a slot that don't have one of some letters at a position.
+     *
+     * @return False if no candidates are left
+     */
+    private boolean restrict(State state, Slot slot, int position, int allowedLetters) {
+        if (allowedLetters == ALL_LETTERS) {
+            return true;
+        }
+        long[] domain = state.domains[slot.id()];
+        int length = slot.length();
+
+        // Whichever of the allowed and excluded letters is fewer is OR-ed together
+        boolean keep = Integer.bitCount(allowedLetters) <= 13;
+        int letterSet = keep ? allowedLetters : ~allowedLetters & ALL_LETTERS;
+        long[] union = new long[domain.length];
+        for (int letter = 0; letter < 26; letter++) {
+            if ((letterSet & (1 << letter)) != 0) {
+                long[] mask = index.mask(length, position, letter);
+                for (int i = 0; i < union.length; i++) {
+                    union[i] |= mask[i];
+                }
+            }
+        }
+
+        boolean changed = false;
+        boolean any = false;
+        for (int i = 0; i < domain.length; i++) {
+            long narrowed = keep ? domain[i] & union[i] : domain[i] & ~union[i];
+            if (narrowed != domain[i]) {
+                if (!changed) {
+                    domain = state.writable(slot.id());
+                    changed = true;
+                }
+                domain[i] = narrowed;
+            }
+            any |= narrowed != 0;
+        }
+        return any;
+    }
+
+    /**
+     * @return The set of letters the candidates have at a position, as a 26-bit mask
+     */
+    private int lettersAt(long[] domain, int length, int position) {
+        int possible = 0;
+        if (WordIndex.cardinality(domain) <= SMALL_DOMAIN) {
+            for (int word = WordIndex.nextSetBit(domain, 0); word >= 0; word = WordIndex.nextSetBit(domain, word + 1)) {
+                possible |= 1 << index.letterAt(length, word, position);
+            }
+            return possible;
+        }
+        for (int letter = 0; letter < 26; letter++) {
+            if (WordIndex.intersects(domain, index.mask(length, position, letter))) {
+                possible |= 1 << letter;
+            }
+        }
+        return possible;
+    }
+
+    /**
+     * Adds a run as a slot if it's long enough to be a word and still has an open cell.
+     */
+    private void addSlot(int start, int step, int length) {
+        if (length < WordIndex.MIN_LENGTH) {
+            return;
+        }
+        int[] cells = new int[length];
+        boolean open = false;
+        for (int p = 0; p < length; p++) {
+            cells[p] = start + p * step;
+            open |= letters[cells[p]] < 'A' || letters[cells[p]] > 'Z';
+        }
+        if (!open) {
+            return; // Already complete, left as the creator wrote it
+        }
+
+        Slot slot = new Slot(slots.size(), length, cells);
+        slots.add(slot);
+        for (int p = 0; p < length; p++) {
+            crossings.get(cells[p]).add(new int[] { slot.id(), p });
+        }
+    }
+
+    private SlotQueue allSlots() {
+        int[] queue = new int[slots.size() * 4];
+        for (int s = 0; s < slots.size(); s++) {
+            queue[s] = s;
+        }
+        return new SlotQueue(queue, slots.size());
+    }
+
+    /**
+     * A FIFO of slot ids that skips slots already waiting in it.
+     */
+    private final class SlotQueue {
+        private final int[] items;
+        private final boolean[] queued = new boolean[slots.size()];
+        private int head = 0;
+        private int tail;
+
+        SlotQueue(int[] items, int size) {
+            this.items = items;
+            this.tail = size;
+            for (int i = 0; i < size; i++) {
+                queued[items[i]] = true;
+            }
+        }
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        int poll() {
+            int slot = items[head++];
+            queued[slot] = false;
+            return slot;
+        }
+
+        void offer(int slot) {
+            if (queued[slot]) {
+                return;
+            }
+            if (tail == items.length) {
+                System.arraycopy(items, head, items, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            items[tail++] = slot;
+            queued[slot] = true;
+        }
+    }
+}
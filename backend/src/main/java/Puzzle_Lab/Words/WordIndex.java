@@ -0,0 +1,355 @@
+package Puzzle_Lab.Words;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable word list, indexed so that "which words have this letter at this
+ * position" is a bitset lookup.
+ *
+ * Words are grouped by length. Within a length they're sorted best first (by
+ * score, then alphabetically), and word i is bit i of every bitset for that
+ * length. For each position and letter there's a bitset of the words with that
+ * letter there, so narrowing candidates down is a few ANDs of long arrays and
+ * walking the result in bit order visits the best words first. Letters are kept
+ * as one byte each in a flat array per length.
+ */
+public final class WordIndex {
+    /**
+     * The longest word kept. Grids are at most 25 cells wide.
+     */
+    public static final int MAX_LENGTH = 25;
+
+    /**
+     * The shortest word kept. Single letter runs aren't words in a crossword.
+     */
+    public static final int MIN_LENGTH = 2;
+
+    private static final int LETTERS = 26;
+
+    private final Bucket[] buckets = new Bucket[MAX_LENGTH + 1];
+    private final int size;
+
+    /////////////////////////////////////////////////////////
+    // ------------------ NESTED CLASSES ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Every word of one length.
+     */
+    private static final class Bucket {
+        final int length;
+        final int count;
+        final byte[] letters; // Word i is letters[i * length] to letters[i * length + length - 1], 0 = 'A'
+        final int[] scores;
+        final long[][] masks; // [position * 26 + letter] -> bitset of words
+        final long[] all;
+
+        Bucket(int length, List<Map.Entry<String, Integer>> words) {
+            this.length = length;
+            this.count = words.size();
+            this.letters = new byte[count * length];
+            this.scores = new int[count];
+            this.masks = new long[length * LETTERS][words(count)];
+            this.all = new long[words(count)];
+
+            for (int i = 0; i < count; i++) {
+                String word = words.get(i).getKey();
+                scores[i] = words.get(i).getValue();
+                all[i >>> 6] |= 1L << i;
+                for (int p = 0; p < length; p++) {
+                    int letter = word.charAt(p) - 'A';
+                    letters[i * length + p] = (byte) letter;
+                    masks[p * LETTERS + letter][i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * A word and its score.
+     */
+    public record Suggestion(String word, int score) {
+    }
+
+    /**
+     * The best words matching a pattern, and how many matched in all.
+     */
+    public record Matches(List<Suggestion> words, int total) {
+    }
+
+    /////////////////////////////////////////////////////////
+    // ------------------- CONSTRUCTORS ------------------ //
+    /////////////////////////////////////////////////////////
+
+    private WordIndex(Map<String, Integer> words) {
+        Map<Integer, List<Map.Entry<String, Integer>>> byLength = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : words.entrySet()) {
+            byLength.computeIfAbsent(entry.getKey().length(), length -> new ArrayList<>()).add(entry);
+        }
+
+        int total = 0;
+        for (Map.Entry<Integer, List<Map.Entry<String, Integer>>> entry : byLength.entrySet()) {
+            List<Map.Entry<String, Integer>> sorted = entry.getValue();
+            sorted.sort(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                    .thenComparing(Map.Entry::getKey));
+            buckets[entry.getKey()] = new Bucket(entry.getKey(), sorted);
+            total += sorted.size();
+        }
+        this.size = total;
+    }
+
+    /**
+     * Builds an index from the lines of a word list. Each line is a word,
+     * optionally followed by ";" and a score from 0 to 100 (default 50), the
+     * format most crossword word lists use. Words are uppercased, anything that
+     * isn't a letter is dropped ("ice cream" becomes ICECREAM), and words that end
+     * up too short or too long are skipped. A word listed twice keeps its best score.
+     *
+     * @param lines - The lines of the word list
+     * @return The index
+     */
+    public static WordIndex build(Iterable<String> lines) {
+        Map<String, Integer> words = new HashMap<>();
+        for (String line : lines) {
+            int separator = line.indexOf(';');
+            String word = normalize(separator < 0 ? line : line.substring(0, separator));
+            if (word.length() < MIN_LENGTH || word.length() > MAX_LENGTH) {
+                continue;
+            }
+
+            int score = 50;
+            if (separator >= 0) {
+                try {
+                    score = Integer.parseInt(line.substring(separator + 1).trim());
+                } catch (NumberFormatException e) {
+                    // Keep the default score
+                }
+            }
+            words.merge(word, score, Math::max);
+        }
+        return new WordIndex(words);
+    }
+
+    /**
+     * @return An index with no words
+     */
+    public static WordIndex empty() {
+        return new WordIndex(Map.of());
+    }
+
+    /////////////////////////////////////////////////////////
+    // --------------------- GETTERS --------------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * @return The number of words in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param length - A word length
+     * @return The number of words of that length
+     */
+    public int count(int length) {
+        Bucket bucket = bucket(length);
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    /**
+     * @param length - A word length
+     * @return A new bitset with a bit set for every word of that length
+     */
+    public long[] all(int length) {
+        Bucket bucket = bucket(length);
+        return bucket == null ? new long[0] : bucket.all.clone();
+    }
+
+    /**
+     * @param length - A word length
+     * @param position - A position in the word, from 0
+     * @param letter - A letter, from 0 for A to 25 for Z
+     * @return The bitset of words of that length with that letter at that
+     *         position. Shared, so it must not be changed.
+     */
+    public long[] mask(int length, int position, int letter) {
+        return bucket(length).masks[position * LETTERS + letter];
+    }
+
+    /**
+     * @param length - A word length
+     * @param index - The word's bit in the bitsets of that length
+     * @param position - A position in the word, from 0
+     * @return The letter there, from 0 for A to 25 for Z
+     */
+    public int letterAt(int length, int index, int position) {
+        return bucket(length).letters[index * length + position];
+    }
+
+    /**
+     * @param length - A word length
+     * @param index - The word's bit in the bitsets of that length
+     * @return The word
+     */
+    public String word(int length, int index) {
+        Bucket bucket = bucket(length);
+        char[] chars = new char[length];
+        for (int p = 0; p < length; p++) {
+            chars[p] = (char) ('A' + bucket.letters[index * length + p]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param length - A word length
+     * @param index - The word's bit in the bitsets of that length
+     * @return The word's score, higher is better
+     */
+    public int score(int length, int index) {
+        return bucket(length).scores[index];
+    }
+
+    /**
+     * @return Roughly how many bytes the letters, scores and bitsets take up
+     */
+    public long estimateBytes() {
+        long bytes = 0;
+        for (Bucket bucket : buckets) {
+            if (bucket != null) {
+                bytes += bucket.letters.length + 4L * bucket.scores.length
+                        + 8L * (bucket.masks.length + 1) * words(bucket.count);
+            }
+        }
+        return bytes;
+    }
+
+    /////////////////////////////////////////////////////////
+    // ----------------- HELPFUL METHODS ----------------- //
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Finds the words matching a pattern like "C?A?E", best first. The known
+     * letters' bitsets are ANDed one block of 64 words at a time, so nothing is
+     * allocated for the bitsets and the words are read in rank order as they're found.
+     *
+     * @param pattern - Letters and wildcards ('?', '.' or '_'), one per position
+     * @param limit - The most words to return
+     * @return The best matching words, and how many words match in all
+     * @throws IllegalArgumentException If the pattern has anything but letters and
+     *         wildcards, or is too short or too long to be a word
+     */
+    public Matches match(String pattern, int limit) {
+        int length = pattern.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Patterns must be " + MIN_LENGTH + " to " + MAX_LENGTH + " characters long.");
+        }
+        Bucket bucket = bucket(length);
+        List<long[]> known = new ArrayList<>(length);
+        for (int p = 0; p < length; p++) {
+            char c = Character.toUpperCase(pattern.charAt(p));
+            if (c >= 'A' && c <= 'Z') {
+                if (bucket != null) {
+                    known.add(bucket.masks[p * LETTERS + c - 'A']);
+                }
+            } else if (c != '?' && c != '.' && c != '_') {
+                throw new IllegalArgumentException("Patterns can only have letters and '?' wildcards.");
+            }
+        }
+
+        List<Suggestion> words = new ArrayList<>(Math.min(limit, 128));
+        if (bucket == null) {
+            return new Matches(words, 0);
+        }
+
+        int total = 0;
+        for (int i = 0; i < bucket.all.length; i++) {
+            long block = bucket.all[i];
+            for (int k = 0; k < known.size() && block != 0; k++) {
+                block &= known.get(k)[i];
+            }
+            total += Long.bitCount(block);
+            while (block != 0 && words.size() < limit) {
+                int word = (i << 6) + Long.numberOfTrailingZeros(block);
+                words.add(new Suggestion(word(length, word), bucket.scores[word]));
+                block &= block - 1;
+            }
+        }
+        return new Matches(words, total);
+    }
+
+    /**
+     * @param word - A word as typed
+     * @return The word uppercased, with everything but the letters A to Z removed
+     */
+    public static String normalize(String word) {
+        StringBuilder letters = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = Character.toUpperCase(word.charAt(i));
+            if (c >= 'A' && c <= 'Z') {
+                letters.append(c);
+            }
+        }
+        return letters.toString();
+    }
+
+    /**
+     * @param bits - A bitset
+     * @return The number of bits set
+     */
+    public static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param a - A bitset
+     * @param b - A bitset of the same length
+     * @return True if any bit is set in both
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param bits - A bitset
+     * @param from - The first bit to look at
+     * @return The first set bit at or after from, or -1 if there is none
+     */
+    public static int nextSetBit(long[] bits, int from) {
+        int i = from >>> 6;
+        if (i >= bits.length) {
+            return -1;
+        }
+        long word = bits[i] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == bits.length) {
+                return -1;
+            }
+            word = bits[i];
+        }
+    }
+
+    private Bucket bucket(int length) {
+        return length < 0 || length > MAX_LENGTH ? null : buckets[length];
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
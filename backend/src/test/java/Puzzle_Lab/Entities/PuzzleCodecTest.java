@@ -0,0 +1,156 @@
+package Puzzle_Lab.Entities;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import Puzzle_Lab.Enums.Direction;
+import Puzzle_Lab.LoadTest.PuzzleGenerator;
+
+public class PuzzleCodecTest {
+    @Test
+    public void gridRoundTrips() {
+        for (int size : new int[] { 1, 5, 15, PuzzleGrid.MAX_SIZE }) {
+            PuzzleGrid grid = PuzzleGrid.parse(PuzzleGenerator.generate(size, size).cellsJson());
+            byte[] data = PuzzleCodec.encodeGrid(grid);
+
+            assertEquals(PuzzleCodec.FORMAT_VERSION, data[0]);
+            assertSameGrid(grid, PuzzleCodec.decodeGrid(data));
+        }
+    }
+
+    @Test
+    public void emptyGridRoundTrips() {
+        PuzzleGrid grid = PuzzleGrid.empty();
+        assertSameGrid(grid, PuzzleCodec.decodeGrid(PuzzleCodec.encodeGrid(grid)));
+    }
+
+    @Test
+    public void hintsRoundTrip() {
+        List<Puzzle.Hint> hints = List.of(
+                new Puzzle.Hint("Short", 1, Direction.ACROSS),
+                new Puzzle.Hint("Ünïcödé ✓", 1, Direction.DOWN),
+                new Puzzle.Hint("", 2, Direction.ACROSS),
+                new Puzzle.Hint(null, 3, Direction.DOWN),
+                new Puzzle.Hint("No direction", 4, null),
+                new Puzzle.Hint("A long clue ".repeat(40), 300, Direction.ACROSS));
+
+        assertSameHints(hints, PuzzleCodec.decodeHints(PuzzleCodec.encodeHints(hints)));
+        assertSameHints(List.of(), PuzzleCodec.decodeHints(PuzzleCodec.encodeHints(List.of())));
+    }
+
+    @Test
+    public void gridDeltaRebuildsTheEditedGrid() {
+        PuzzleGrid base = PuzzleGrid.parse(PuzzleGenerator.generate(15, 7).cellsJson());
+        PuzzleGrid target = base.withEdits(List.of(
+                new PuzzleGrid.CellEdit(0, 0, "Q", null, null, null),
+                new PuzzleGrid.CellEdit(7, 3, "", null, null, null),
+                new PuzzleGrid.CellEdit(14, 14, "Z", 99, 12, 34)));
+
+        byte[] delta = PuzzleCodec.encodeGridDelta(base, target);
+
+        assertTrue(delta.length < PuzzleCodec.encodeGrid(target).length);
+        assertSameGrid(target, PuzzleCodec.applyGridDelta(base, delta));
+    }
+
+    @Test
+    public void gridDeltaOfUnchangedGridChangesNothing() {
+        PuzzleGrid grid = PuzzleGrid.parse(PuzzleGenerator.generate(5, 1).cellsJson());
+        assertSameGrid(grid, PuzzleCodec.applyGridDelta(grid, PuzzleCodec.encodeGridDelta(grid, grid)));
+    }
+
+    @Test
+    public void gridDeltaNeedsGridsOfTheSameSize() {
+        PuzzleGrid small = PuzzleGrid.parse(PuzzleGenerator.generate(5, 1).cellsJson());
+        PuzzleGrid large = PuzzleGrid.parse(PuzzleGenerator.generate(6, 1).cellsJson());
+
+        assertNull(PuzzleCodec.encodeGridDelta(small, large));
+        byte[] delta = PuzzleCodec.encodeGridDelta(large, large);
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.applyGridDelta(small, delta));
+    }
+
+    @Test
+    public void hintsDeltaRebuildsTheEditedHints() {
+        List<Puzzle.Hint> base = List.of(
+                new Puzzle.Hint("One", 1, Direction.ACROSS),
+                new Puzzle.Hint("Two", 1, Direction.DOWN),
+                new Puzzle.Hint("Three", 2, Direction.ACROSS));
+        List<Puzzle.Hint> target = List.of(
+                new Puzzle.Hint("One", 1, Direction.ACROSS),
+                new Puzzle.Hint("Three, reworded", 2, Direction.ACROSS),
+                new Puzzle.Hint("Four", 4, Direction.DOWN));
+
+        byte[] delta = PuzzleCodec.encodeHintsDelta(base, target);
+
+        assertSameHints(target, PuzzleCodec.applyHintsDelta(base, delta));
+    }
+
+    @Test
+    public void reorderedHintsHaveNoDelta() {
+        List<Puzzle.Hint> base = List.of(
+                new Puzzle.Hint("One", 1, Direction.ACROSS),
+                new Puzzle.Hint("Two", 1, Direction.DOWN));
+        List<Puzzle.Hint> target = new ArrayList<>(base);
+        target.add(0, target.remove(1));
+
+        assertNull(PuzzleCodec.encodeHintsDelta(base, target));
+    }
+
+    @Test
+    public void rejectsUnknownFormats() {
+        byte[] data = PuzzleCodec.encodeGrid(PuzzleGrid.parse(PuzzleGenerator.generate(5, 1).cellsJson()));
+        byte[] future = data.clone();
+        future[0] = PuzzleCodec.FORMAT_VERSION + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.decodeGrid(future));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.decodeGrid(Arrays.copyOf(data, 3)));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.decodeHints(new byte[0]));
+    }
+
+    @Test
+    public void encodingIsDeterministic() {
+        PuzzleGrid grid = PuzzleGrid.parse(PuzzleGenerator.generate(15, 3).cellsJson());
+        assertArrayEquals(PuzzleCodec.encodeGrid(grid), PuzzleCodec.encodeGrid(grid));
+    }
+
+    /**
+     * Blocked cells are stored without their character, so a space and no
+     * character both come back as no character. Everything else must match.
+     */
+    static void assertSameGrid(PuzzleGrid expected, PuzzleGrid actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getCols(), actual.getCols());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getCols(); col++) {
+                String cell = "Cell " + row + "," + col;
+                assertEquals(expected.isBlocked(row, col), actual.isBlocked(row, col), cell);
+                if (!expected.isBlocked(row, col)) {
+                    assertEquals(expected.letterAt(row, col), actual.letterAt(row, col), cell);
+                }
+                assertEquals(expected.labelAt(row, col), actual.labelAt(row, col), cell);
+                assertEquals(expected.hintAcrossAt(row, col), actual.hintAcrossAt(row, col), cell);
+                assertEquals(expected.hintDownAt(row, col), actual.hintDownAt(row, col), cell);
+            }
+        }
+    }
+
+    static void assertSameHints(List<Puzzle.Hint> expected, List<Puzzle.Hint> actual) {
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    private static List<String> describe(List<Puzzle.Hint> hints) {
+        List<String> described = new ArrayList<>();
+        for (Puzzle.Hint hint : hints) {
+            described.add(hint.label + " " + hint.direction + " " + hint.hint);
+        }
+        return described;
+    }
+}
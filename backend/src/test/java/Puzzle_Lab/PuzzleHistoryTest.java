@@ -0,0 +1,137 @@
+package Puzzle_Lab;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.PuzzleCodec;
+import Puzzle_Lab.Entities.PuzzleGrid;
+import Puzzle_Lab.Entities.PuzzleRevision;
+import Puzzle_Lab.Entities.User;
+import Puzzle_Lab.Enums.Status;
+import Puzzle_Lab.LoadTest.PuzzleGenerator;
+
+/**
+ * Runs against the test profile's H2 database, where snapshot-every and
+ * keep-revisions are small enough for a dozen edits to cross both.
+ */
+@QuarkusTest
+public class PuzzleHistoryTest {
+    @Inject
+    PuzzleHistory history;
+
+    @ConfigProperty(name = "puzzlelab.history.snapshot-every")
+    int snapshotEvery;
+
+    @ConfigProperty(name = "puzzlelab.history.keep-revisions")
+    int keepRevisions;
+
+    @Test
+    @TestTransaction
+    public void rebuildsEveryKeptRevisionAfterPruning() {
+        Puzzle puzzle = newPuzzle();
+        history.record(puzzle, null);
+        Map<Long, PuzzleRevision.Content> expected = new HashMap<>();
+        expected.put(puzzle.getRevision(), PuzzleRevision.Content.of(puzzle));
+
+        int edits = snapshotEvery * 4;
+        for (int edit = 0; edit < edits; edit++) {
+            PuzzleRevision.Content before = PuzzleRevision.Content.of(puzzle);
+            editOneCell(puzzle, edit);
+            history.record(puzzle, before);
+            expected.put(puzzle.getRevision(), PuzzleRevision.Content.of(puzzle));
+        }
+
+        long latest = puzzle.getRevision();
+        List<PuzzleRevision.Summary> stored = history.list(puzzle.getID());
+        assertEquals(latest, stored.get(0).revision());
+        assertNull(history.load(puzzle.getID(), 1), "The first chain should have been pruned");
+
+        // Every kept revision rebuilds, and no chain is longer than snapshot-every
+        int chainLength = 0;
+        for (PuzzleRevision.Summary summary : stored.reversed()) {
+            chainLength = summary.snapshot() ? 1 : chainLength + 1;
+            assertTrue(chainLength <= snapshotEvery, "Revision " + summary.revision() + " is too far from its snapshot");
+            assertSameContent(expected.get(summary.revision()), history.load(puzzle.getID(), summary.revision()));
+        }
+        assertTrue(stored.get(stored.size() - 1).snapshot(), "The oldest kept revision must be a snapshot");
+        for (long revision = latest - keepRevisions + 1; revision <= latest; revision++) {
+            assertNotNull(history.load(puzzle.getID(), revision), "Revision " + revision + " should still be kept");
+        }
+    }
+
+    @Test
+    @TestTransaction
+    public void storesTheRevisionBeforeTheFirstRecordedEdit() {
+        // A puzzle made before the history existed has a revision that was never stored
+        Puzzle puzzle = newPuzzle();
+        PuzzleRevision.Content original = PuzzleRevision.Content.of(puzzle);
+
+        editOneCell(puzzle, 0);
+        history.record(puzzle, original);
+
+        List<PuzzleRevision.Summary> stored = history.list(puzzle.getID());
+        assertEquals(2, stored.size());
+        assertTrue(stored.get(1).snapshot());
+        assertSameContent(original, history.load(puzzle.getID(), 1));
+        assertSameContent(PuzzleRevision.Content.of(puzzle), history.load(puzzle.getID(), 2));
+    }
+
+    @Test
+    @TestTransaction
+    public void unknownRevisionsAreNotStored() {
+        Puzzle puzzle = newPuzzle();
+        history.record(puzzle, null);
+
+        assertNull(history.load(puzzle.getID(), 2));
+        assertNull(history.load(puzzle.getID(), 0));
+    }
+
+    private static Puzzle newPuzzle() {
+        String name = UUID.randomUUID().toString().substring(0, 12);
+        User creator = new User(name, "not-a-hash", name + "@example.com");
+        creator.persist();
+
+        PuzzleGenerator.Generated generated = PuzzleGenerator.generate(15, 15);
+        Puzzle puzzle = new Puzzle(creator, "History", "A puzzle to edit", generated.cellsJson(), generated.hintsJson(),
+                Status.PRIVATE);
+        puzzle.persist();
+        return puzzle;
+    }
+
+    /**
+     * Changes one letter and bumps the revision, the way an edit from the creator does.
+     */
+    private static void editOneCell(Puzzle puzzle, int edit) {
+        PuzzleGrid grid = puzzle.getGrid();
+        int cell = edit * 7 % (grid.getRows() * grid.getCols());
+        String letter = String.valueOf((char) ('A' + edit % 26));
+        puzzle.setGrid(grid.withEdits(List.of(
+                new PuzzleGrid.CellEdit(cell / grid.getCols(), cell % grid.getCols(), letter, null, null, null))));
+        puzzle.nextRevision();
+    }
+
+    private static void assertSameContent(PuzzleRevision.Content expected, PuzzleRevision.Content actual) {
+        assertNotNull(actual);
+        assertEquals(expected.title(), actual.title());
+        assertEquals(expected.description(), actual.description());
+        assertArrayEquals(PuzzleCodec.encodeGrid(expected.grid()), PuzzleCodec.encodeGrid(actual.grid()));
+        assertArrayEquals(PuzzleCodec.encodeHints(expected.hints()), PuzzleCodec.encodeHints(actual.hints()));
+    }
+}
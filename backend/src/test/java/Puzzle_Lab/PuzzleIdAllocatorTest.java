@@ -0,0 +1,52 @@
+package Puzzle_Lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Blocks are ranges of the counter, so every counter value mapping to a
+ * different ID is what keeps IDs from different blocks, instances and restarts
+ * apart. The whole 6 and 7 digit ranges are checked.
+ */
+public class PuzzleIdAllocatorTest {
+    private static final int SIX_DIGIT_COUNT = 900000;
+    private static final int SEVEN_DIGIT_COUNT = 9000000;
+
+    @Test
+    public void sixDigitIdsNeverCollide() {
+        assertEquals(SIX_DIGIT_COUNT, countDistinctIds(0, SIX_DIGIT_COUNT, 100000, 999999));
+    }
+
+    @Test
+    public void sevenDigitIdsNeverCollide() {
+        assertEquals(SEVEN_DIGIT_COUNT, countDistinctIds(SIX_DIGIT_COUNT, SEVEN_DIGIT_COUNT, 1000000, 9999999));
+    }
+
+    @Test
+    public void movesOnToSevenDigitsWhenSixAreUsedUp() {
+        assertTrue(PuzzleIdAllocator.toId(SIX_DIGIT_COUNT - 1) <= 999999);
+        assertTrue(PuzzleIdAllocator.toId(SIX_DIGIT_COUNT) >= 1000000);
+        assertThrows(IllegalStateException.class, () -> PuzzleIdAllocator.toId(SIX_DIGIT_COUNT + SEVEN_DIGIT_COUNT));
+    }
+
+    /**
+     * Maps count counter values from first on and counts the distinct IDs they
+     * give. An ID outside [min, max] isn't counted, so anything short of count
+     * means a collision or an ID out of range.
+     */
+    private static int countDistinctIds(long first, int count, long min, long max) {
+        BitSet seen = new BitSet((int) (max - min + 1));
+        for (long counter = first; counter < first + count; counter++) {
+            long id = PuzzleIdAllocator.toId(counter);
+            if (id >= min && id <= max) {
+                seen.set((int) (id - min));
+            }
+        }
+        return seen.cardinality();
+    }
+}
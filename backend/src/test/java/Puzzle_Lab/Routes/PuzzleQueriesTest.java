@@ -0,0 +1,137 @@
+package Puzzle_Lab.Routes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+import Puzzle_Lab.QueryTracker;
+import Puzzle_Lab.ResponseBody;
+import Puzzle_Lab.TokenService;
+import Puzzle_Lab.Entities.Puzzle;
+import Puzzle_Lab.Entities.User;
+import Puzzle_Lab.Enums.Status;
+import Puzzle_Lab.LoadTest.PuzzleGenerator;
+
+/**
+ * Pins how many statements the busiest endpoints run, so a change that brings
+ * back a per-row lookup fails here instead of in production. Relies on the test
+ * profile's puzzlelab.queries.keep-last.
+ */
+@QuarkusTest
+public class PuzzleQueriesTest {
+    private static final long WAIT_MILLIS = 5000;
+
+    @Inject
+    QueryTracker queries;
+
+    @TestHTTPResource("/puzzles")
+    URI puzzles;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * A user and one of their puzzles, with a token to act as the user.
+     */
+    private record Fixture(String token, Long puzzleId) {
+    }
+
+    @BeforeEach
+    public void forgetEarlierRequests() {
+        queries.reset();
+    }
+
+    @Test
+    public void getPuzzleLoadsThePuzzleOnce() throws Exception {
+        Fixture fixture = newPuzzle(Status.PUBLIC);
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(puzzles + "/" + fixture.puzzleId() + "?mode=play")));
+
+        assertEquals(200, response.statusCode());
+        awaitRequest("PuzzleResource.getPuzzle");
+        // The puzzle joined with its creator, then its lazily loaded columns
+        queries.assertAtMostStatements("PuzzleResource.getPuzzle", 4);
+        queries.assertNoRepeats("PuzzleResource.getPuzzle");
+    }
+
+    @Test
+    public void likeOnlyWritesTheMark() throws Exception {
+        Fixture fixture = newPuzzle(Status.PUBLIC);
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(puzzles + "/" + fixture.puzzleId() + "/like"))
+                .header("Authorization", "Bearer " + fixture.token())
+                .POST(HttpRequest.BodyPublishers.noBody()));
+
+        assertEquals(200, response.statusCode());
+        awaitRequest("PuzzleResource.likePuzzle");
+        // Whether the puzzle exists, then the idempotent insert. The count is written behind.
+        queries.assertStatements("PuzzleResource.likePuzzle", 2);
+    }
+
+    @Test
+    public void keysetPageIsOneQuery() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            newPuzzle(Status.PUBLIC);
+        }
+        HttpResponse<String> first = send(HttpRequest.newBuilder(URI.create(puzzles + "?limit=2")));
+        String cursor = ResponseBody.MAPPER.readTree(first.body()).path("nextCursor").asText(null);
+        assertNotNull(cursor);
+        awaitRequest("PuzzleResource.getAllPuzzles");
+        queries.reset();
+
+        HttpResponse<String> next = send(HttpRequest.newBuilder(
+                URI.create(puzzles + "?limit=2&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8))));
+
+        assertEquals(200, next.statusCode());
+        awaitRequest("PuzzleResource.getAllPuzzles");
+        queries.assertStatements("PuzzleResource.getAllPuzzles", 1);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Requests are summarized when their request scope ends, which can be just
+     * after the response reached the client.
+     */
+    private void awaitRequest(String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (queries.lastRequest(name) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("No request to " + name + " was tracked.");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static Fixture newPuzzle(Status status) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            String name = UUID.randomUUID().toString().substring(0, 12);
+            User creator = new User(name, "not-a-hash", name + "@example.com");
+            creator.persist();
+
+            PuzzleGenerator.Generated generated = PuzzleGenerator.generate(15, 15);
+            Puzzle puzzle = new Puzzle(creator, "Queries", "A puzzle to request", generated.cellsJson(),
+                    generated.hintsJson(), status);
+            puzzle.persist();
+            return new Fixture(TokenService.generateToken(creator), puzzle.getID());
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package Puzzle_Lab.Words;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Grids are written a row per string: '#' is a blocked cell, '.' an open one and
+ * a letter a cell the creator already filled in.
+ */
+public class GridFillerTest {
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // The rows CAT, ORE, WED make the columns COW, ARE, TED, six different words
+    private static final List<String> SQUARE = List.of("CAT", "ORE", "WED", "COW", "ARE", "TED");
+
+    @Test
+    public void fillsAnOpenGrid() {
+        List<String> words = new ArrayList<>(SQUARE);
+        words.addAll(List.of("DOG", "EAR", "ZZZ"));
+        String[] grid = { "...", "...", "..." };
+
+        GridFiller.Result result = fill(grid, words);
+
+        assertTrue(result.filled(), result.reason());
+        assertValidFill(grid, result, words);
+    }
+
+    @Test
+    public void keepsTheLettersAlreadyInTheGrid() {
+        String[] grid = { "...", "...", "W.." };
+
+        GridFiller.Result result = fill(grid, SQUARE);
+
+        assertTrue(result.filled(), result.reason());
+        assertValidFill(grid, result, SQUARE);
+        assertEquals("CATOREWED", new String(result.letters()));
+    }
+
+    @Test
+    public void leavesCompleteRunsAndBlockedCellsAlone() {
+        String[] grid = { "ZZZ", "###", "..." };
+
+        GridFiller.Result result = fill(grid, List.of("CAT"));
+
+        assertTrue(result.filled(), result.reason());
+        assertEquals("ZZZ\0\0\0CAT", new String(result.letters()));
+    }
+
+    @Test
+    public void lettersThatFitNoWordCantBeFilled() {
+        GridFiller.Result result = fill(new String[] { "Q..", "...", "..." }, SQUARE);
+
+        assertFalse(result.filled());
+        assertFalse(result.timedOut());
+        assertEquals("No words fit the letters already in the grid.", result.reason());
+    }
+
+    @Test
+    public void tooFewWordsCantBeFilled() {
+        // Six slots, but only five words to put in them
+        GridFiller.Result result = fill(new String[] { "...", "...", "..." }, SQUARE.subList(0, 5));
+
+        assertFalse(result.filled());
+        assertFalse(result.timedOut());
+        assertEquals("No fill exists with the words in the word list.", result.reason());
+    }
+
+    @Test
+    public void missingWordLengthIsReported() {
+        GridFiller.Result result = fill(new String[] { "....", "....", "....", "...." }, SQUARE);
+
+        assertFalse(result.filled());
+        assertEquals("There are no 4 letter words in the word list.", result.reason());
+    }
+
+    private static GridFiller.Result fill(String[] grid, List<String> words) {
+        int rows = grid.length;
+        int cols = grid[0].length();
+        char[] letters = new char[rows * cols];
+        boolean[] blocked = new boolean[rows * cols];
+        for (int i = 0; i < rows * cols; i++) {
+            char cell = grid[i / cols].charAt(i % cols);
+            blocked[i] = cell == '#';
+            letters[i] = cell >= 'A' && cell <= 'Z' ? cell : '\0';
+        }
+        return new GridFiller(WordIndex.build(words), rows, cols, letters, blocked)
+                .fill(ForkJoinPool.commonPool(), TIMEOUT_NANOS);
+    }
+
+    /**
+     * Checks that the fill kept the grid's letters and blocks, and that every
+     * across and down run is a different word from the list.
+     */
+    private static void assertValidFill(String[] grid, GridFiller.Result result, List<String> words) {
+        int rows = grid.length;
+        int cols = grid[0].length();
+        char[] letters = result.letters();
+        for (int i = 0; i < rows * cols; i++) {
+            char cell = grid[i / cols].charAt(i % cols);
+            if (cell == '#') {
+                assertEquals('\0', letters[i], "Blocked cell " + i);
+            } else if (cell != '.') {
+                assertEquals(cell, letters[i], "Cell " + i);
+            }
+        }
+
+        List<String> runs = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            runs.addAll(runsOf(new String(letters, r * cols, cols)));
+        }
+        for (int c = 0; c < cols; c++) {
+            StringBuilder column = new StringBuilder();
+            for (int r = 0; r < rows; r++) {
+                column.append(letters[r * cols + c]);
+            }
+            runs.addAll(runsOf(column.toString()));
+        }
+        Set<String> used = new HashSet<>();
+        for (String run : runs) {
+            assertTrue(words.contains(run), run + " isn't in the word list");
+            assertTrue(used.add(run), run + " is used twice");
+        }
+    }
+
+    private static List<String> runsOf(String line) {
+        List<String> runs = new ArrayList<>();
+        for (String run : line.split("\0")) {
+            if (run.length() >= WordIndex.MIN_LENGTH) {
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+}
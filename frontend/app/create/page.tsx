@@ -150,6 +150,8 @@ export default function CreateCrossword() {
   const [showInvalidCrosswordDialog, setShowInvalidCrosswordDialog] = useState(false);
   const [validationErrors, setValidationErrors] = useState<string[]>([]);
   const [crosswordStatus, setCrosswordStatus] = useState<string>("");
+  const [isAutofilling, setIsAutofilling] = useState(false);
+  const [autofillMessage, setAutofillMessage] = useState<string>("");
 
   // only show size modal if auth is checked and user is authenticated
   useEffect(() => {
@@ -693,6 +695,44 @@ export default function CreateCrossword() {
     };
   };
 
+  // asks the backend to fill every empty cell with words, keeping blocked cells and typed letters
+  const handleAutofill = async () => {
+    setIsAutofilling(true);
+    setAutofillMessage("");
+    try {
+      const token = localStorage.getItem('token');
+      const response = await fetch(`${process.env.NEXT_PUBLIC_BACKEND}/puzzles/autofill`, {
+        method: 'POST',
+        headers: {
+          'Content-Type': 'application/json',
+          'Authorization': `Bearer ${token}`,
+        },
+        body: JSON.stringify({
+          cells: JSON.stringify(grid.map(row => row.map(cell => ({
+            character: cell.isBlocked ? '' : cell.letter,
+            isBlocked: cell.isBlocked,
+          })))),
+        }),
+      });
+      const data = await response.json();
+      if (!response.ok || !data.filled) {
+        setAutofillMessage(data.message ?? 'Unable to fill the grid.');
+        return;
+      }
+
+      const filledCells: { character: string | null; isBlocked: boolean }[][] = data.cells;
+      setGrid(grid.map((row, rowIndex) => row.map((cell, colIndex) => ({
+        ...cell,
+        letter: cell.isBlocked ? cell.letter : (filledCells[rowIndex][colIndex].character ?? cell.letter),
+      }))));
+    } catch (error) {
+      console.error('Error filling grid:', error);
+      setAutofillMessage('Unable to fill the grid.');
+    } finally {
+      setIsAutofilling(false);
+    }
+  };
+
   // hint detection logic
   const handleAddHints = () => {
 
@@ -1208,6 +1248,19 @@ export default function CreateCrossword() {
                 </Button>
               </div>
 
+              <Button
+                onClick={handleAutofill}
+                variant="outline"
+                className="mt-4"
+                disabled={isAutofilling}
+                style={{ width: `${(cellSize * gridSize.cols) + ((gridSize.cols - 1) * 4)}px` }}
+              >
+                {isAutofilling ? 'Filling...' : 'Autofill Empty Cells'}
+              </Button>
+              {autofillMessage && (
+                <p className="mt-2 text-sm text-red-500">{autofillMessage}</p>
+              )}
+
               <Button
                 onClick={handleAddHints}
                 className="mt-4"
@@ -26,7 +26,8 @@ export default function MyPuzzles() {
   const [myPuzzles, setMyPuzzles] = useState<Puzzle[]>([]);
   const [publicPuzzles, setPublicPuzzles] = useState<Puzzle[]>([]);
 
-  const [page, setPage] = useState({ my: 0, public: 0 });
+  // cursor to the next page, null until the first page has loaded
+  const [cursor, setCursor] = useState<{ my: string | null; public: string | null }>({ my: null, public: null });
   const [loading, setLoading] = useState({ my: false, public: false });
   const [hasMore, setHasMore] = useState({ my: true, public: true });
 
@@ -43,16 +44,17 @@ export default function MyPuzzles() {
     try {
       const token = localStorage.getItem("token");
       const userId = localStorage.getItem("userId");
-      const currentPage = type === "my" ? page.my : page.public;
+      const currentCursor = type === "my" ? cursor.my : cursor.public;
+      const position = currentCursor ? `cursor=${encodeURIComponent(currentCursor)}` : "page=0";
 
       let url = "";
       let headers: Record<string, string> = {};
 
       if (type === "my") {
-        url = `${BACKEND}/users/${userId}/puzzles?page=${currentPage}&limit=${LIMIT}`;
+        url = `${BACKEND}/users/${userId}/puzzles?${position}&limit=${LIMIT}`;
         if (token) headers.Authorization = `Bearer ${token}`;
       } else {
-        url = `${BACKEND}/puzzles?page=${currentPage}&limit=${LIMIT}`;
+        url = `${BACKEND}/puzzles?${position}&limit=${LIMIT}`;
         // For public puzzles, do NOT send Authorization if token doesn't exist
         if (token) headers.Authorization = `Bearer ${token}`;
       }
@@ -66,22 +68,22 @@ export default function MyPuzzles() {
         throw new Error(errorText || `HTTP ${res.status}`);
       }      
 
-      const { puzzles: incoming }: { puzzles: Puzzle[] } = await res.json();
+      const { puzzles: incoming, nextCursor }: { puzzles: Puzzle[]; nextCursor: string | null } = await res.json();
 
       if (type === "my") {
         setMyPuzzles((prev) => {
           const unique = incoming.filter((p) => !prev.some((x) => x.id === p.id));
           return [...prev, ...unique];
         });
-        setPage((p) => ({ ...p, my: p.my + 1 }));
-        setHasMore((h) => ({ ...h, my: incoming.length === LIMIT }));
+        setCursor((c) => ({ ...c, my: nextCursor }));
+        setHasMore((h) => ({ ...h, my: nextCursor != null }));
       } else {
         setPublicPuzzles((prev) => {
           const unique = incoming.filter((p) => !prev.some((x) => x.id === p.id));
           return [...prev, ...unique];
         });
-        setPage((p) => ({ ...p, public: p.public + 1 }));
-        setHasMore((h) => ({ ...h, public: incoming.length === LIMIT }));
+        setCursor((c) => ({ ...c, public: nextCursor }));
+        setHasMore((h) => ({ ...h, public: nextCursor != null }));
       }
     } catch (err) {
       console.error("Error fetching puzzles:", err);
@@ -1,6 +1,6 @@
 "use client";
 
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import { useRouter, useParams } from "next/navigation";
 import { Button } from "@/components/ui/button";
 import {
@@ -43,6 +43,9 @@ export default function PlayPuzzlePage() {
     const [puzzleData, setPuzzleData] = useState<PuzzleData | null>(null);
     const [rawCells, setRawCells] = useState<APICell[][]>([]);
     const [userGrid, setUserGrid] = useState<string[][]>([]);
+    const [wrongCells, setWrongCells] = useState<boolean[][]>([]);
+    // cells typed since the last autosave, keyed by "row,col"
+    const unsavedEdits = useRef<Map<string, { row: number; col: number; letter: string }>>(new Map());
     const [message, setMessage] = useState("");
 
     const [likeCount, setLikeCount] = useState(0);
@@ -101,29 +104,25 @@ export default function PlayPuzzlePage() {
 
                 const { puzzle: raw } = await res.json();
 
-                // parse grid
-                let parsed: APICell[][];
-                try {
-                    parsed = JSON.parse(raw.cells);
-                } catch {
+                // cells and hints arrive as JSON arrays, not as strings to parse
+                if (!Array.isArray(raw.cells)) {
                     setMessage("Corrupted puzzle data.");
                     return;
                 }
+                const parsed: APICell[][] = raw.cells;
                 const rows = parsed.length;
                 const cols = parsed[0]?.length || 0;
 
-                // parse hints
-                let hints: Hint[];
-                try {
-                    hints = JSON.parse(raw.hints).map((h: any) => ({
-                        number: h.label,
-                        direction: h.direction,
-                        hint: h.hint,
-                    }));
-                } catch {
+                // map hints
+                if (!Array.isArray(raw.hints)) {
                     setMessage("Corrupted hints data.");
                     return;
                 }
+                const hints: Hint[] = raw.hints.map((h: any) => ({
+                    number: h.label,
+                    direction: h.direction,
+                    hint: h.hint,
+                }));
 
                 // seed everything
                 setPuzzleData({
@@ -145,18 +144,32 @@ export default function PlayPuzzlePage() {
                 // load whether user already liked/favorited
                 if (token) {
                     try {
-                        const meRes = await fetch(`${process.env.NEXT_PUBLIC_BACKEND}/users/me`, { headers });
-                        if (meRes.ok) {
-                            const meData = await meRes.json();
-                            // Adjust these if your me endpoint nests inside `user`
-                            const likedIds: number[] = meData.likedPuzzleIds ?? meData.user?.likedPuzzleIds ?? [];
-                            const favIds: number[] = meData.favoritedPuzzleIds ?? meData.user?.favoritedPuzzleIds ?? [];
+                        const marksRes = await fetch(`${process.env.NEXT_PUBLIC_BACKEND}/users/me/marks?ids=${puzzleId}`, { headers });
+                        if (marksRes.ok) {
+                            const marks = await marksRes.json();
+                            const likedIds: number[] = marks.liked ?? [];
+                            const favIds: number[] = marks.favorited ?? [];
                             setLiked(likedIds.includes(+puzzleId));
                             setFavorited(favIds.includes(+puzzleId));
                         }
                     } catch {
                         // silently ignore
                     }
+
+                    // resume where the player left off, letters come packed one per cell with "." for empty
+                    try {
+                        const progressRes = await fetch(`${process.env.NEXT_PUBLIC_BACKEND}/puzzles/${puzzleId}/progress`, { headers });
+                        if (progressRes.ok) {
+                            const { letters } = await progressRes.json();
+                            if (typeof letters === "string" && letters.length === rows * cols) {
+                                setUserGrid(Array(rows).fill(null).map((_, r) =>
+                                    Array(cols).fill("").map((_, c) => (letters[r * cols + c] === "." ? "" : letters[r * cols + c]))
+                                ));
+                            }
+                        }
+                    } catch {
+                        // start with an empty grid
+                    }
                 }
 
             } catch (err) {
@@ -167,6 +180,45 @@ export default function PlayPuzzlePage() {
         fetchPuzzle();
     }, [puzzleId]);
 
+    // — autosave: every few seconds, send only the cells that changed since the last save
+    useEffect(() => {
+        const token = localStorage.getItem("token");
+        if (!token) return;
+
+        const save = (keepalive: boolean) => {
+            if (unsavedEdits.current.size === 0) return;
+            const edits = Array.from(unsavedEdits.current.values());
+            unsavedEdits.current = new Map();
+            fetch(`${process.env.NEXT_PUBLIC_BACKEND}/puzzles/${puzzleId}/progress`, {
+                method: "PUT",
+                headers: {
+                    "Content-Type": "application/json",
+                    Authorization: `Bearer ${token}`,
+                },
+                body: JSON.stringify({ edits }),
+                keepalive,
+            }).then(res => {
+                if (!res.ok) throw new Error();
+            }).catch(() => {
+                // put them back unless the cell was typed in again since
+                edits.forEach(edit => {
+                    const key = `${edit.row},${edit.col}`;
+                    if (!unsavedEdits.current.has(key)) unsavedEdits.current.set(key, edit);
+                });
+            });
+        };
+        const interval = setInterval(() => save(false), 3000);
+        const onHide = () => {
+            if (document.visibilityState === "hidden") save(true);
+        };
+        document.addEventListener("visibilitychange", onHide);
+        return () => {
+            clearInterval(interval);
+            document.removeEventListener("visibilitychange", onHide);
+            save(true);
+        };
+    }, [puzzleId]);
+
     // — focus first non-block
     useEffect(() => {
         if (!rawCells.length) return;
@@ -206,6 +258,8 @@ export default function PlayPuzzlePage() {
             const g = userGrid.map(r => [...r]);
             g[row][col] = e.key.toUpperCase();
             setUserGrid(g);
+            clearWrong(row, col);
+            unsavedEdits.current.set(`${row},${col}`, { row, col, letter: g[row][col] });
             const nxt = findNextCell(row, col);
             if (nxt) setSelectedCell(nxt);
             return;
@@ -214,6 +268,8 @@ export default function PlayPuzzlePage() {
             const g = userGrid.map(r => [...r]);
             g[row][col] = "";
             setUserGrid(g);
+            clearWrong(row, col);
+            unsavedEdits.current.set(`${row},${col}`, { row, col, letter: "" });
             return;
         }
         if (e.key === "ArrowRight") {
@@ -222,24 +278,29 @@ export default function PlayPuzzlePage() {
         }
     };
 
+    function clearWrong(r: number, c: number) {
+        if (!wrongCells[r]?.[c]) return;
+        const w = wrongCells.map(row => [...row]);
+        w[r][c] = false;
+        setWrongCells(w);
+    }
+
+    // — the answer packed one letter per cell, row by row, "." for blocked and empty cells
+    const packSolution = () =>
+        rawCells.map((row, r) =>
+            row.map((cell, c) => (cell.isBlocked ? "." : userGrid[r][c] || ".")).join("")
+        ).join("");
+
     // — submit
     const handleSubmit = async () => {
         if (!puzzleData) return;
-        const completed = rawCells.map((row, r) =>
-            row.map((cell, c) => ({
-                character: userGrid[r][c] || "",
-                label: cell.label,
-                hint_across: cell.hint_across,
-                hint_down: cell.hint_down,
-            }))
-        );
         try {
             const res = await fetch(
                 `${process.env.NEXT_PUBLIC_BACKEND}/puzzles/${puzzleId}/validate`,
                 {
                     method: "POST",
                     headers: { "Content-Type": "application/json" },
-                    body: JSON.stringify({ cells: JSON.stringify(completed) }),
+                    body: JSON.stringify({ solution: packSolution() }),
                 }
             );
             if (!res.ok) throw new Error();
@@ -250,6 +311,32 @@ export default function PlayPuzzlePage() {
         }
     };
 
+    // — check: marks the letters that are wrong so far
+    const handleCheck = async () => {
+        if (!puzzleData) return;
+        try {
+            const res = await fetch(
+                `${process.env.NEXT_PUBLIC_BACKEND}/puzzles/${puzzleId}/check/cells`,
+                {
+                    method: "POST",
+                    headers: { "Content-Type": "application/json" },
+                    body: JSON.stringify({ solution: packSolution() }),
+                }
+            );
+            if (!res.ok) throw new Error();
+            const { wrong, wrongCount } = await res.json();
+            // bit i of the bitmap (lowest bit first) is cell i, row by row
+            const bits = atob(wrong);
+            const cols = rawCells[0].length;
+            setWrongCells(rawCells.map((row, r) =>
+                row.map((_, c) => ((bits.charCodeAt((r * cols + c) >> 3) >> ((r * cols + c) & 7)) & 1) === 1)
+            ));
+            setMessage(wrongCount === 0 ? "" : `${wrongCount} letter${wrongCount === 1 ? " is" : "s are"} wrong.`);
+        } catch {
+            setMessage("Error checking letters. Please try again.");
+        }
+    };
+
     // — like/fav
     const token = localStorage.getItem("token");
     const handleLike = async () => {
@@ -349,7 +436,7 @@ export default function PlayPuzzlePage() {
                                         )}
                                         {!cell.isBlocked && (
                                             <span
-                                                className="w-full h-full flex items-center justify-center select-none text-black dark:text-white"
+                                                className={`w-full h-full flex items-center justify-center select-none ${wrongCells[r]?.[c] ? "text-red-500" : "text-black dark:text-white"}`}
                                                 style={cellStyles.input}
                                             >
                                                 {userGrid[r][c]}
@@ -379,6 +466,9 @@ export default function PlayPuzzlePage() {
                     <Button className="mt-4" onClick={handleSubmit}>
                         Submit Answer
                     </Button>
+                    <Button variant="outline" className="mt-2" onClick={handleCheck}>
+                        Check Letters
+                    </Button>
                     {message && (
                         <p className="text-red-500 dark:text-red-400 mt-2">{message}</p>
                     )}